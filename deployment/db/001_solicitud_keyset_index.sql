@@ -0,0 +1,4 @@
+-- Soporta la paginación por cursor de GET /api/v1/solicitud:
+-- WHERE id_estado IN (...) AND id_solicitud > :cursor ORDER BY id_solicitud LIMIT :size
+CREATE INDEX IF NOT EXISTS idx_solicitud_estado_id
+    ON solicitud (id_estado, id_solicitud);
@@ -0,0 +1,21 @@
+-- Libro de deuda por cliente: una fila por email, actualizada en la misma transacción
+-- que cada aprobación. Reemplaza el SUM(deuda_mensual) sobre solicitud por lectura de una fila.
+CREATE TABLE IF NOT EXISTS deuda_cliente (
+    email               VARCHAR(255)             PRIMARY KEY,
+    deuda_mensual_total NUMERIC(19, 2)           NOT NULL DEFAULT 0,
+    cantidad_aprobadas  INTEGER                  NOT NULL DEFAULT 0,
+    deudas              JSONB                    NOT NULL DEFAULT '{}'::jsonb,
+    fecha_actualizacion TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+-- Carga inicial con las solicitudes ya aprobadas (id_estado = 2)
+INSERT INTO deuda_cliente (email, deuda_mensual_total, cantidad_aprobadas, deudas, fecha_actualizacion)
+SELECT LOWER(email),
+       COALESCE(SUM(deuda_mensual), 0),
+       COUNT(*),
+       COALESCE(jsonb_object_agg(id_solicitud::text, deuda_mensual) FILTER (WHERE deuda_mensual IS NOT NULL), '{}'::jsonb),
+       now()
+FROM solicitud
+WHERE id_estado = 2
+GROUP BY LOWER(email)
+ON CONFLICT (email) DO NOTHING;
@@ -0,0 +1,15 @@
+-- Outbox transaccional: los eventos hacia SQS se insertan en la misma transacción que el
+-- cambio de la solicitud y un relay en segundo plano los publica y los borra.
+CREATE TABLE IF NOT EXISTS outbox_evento (
+    id              BIGSERIAL                PRIMARY KEY,
+    clave_agregado  VARCHAR(64)              NOT NULL,
+    tipo            VARCHAR(64)              NOT NULL,
+    payload         TEXT                     NOT NULL,
+    intentos        INTEGER                  NOT NULL DEFAULT 0,
+    bloqueado_hasta TIMESTAMP WITH TIME ZONE,
+    ultimo_error    TEXT,
+    creado_en       TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+-- Orden por agregado: solo se reserva el evento sin anteriores del mismo agregado
+CREATE INDEX IF NOT EXISTS idx_outbox_evento_clave_id ON outbox_evento (clave_agregado, id);
@@ -0,0 +1,10 @@
+-- Registro de mensajes SQS procesados para descartar reentregas. La clave de negocio es
+-- solicitudId:estadoNuevo; el id del mensaje también es único.
+CREATE TABLE IF NOT EXISTS mensaje_procesado (
+    clave        VARCHAR(128)             PRIMARY KEY,
+    message_id   VARCHAR(128),
+    procesado_en TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_mensaje_procesado_message_id ON mensaje_procesado (message_id);
+CREATE INDEX IF NOT EXISTS idx_mensaje_procesado_procesado_en ON mensaje_procesado (procesado_en);
@@ -0,0 +1,15 @@
+-- Mensajes SQS retirados de la cola por ser ilegibles, inválidos o por agotar los reintentos.
+-- Se conservan para inspección y reenvío manual (replay).
+CREATE TABLE IF NOT EXISTS mensaje_cuarentena (
+    id               UUID                     PRIMARY KEY,
+    message_id       VARCHAR(128)             NOT NULL,
+    cola             VARCHAR(512)             NOT NULL,
+    cuerpo           TEXT                     NOT NULL,
+    motivo           TEXT,
+    recepciones      INTEGER                  NOT NULL DEFAULT 1,
+    en_cuarentena_en TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    reenviado_en     TIMESTAMP WITH TIME ZONE
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_mensaje_cuarentena_message_id ON mensaje_cuarentena (message_id);
+CREATE INDEX IF NOT EXISTS idx_mensaje_cuarentena_fecha ON mensaje_cuarentena (en_cuarentena_en DESC);
@@ -0,0 +1,23 @@
+package co.com.pedrorido.model.debtledger;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/** Deuda mensual aprobada de un cliente, mantenida incrementalmente con cada aprobación. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@ToString
+public class DebtLedger {
+    private String email;
+    private BigDecimal totalMonthlyDebt;
+    private Integer approvedCount;
+    private Map<UUID, BigDecimal> debts;
+    private Instant updatedAt;
+}
@@ -0,0 +1,12 @@
+package co.com.pedrorido.model.debtledger.gateways;
+
+import co.com.pedrorido.model.debtledger.DebtLedger;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface DebtLedgerRepository {
+    Mono<DebtLedger> findByEmail(String email);
+    Flux<DebtLedger> findByEmails(Collection<String> emails);
+}
@@ -4,7 +4,10 @@ import co.com.pedrorido.model.external.RequestCalculateDebtMessage;
 import co.com.pedrorido.model.external.RequestStatusChangeMessage;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface MessagePublisherRepository {
     Mono<Void> publishRequestStatusChange(RequestStatusChangeMessage evt);
+    Mono<Void> publishRequestStatusChanges(List<RequestStatusChangeMessage> events);
     Mono<Void> publishCalculateDebtCapacitySqs(RequestCalculateDebtMessage evt);
 }
@@ -1,9 +1,18 @@
 package co.com.pedrorido.model.external.gateways;
 
 import co.com.pedrorido.model.external.User;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Set;
+
 public interface UserRepository {
     Mono<Boolean> userExistsByDocumentNumber(String documentNumber, String email);
     Mono<User> getUserByEmail(String email);
+
+    /**
+     * Usuarios encontrados entre {@code emails}, en cualquier orden; los que no existen se omiten.
+     * Si alguno no pudo consultarse, termina en error después de emitir los que sí se resolvieron.
+     */
+    Flux<User> getUsersByEmails(Set<String> emails);
 }
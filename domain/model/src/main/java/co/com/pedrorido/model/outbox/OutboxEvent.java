@@ -0,0 +1,21 @@
+package co.com.pedrorido.model.outbox;
+
+import lombok.*;
+
+import java.time.Instant;
+
+/** Evento pendiente de publicar, guardado en la misma transacción que el cambio que lo origina. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@ToString
+public class OutboxEvent {
+    private Long id;
+    private String aggregateId;
+    private OutboxEventType eventType;
+    private String payload;
+    private Integer attempts;
+    private Instant createdAt;
+}
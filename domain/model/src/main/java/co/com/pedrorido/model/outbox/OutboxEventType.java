@@ -0,0 +1,6 @@
+package co.com.pedrorido.model.outbox;
+
+public enum OutboxEventType {
+    REQUEST_STATUS_CHANGE,
+    CALCULATE_DEBT_CAPACITY
+}
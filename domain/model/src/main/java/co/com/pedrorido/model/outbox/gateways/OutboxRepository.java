@@ -0,0 +1,21 @@
+package co.com.pedrorido.model.outbox.gateways;
+
+import co.com.pedrorido.model.outbox.OutboxEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+
+public interface OutboxRepository {
+    /**
+     * Reserva hasta {@code size} eventos pendientes durante {@code lease}, en orden de inserción.
+     * No entrega un evento mientras otro anterior del mismo agregado siga reservado.
+     */
+    Flux<OutboxEvent> claimBatch(int size, Duration lease);
+
+    Mono<Void> markPublished(Collection<Long> ids);
+
+    /** Deja el evento reservado hasta que venza el lease y registra el error. */
+    Mono<Void> markFailed(Long id, String error);
+}
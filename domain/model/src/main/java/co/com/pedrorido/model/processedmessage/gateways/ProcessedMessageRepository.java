@@ -0,0 +1,12 @@
+package co.com.pedrorido.model.processedmessage.gateways;
+
+import reactor.core.publisher.Mono;
+
+public interface ProcessedMessageRepository {
+    /**
+     * Registra el mensaje como procesado. Devuelve false si el id del mensaje o la clave de
+     * negocio ya estaban registrados (duplicado). Dentro de una transacción el registro se
+     * confirma o se revierte junto con el procesamiento.
+     */
+    Mono<Boolean> claim(String messageId, String businessKey);
+}
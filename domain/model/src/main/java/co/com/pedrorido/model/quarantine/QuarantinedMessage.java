@@ -0,0 +1,24 @@
+package co.com.pedrorido.model.quarantine;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** Mensaje que no se pudo procesar (ilegible, inválido o sin éxito tras los reintentos) y se sacó de la cola. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@ToString
+public class QuarantinedMessage {
+    private UUID id;
+    private String messageId;
+    private String queueUrl;
+    private String body;
+    private String reason;
+    private Integer receiveCount;
+    private Instant quarantinedAt;
+    private Instant replayedAt;
+}
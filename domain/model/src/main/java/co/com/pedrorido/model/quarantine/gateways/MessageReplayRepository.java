@@ -0,0 +1,8 @@
+package co.com.pedrorido.model.quarantine.gateways;
+
+import reactor.core.publisher.Mono;
+
+public interface MessageReplayRepository {
+    /** Vuelve a enviar el cuerpo original a la cola de la que salió. */
+    Mono<Void> replay(String queueUrl, String body);
+}
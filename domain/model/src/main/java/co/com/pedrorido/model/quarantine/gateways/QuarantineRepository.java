@@ -0,0 +1,20 @@
+package co.com.pedrorido.model.quarantine.gateways;
+
+import co.com.pedrorido.model.quarantine.QuarantinedMessage;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+public interface QuarantineRepository {
+    /** Guarda el mensaje; si el mismo messageId ya estaba en cuarentena devuelve el registro existente. */
+    Mono<QuarantinedMessage> save(QuarantinedMessage message);
+
+    /** Los más recientes primero. */
+    Flux<QuarantinedMessage> findRecent(int limit);
+
+    Mono<QuarantinedMessage> findById(UUID id);
+
+    /** Marca el mensaje como reenviado; devuelve false si ya lo estaba. */
+    Mono<Boolean> markReplayed(UUID id);
+}
@@ -0,0 +1,11 @@
+package co.com.pedrorido.model.requestdomain;
+
+/**
+ * Cambio de estado que nunca podrá aplicarse: destino distinto de APPROVED/REJECTED,
+ * solicitud inexistente o ya resuelta. Reintentar no cambia el resultado.
+ */
+public class InvalidStatusChangeException extends IllegalStateException {
+    public InvalidStatusChangeException(String message) {
+        super(message);
+    }
+}
@@ -22,4 +22,6 @@ public class RequestBasicAdminInfo {
     private BigDecimal baseSalary;
     private Long statusId;
     private BigDecimal monthlyDebt;
+    /** El usuario no se resolvió dentro del plazo de enriquecimiento (no es lo mismo que "no existe"). */
+    private boolean userPending;
 }
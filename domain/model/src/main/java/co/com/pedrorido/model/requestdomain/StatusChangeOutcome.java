@@ -0,0 +1,11 @@
+package co.com.pedrorido.model.requestdomain;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Resultado de un lote de cambios de estado: {@code applied} ya puede confirmarse y
+ * {@code invalid} nunca podrá aplicarse (destino imposible o solicitud inexistente).
+ */
+public record StatusChangeOutcome(Set<UUID> applied, Set<UUID> invalid) {
+}
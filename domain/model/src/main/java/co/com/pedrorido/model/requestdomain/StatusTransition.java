@@ -0,0 +1,8 @@
+package co.com.pedrorido.model.requestdomain;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/** Cambio de estado pedido para una solicitud; monthlyDebt solo aplica a APPROVED. */
+public record StatusTransition(UUID requestId, Long statusId, BigDecimal monthlyDebt) {
+}
@@ -2,11 +2,15 @@ package co.com.pedrorido.model.requestdomain.gateways;
 
 import co.com.pedrorido.model.requestdomain.RequestBasicAdminInfo;
 import co.com.pedrorido.model.requestdomain.RequestDomain;
+import co.com.pedrorido.model.requestdomain.StatusTransition;
+import co.com.pedrorido.model.utils.CursorPageResult;
 import co.com.pedrorido.model.utils.PageResult;
 import co.com.pedrorido.model.utils.StatusEnum;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -15,7 +19,13 @@ import java.util.UUID;
 public interface RequestDomainRepository {
     Mono<RequestDomain> saveRequestDomain(RequestDomain request);
     Mono<RequestDomain> findById(UUID requestId);
+    Flux<RequestDomain> findAllByIds(Collection<UUID> requestIds);
+    /** Cambia el estado solo si la solicitud sigue en PENDING; vacío si otra transición ganó o no existe. */
+    Mono<RequestDomain> updateStatusIfPending(UUID requestId, Long statusId, BigDecimal monthlyDebt);
+    /** Igual que {@link #updateStatusIfPending} para varias solicitudes en una sola sentencia; emite solo las que cambiaron. */
+    Flux<RequestDomain> updateStatusesIfPending(List<StatusTransition> transitions);
     Mono<BigDecimal> findSumMonthlyDebtByEmail(String email);
-    Mono<PageResult<RequestBasicAdminInfo>> findPage(Set<Long> statusEnumSet, int page, int size);
+    Mono<PageResult<RequestBasicAdminInfo>> findPage(Set<Long> statusEnumSet, int page, int size, boolean includeTotal);
+    Mono<CursorPageResult<RequestBasicAdminInfo>> findPageAfter(Set<Long> statusEnumSet, String cursor, int size);
     Mono<List<RequestDomain>> getRequestFromUserByStatusId(String userId, Long statusId);
 }
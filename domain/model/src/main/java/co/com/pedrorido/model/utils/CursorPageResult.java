@@ -0,0 +1,16 @@
+package co.com.pedrorido.model.utils;
+
+import java.util.List;
+
+/** {@code enrichmentPartial} como en {@link PageResult}. */
+public record CursorPageResult<T>(
+        List<T> content,
+        int size,
+        String nextCursor,
+        boolean hasNext,
+        boolean enrichmentPartial
+) {
+    public CursorPageResult(List<T> content, int size, String nextCursor, boolean hasNext) {
+        this(content, size, nextCursor, hasNext, false);
+    }
+}
@@ -2,10 +2,24 @@ package co.com.pedrorido.model.utils;
 
 import java.util.List;
 
+/**
+ * {@code enrichmentPartial}: venció el plazo de enriquecimiento antes de resolver todos los
+ * usuarios; las filas sin resolver llevan {@code userPending}.
+ */
 public record PageResult<T>(
         List<T> content,
         int page,
         int size,
         long totalElements,
-        int totalPages
-) {}
\ No newline at end of file
+        int totalPages,
+        TotalAccuracy totalAccuracy,
+        boolean enrichmentPartial
+) {
+    public PageResult(List<T> content, int page, int size, long totalElements, int totalPages) {
+        this(content, page, size, totalElements, totalPages, TotalAccuracy.EXACT);
+    }
+
+    public PageResult(List<T> content, int page, int size, long totalElements, int totalPages, TotalAccuracy totalAccuracy) {
+        this(content, page, size, totalElements, totalPages, totalAccuracy, false);
+    }
+}
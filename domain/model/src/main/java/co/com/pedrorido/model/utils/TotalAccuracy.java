@@ -0,0 +1,11 @@
+package co.com.pedrorido.model.utils;
+
+/** Indica cómo se obtuvo {@link PageResult#totalElements()}. */
+public enum TotalAccuracy {
+    /** Conteo exacto hecho junto con la consulta de la página. */
+    EXACT,
+    /** Valor tomado de contadores por estado mantenidos en memoria; puede diferir levemente. */
+    ESTIMATED,
+    /** El cliente pidió no calcular el total; totalElements y totalPages valen -1. */
+    SKIPPED
+}
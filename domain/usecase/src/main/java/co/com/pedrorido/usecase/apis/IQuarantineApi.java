@@ -0,0 +1,16 @@
+package co.com.pedrorido.usecase.apis;
+
+import co.com.pedrorido.model.quarantine.QuarantinedMessage;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+public interface IQuarantineApi {
+    Mono<QuarantinedMessage> quarantine(QuarantinedMessage message);
+
+    Flux<QuarantinedMessage> list(int limit);
+
+    /** Reenvía el cuerpo original a su cola; un mensaje se reenvía una sola vez. */
+    Mono<QuarantinedMessage> replay(UUID id);
+}
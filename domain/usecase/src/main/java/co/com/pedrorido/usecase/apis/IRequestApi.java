@@ -3,14 +3,20 @@ package co.com.pedrorido.usecase.apis;
 import co.com.pedrorido.model.requestdomain.RequestBasicAdminInfo;
 import co.com.pedrorido.model.requestdomain.RequestDomain;
 import co.com.pedrorido.model.utils.CreateRequestDomainDTO;
+import co.com.pedrorido.model.utils.CursorPageResult;
 import co.com.pedrorido.model.utils.PageResult;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.Set;
 import java.util.UUID;
 
 public interface IRequestApi {
     Mono<RequestDomain> createRequest(CreateRequestDomainDTO createRequest);
     Mono<RequestDomain> updateStatusRequest(UUID requestId, Long statusId, boolean callEvent);
-    Mono<PageResult<RequestBasicAdminInfo>> getListByStatus(Set<Long> statusEnumSet, int page, int size);
+    /** {@code enrichmentDeadline}: plazo para completar los datos de usuario; nulo espera a todos. */
+    Mono<PageResult<RequestBasicAdminInfo>> getListByStatus(Set<Long> statusEnumSet, int page, int size, boolean includeTotal,
+                                                            Duration enrichmentDeadline);
+    Mono<CursorPageResult<RequestBasicAdminInfo>> getListByStatusAfter(Set<Long> statusEnumSet, String cursor, int size,
+                                                                       Duration enrichmentDeadline);
 }
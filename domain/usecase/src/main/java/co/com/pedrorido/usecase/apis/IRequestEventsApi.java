@@ -1,8 +1,20 @@
 package co.com.pedrorido.usecase.apis;
 
 import co.com.pedrorido.model.external.RequestStatusChangeMessage;
+import co.com.pedrorido.model.requestdomain.StatusChangeOutcome;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface IRequestEventsApi {
     Mono<Void> onStatusChange(RequestStatusChangeMessage evt);
-}
\ No newline at end of file
+
+    /** Procesa el evento solo si no se había procesado antes; devuelve false si era un duplicado. */
+    Mono<Boolean> onStatusChangeOnce(String messageId, RequestStatusChangeMessage evt);
+
+    /**
+     * Procesa un lote de eventos; devuelve las solicitudes cuyo evento ya quedó aplicado y las
+     * que nunca podrán aplicarse.
+     */
+    Mono<StatusChangeOutcome> onStatusChanges(List<RequestStatusChangeMessage> evts);
+}
@@ -0,0 +1,50 @@
+package co.com.pedrorido.usecase.quarantine;
+
+import co.com.pedrorido.model.quarantine.QuarantinedMessage;
+import co.com.pedrorido.model.quarantine.gateways.MessageReplayRepository;
+import co.com.pedrorido.model.quarantine.gateways.QuarantineRepository;
+import co.com.pedrorido.usecase.apis.IQuarantineApi;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class QuarantineUseCase implements IQuarantineApi {
+    private static final int MAX_LIST = 200;
+
+    private final QuarantineRepository quarantineRepository;
+    private final MessageReplayRepository messageReplayRepository;
+
+    @Override
+    public Mono<QuarantinedMessage> quarantine(QuarantinedMessage message) {
+        return quarantineRepository.save(message.toBuilder()
+                .id(message.getId() != null ? message.getId() : UUID.randomUUID())
+                .quarantinedAt(Instant.now())
+                .build());
+    }
+
+    @Override
+    public Flux<QuarantinedMessage> list(int limit) {
+        if (limit <= 0) {
+            return Flux.error(new IllegalArgumentException("limit must be positive"));
+        }
+        return quarantineRepository.findRecent(Math.min(limit, MAX_LIST));
+    }
+
+    @Override
+    public Mono<QuarantinedMessage> replay(UUID id) {
+        // Se envía primero y se marca después, sin transacción abierta durante el envío a SQS.
+        // La marca es idempotente; un reenvío simultáneo puede duplicar el mensaje y lo absorbe
+        // el consumidor (el cambio de estado solo se aplica desde PENDING).
+        return quarantineRepository.findById(id)
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("quarantined message not found")))
+                .flatMap(found -> found.getReplayedAt() != null
+                        ? Mono.error(new IllegalStateException("quarantined message already replayed"))
+                        : messageReplayRepository.replay(found.getQueueUrl(), found.getBody())
+                                .then(quarantineRepository.markReplayed(id))
+                                .thenReturn(found.toBuilder().replayedAt(Instant.now()).build()));
+    }
+}
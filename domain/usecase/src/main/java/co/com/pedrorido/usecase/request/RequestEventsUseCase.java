@@ -1,48 +1,208 @@
 package co.com.pedrorido.usecase.request;
 
+import co.com.pedrorido.model.debtledger.DebtLedger;
+import co.com.pedrorido.model.debtledger.gateways.DebtLedgerRepository;
 import co.com.pedrorido.model.external.RequestStatusChangeMessage;
 import co.com.pedrorido.model.external.gateways.MessagePublisherRepository;
+import co.com.pedrorido.model.loantype.LoanType;
+import co.com.pedrorido.model.loantype.gateways.LoanTypeRepository;
+import co.com.pedrorido.model.processedmessage.gateways.ProcessedMessageRepository;
+import co.com.pedrorido.model.requestdomain.InvalidStatusChangeException;
 import co.com.pedrorido.model.requestdomain.RequestDomain;
+import co.com.pedrorido.model.requestdomain.StatusChangeOutcome;
+import co.com.pedrorido.model.requestdomain.StatusTransition;
 import co.com.pedrorido.model.requestdomain.gateways.RequestDomainRepository;
 import co.com.pedrorido.model.utils.StatusEnum;
 import co.com.pedrorido.usecase.apis.IRequestApi;
 import co.com.pedrorido.usecase.apis.IRequestEventsApi;
 import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
-import java.util.Date;
-import java.util.Map;
-import java.util.UUID;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 public class RequestEventsUseCase implements IRequestEventsApi {
-    private final RequestDomainRepository requestDomainRepository;
+    private final DebtLedgerRepository debtLedgerRepository;
     private final MessagePublisherRepository publisherRepository;
     private final IRequestApi requestApi;
+    private final ProcessedMessageRepository processedMessageRepository;
+    private final RequestDomainRepository requestDomainRepository;
+    private final LoanTypeRepository loanTypeRepository;
+
+    @Override
+    public Mono<Boolean> onStatusChangeOnce(String messageId, RequestStatusChangeMessage incomingData) {
+        String businessKey = incomingData.solicitudId() + ":" + incomingData.estadoNuevo();
+        return processedMessageRepository.claim(messageId, businessKey)
+                .flatMap(claimed -> claimed
+                        ? onStatusChange(incomingData).thenReturn(true)
+                        : Mono.just(false));
+    }
 
     @Override
     public Mono<Void> onStatusChange(RequestStatusChangeMessage incomingData) {
         return requestApi.updateStatusRequest(incomingData.solicitudId(), Long.valueOf(incomingData.estadoNuevo()), false)
-                .flatMap(savedRequest -> requestDomainRepository.getRequestFromUserByStatusId(savedRequest.getEmail(), StatusEnum.APPROVED.getId())
-                        .flatMap(list -> {
-                            Map<UUID, BigDecimal> debtByUser = null;
-                            if (savedRequest.getStatusId().equals(StatusEnum.APPROVED.getId())){
-                                debtByUser = list.stream()
-                                        .filter(request -> request.getId() != null && request.getMonthlyDebt() != null) // Evitar nulos
-                                        .collect(Collectors.toMap(RequestDomain::getId, RequestDomain::getMonthlyDebt));
-                            }
-                            RequestStatusChangeMessage requestStatusChangeMessage = new RequestStatusChangeMessage(
-                                    savedRequest.getId(),
-                                    StatusEnum.fromId(Long.valueOf(incomingData.estadoAnterior())).getDescription(),
-                                    StatusEnum.fromId(savedRequest.getStatusId()).getDescription(),
-                                    savedRequest.getEmail(),
-                                    new Date(),
-                                    debtByUser,
-                                    incomingData.reason());
-                            return publisherRepository.publishRequestStatusChange(requestStatusChangeMessage);
-                        }).then())
+                .onErrorResume(InvalidStatusChangeException.class, e -> ignoreIfAlreadyApplied(incomingData, e))
+                .flatMap(savedRequest -> {
+                    // Solo una aprobación lleva el detalle de deuda; se lee de la fila del libro del cliente
+                    Mono<Optional<Map<UUID, BigDecimal>>> debtMono = savedRequest.getStatusId().equals(StatusEnum.APPROVED.getId())
+                            ? debtLedgerRepository.findByEmail(savedRequest.getEmail())
+                                    .map(DebtLedger::getDebts)
+                                    .map(debts -> Optional.<Map<UUID, BigDecimal>>of(new HashMap<>(debts)))
+                                    .defaultIfEmpty(Optional.of(new HashMap<>()))
+                            : Mono.just(Optional.empty());
+                    return debtMono.flatMap(debtByUser ->
+                            publisherRepository.publishRequestStatusChange(buildOutgoing(savedRequest, incomingData, debtByUser.orElse(null))));
+                })
                 .then();
     }
+
+    /**
+     * Reentrega de una transición ya aplicada: como en el lote, se confirma sin volver a publicar.
+     * Cualquier otro estado mantiene el error original.
+     */
+    private Mono<RequestDomain> ignoreIfAlreadyApplied(RequestStatusChangeMessage incomingData, InvalidStatusChangeException error) {
+        Optional<Long> target = targetStatus(incomingData);
+        return requestDomainRepository.findById(incomingData.solicitudId())
+                .filter(current -> target.isPresent() && Objects.equals(current.getStatusId(), target.get()))
+                .switchIfEmpty(Mono.error(error))
+                .flatMap(current -> Mono.empty());
+    }
+
+    /**
+     * Versión por lotes de {@link #onStatusChange}: una lectura IN de las solicitudes, un único
+     * compare-and-set para todas las transiciones y una inserción múltiple de los eventos.
+     * Devuelve como aplicadas las solicitudes cuyo mensaje ya puede confirmarse: las que cambiaron
+     * ahora y las que ya estaban en el estado pedido (reentregas). Como inválidas, las que nunca
+     * podrán cambiar: destino distinto de APPROVED/REJECTED, solicitud inexistente o ya resuelta
+     * con otro estado. El resto queda para reintento.
+     */
+    @Override
+    public Mono<StatusChangeOutcome> onStatusChanges(List<RequestStatusChangeMessage> events) {
+        // 1) Una transición por solicitud (la primera del lote) y solo hacia APPROVED/REJECTED
+        Map<UUID, RequestStatusChangeMessage> byRequest = new LinkedHashMap<>();
+        Set<UUID> invalid = new HashSet<>();
+        events.stream()
+                .filter(evt -> evt.solicitudId() != null)
+                .forEach(evt -> {
+                    if (targetStatus(evt).isEmpty()) {
+                        if (!byRequest.containsKey(evt.solicitudId())) {
+                            invalid.add(evt.solicitudId());
+                        }
+                    } else if (!invalid.contains(evt.solicitudId())) {
+                        byRequest.putIfAbsent(evt.solicitudId(), evt);
+                    }
+                });
+        if (byRequest.isEmpty()) {
+            return Mono.just(new StatusChangeOutcome(Set.of(), invalid));
+        }
+
+        return requestDomainRepository.findAllByIds(byRequest.keySet())
+                .collectList()
+                .flatMap(current -> {
+                    Set<UUID> alreadyApplied = new HashSet<>();
+                    List<RequestDomain> pending = new ArrayList<>();
+                    Set<UUID> missing = new HashSet<>(byRequest.keySet());
+                    current.forEach(r -> {
+                        missing.remove(r.getId());
+                        if (Objects.equals(r.getStatusId(), targetStatus(byRequest.get(r.getId())).orElse(null))) {
+                            alreadyApplied.add(r.getId());
+                        } else if (Objects.equals(r.getStatusId(), StatusEnum.PENDING.getId())) {
+                            pending.add(r);
+                        } else {
+                            // Resuelta con otro estado: la transición ya no es posible
+                            invalid.add(r.getId());
+                        }
+                    });
+                    invalid.addAll(missing);
+
+                    return buildTransitions(pending, byRequest)
+                            .flatMap(transitions -> requestDomainRepository.updateStatusesIfPending(transitions).collectList())
+                            .flatMap(updated -> publishAll(updated, byRequest)
+                                    .then(Mono.fromSupplier(() -> {
+                                        Set<UUID> ackable = new HashSet<>(alreadyApplied);
+                                        updated.forEach(r -> ackable.add(r.getId()));
+                                        return new StatusChangeOutcome(ackable, invalid);
+                                    })));
+                });
+    }
+
+    /** Cuota mensual para las aprobaciones; el tipo de préstamo sale del catálogo en memoria. */
+    private Mono<List<StatusTransition>> buildTransitions(List<RequestDomain> pending, Map<UUID, RequestStatusChangeMessage> byRequest) {
+        Set<Long> loanTypeIds = pending.stream()
+                .filter(r -> isApproval(byRequest.get(r.getId())))
+                .map(RequestDomain::getTypeLoanId)
+                .collect(Collectors.toSet());
+
+        return Flux.fromIterable(loanTypeIds)
+                .flatMap(loanTypeRepository::findById)
+                .collectMap(LoanType::getId)
+                .map(loanTypes -> pending.stream()
+                        .map(r -> {
+                            Long target = targetStatus(byRequest.get(r.getId())).orElseThrow();
+                            if (!Objects.equals(target, StatusEnum.APPROVED.getId())) {
+                                return new StatusTransition(r.getId(), target, null);
+                            }
+                            LoanType lt = loanTypes.get(r.getTypeLoanId());
+                            if (lt == null) {
+                                // Sin tipo de préstamo no se puede calcular la cuota: queda para reintento
+                                return null;
+                            }
+                            BigDecimal monthlyDebt = LoanMath.monthlyPayment(r.getAmount(), BigDecimal.valueOf(lt.getInterestRate()), r.getTerm(), true);
+                            return new StatusTransition(r.getId(), target, monthlyDebt);
+                        })
+                        .filter(Objects::nonNull)
+                        .toList());
+    }
+
+    private Mono<Void> publishAll(List<RequestDomain> updated, Map<UUID, RequestStatusChangeMessage> byRequest) {
+        if (updated.isEmpty()) {
+            return Mono.empty();
+        }
+        Set<String> approvedEmails = updated.stream()
+                .filter(r -> r.getStatusId().equals(StatusEnum.APPROVED.getId()))
+                .map(RequestDomain::getEmail)
+                .collect(Collectors.toSet());
+
+        return debtLedgerRepository.findByEmails(approvedEmails)
+                .collectMap(ledger -> ledger.getEmail().toLowerCase(Locale.ROOT), DebtLedger::getDebts)
+                .flatMap(debtsByEmail -> publisherRepository.publishRequestStatusChanges(updated.stream()
+                        .map(saved -> {
+                            Map<UUID, BigDecimal> debtMap = null;
+                            if (saved.getStatusId().equals(StatusEnum.APPROVED.getId())) {
+                                debtMap = new HashMap<>(debtsByEmail.getOrDefault(saved.getEmail().toLowerCase(Locale.ROOT), Map.of()));
+                            }
+                            return buildOutgoing(saved, byRequest.get(saved.getId()), debtMap);
+                        })
+                        .toList()));
+    }
+
+    private static RequestStatusChangeMessage buildOutgoing(RequestDomain saved, RequestStatusChangeMessage incomingData,
+                                                            Map<UUID, BigDecimal> debtMap) {
+        return new RequestStatusChangeMessage(
+                saved.getId(),
+                StatusEnum.fromId(Long.valueOf(incomingData.estadoAnterior())).getDescription(),
+                StatusEnum.fromId(saved.getStatusId()).getDescription(),
+                saved.getEmail(),
+                new Date(),
+                debtMap,
+                incomingData.reason());
+    }
+
+    private static boolean isApproval(RequestStatusChangeMessage evt) {
+        return targetStatus(evt).filter(StatusEnum.APPROVED.getId()::equals).isPresent();
+    }
+
+    private static Optional<Long> targetStatus(RequestStatusChangeMessage evt) {
+        try {
+            Long status = Long.valueOf(evt.estadoNuevo());
+            return Objects.equals(status, StatusEnum.APPROVED.getId()) || Objects.equals(status, StatusEnum.REJECTED.getId())
+                    ? Optional.of(status)
+                    : Optional.empty();
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
 }
@@ -6,10 +6,12 @@ import co.com.pedrorido.model.external.User;
 import co.com.pedrorido.model.external.gateways.MessagePublisherRepository;
 import co.com.pedrorido.model.external.gateways.UserRepository;
 import co.com.pedrorido.model.loantype.gateways.LoanTypeRepository;
+import co.com.pedrorido.model.requestdomain.InvalidStatusChangeException;
 import co.com.pedrorido.model.requestdomain.RequestBasicAdminInfo;
 import co.com.pedrorido.model.requestdomain.RequestDomain;
 import co.com.pedrorido.model.requestdomain.gateways.RequestDomainRepository;
 import co.com.pedrorido.model.utils.CreateRequestDomainDTO;
+import co.com.pedrorido.model.utils.CursorPageResult;
 import co.com.pedrorido.model.utils.PageResult;
 import co.com.pedrorido.model.utils.StatusEnum;
 import co.com.pedrorido.usecase.apis.IRequestApi;
@@ -18,7 +20,10 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -84,11 +89,10 @@ public class RequestUseCase implements IRequestApi {
     @Override
     public Mono<RequestDomain> updateStatusRequest(UUID requestId, Long statusId, boolean callEvent) {
         return validateTargetStatus(statusId)
-                .then(requestDomainRepository.findById(requestId)
-                        .switchIfEmpty(Mono.error(new IllegalStateException("request not found"))))
-                .flatMap(current -> ensurePendingTransition(current)
-                        .then(applyStatusChange(current, statusId)))
-                .flatMap(updated -> persistWithSideEffects(updated, callEvent));
+                .then(resolveMonthlyDebt(requestId, statusId))
+                .flatMap(monthlyDebt -> requestDomainRepository.updateStatusIfPending(requestId, statusId, monthlyDebt.orElse(null))
+                        .switchIfEmpty(Mono.defer(() -> lostTransition(requestId))))
+                .flatMap(updated -> publishIfRequested(updated, callEvent));
     }
 
     // ----------------- helpers -----------------
@@ -97,55 +101,57 @@ public class RequestUseCase implements IRequestApi {
     private Mono<Void> validateTargetStatus(Long statusId) {
         boolean valid = Objects.equals(statusId, StatusEnum.APPROVED.getId())
                 || Objects.equals(statusId, StatusEnum.REJECTED.getId()) || Objects.equals(statusId, StatusEnum.REJECTED.getId());
-        return valid ? Mono.empty() : Mono.error(new IllegalStateException("invalid status"));
+        return valid ? Mono.empty() : Mono.error(new InvalidStatusChangeException("invalid status"));
     }
 
     /** Garantiza que el cambio solo ocurra desde PENDING */
     private Mono<Void> ensurePendingTransition(RequestDomain current) {
         if (!Objects.equals(current.getStatusId(), StatusEnum.PENDING.getId())) {
-            return Mono.error(new IllegalStateException("invalid status change"));
+            return Mono.error(new InvalidStatusChangeException("invalid status change"));
         }
         return Mono.empty();
     }
 
-    /** Aplica el cambio de estado en memoria; para APPROVED deja listo el cálculo de monthlyDebt. */
-    private Mono<RequestDomain> applyStatusChange(RequestDomain current, Long newStatusId) {
-        current.setStatusId(newStatusId);
-
-        if (Objects.equals(newStatusId, StatusEnum.APPROVED.getId())) {
-            // calcular monthlyDebt antes de guardar
-            return loanTypeRepository.findById(current.getTypeLoanId())
-                    .switchIfEmpty(Mono.error(new IllegalStateException("loan type not found")))
-                    .map(lt -> {
-                        BigDecimal monthly = LoanMath.monthlyPayment(
+    /**
+     * Para APPROVED calcula la cuota mensual a partir de la solicitud y su tipo de préstamo;
+     * REJECTED no necesita leer la solicitud y va directo al compare-and-set.
+     */
+    private Mono<Optional<BigDecimal>> resolveMonthlyDebt(UUID requestId, Long newStatusId) {
+        if (!Objects.equals(newStatusId, StatusEnum.APPROVED.getId())) {
+            return Mono.just(Optional.empty());
+        }
+        return requestDomainRepository.findById(requestId)
+                .switchIfEmpty(Mono.error(new InvalidStatusChangeException("request not found")))
+                .flatMap(current -> ensurePendingTransition(current)
+                        .then(loanTypeRepository.findById(current.getTypeLoanId()))
+                        .switchIfEmpty(Mono.error(new IllegalStateException("loan type not found")))
+                        .map(lt -> Optional.of(LoanMath.monthlyPayment(
                                 current.getAmount(),
                                 BigDecimal.valueOf(lt.getInterestRate()),
                                 current.getTerm(),
                                 true
-                        );
-                        current.setMonthlyDebt(monthly);
-                        return current;
-                    });
-        }
-        return Mono.just(current);
+                        ))));
+    }
+
+    /** El compare-and-set no actualizó nada: la solicitud no existe u otra transición ganó la carrera. */
+    private Mono<RequestDomain> lostTransition(UUID requestId) {
+        return requestDomainRepository.findById(requestId)
+                .switchIfEmpty(Mono.error(new InvalidStatusChangeException("request not found")))
+                .flatMap(current -> Mono.error(new InvalidStatusChangeException("invalid status change")));
     }
 
     /**
-     * Persiste y ejecuta efectos colaterales:
-     * - APPROVED: solo guardar (mantiene tu comportamiento original).
-     * - REJECTED: guardar y publicar evento si callEvent = true.
+     * Ejecuta efectos colaterales de la transición ya persistida:
+     * publica el evento de cambio de estado si callEvent = true.
      */
-    private Mono<RequestDomain> persistWithSideEffects(RequestDomain toSave, boolean callEvent) {
-        return requestDomainRepository.saveRequestDomain(toSave)
-                .flatMap(saved -> {
-                    if (!callEvent) {
-                        return Mono.just(saved);
-                    }
+    private Mono<RequestDomain> publishIfRequested(RequestDomain saved, boolean callEvent) {
+        if (!callEvent) {
+            return Mono.just(saved);
+        }
 
-                    RequestStatusChangeMessage evt = buildStatusChangeEvent(saved);
-                    return publisherRepository.publishRequestStatusChange(evt)
-                            .thenReturn(saved);
-                });
+        RequestStatusChangeMessage evt = buildStatusChangeEvent(saved);
+        return publisherRepository.publishRequestStatusChange(evt)
+                .thenReturn(saved);
     }
 
     /** Construye el mensaje de evento con los campos requeridos (debtByUser y extra nulos como en tu código). */
@@ -169,53 +175,86 @@ public class RequestUseCase implements IRequestApi {
     }
 
     @Override
-    public Mono<PageResult<RequestBasicAdminInfo>> getListByStatus(Set<Long> statusEnumSet, int page, int size) {
-        return requestDomainRepository.findPage(statusEnumSet, page, size)
-                .flatMap(pageResult -> {
-                    // 1) Extrae la lista paginada
-                    List<RequestBasicAdminInfo> content = pageResult.content();
-
-                    // 2) Emails únicos (preserva orden de aparición)
-                    LinkedHashSet<String> uniqueEmails = content.stream()
-                            .map(RequestBasicAdminInfo::getEmail)
-                            .filter(Objects::nonNull)
-                            .collect(Collectors.toCollection(LinkedHashSet::new));
-
-                    // 3) Trae los usuarios una sola vez por email (en paralelo), ignora fallos puntuales
-                    Mono<Map<String, User>> usersByEmailMono = Flux.fromIterable(uniqueEmails)
-                            .flatMap(email ->
-                                            userRepository.getUserByEmail(email)
-                                                    .map(user -> Map.entry(email, user))
-                                                    .onErrorResume(e -> Mono.empty()),
-                                    8 // concurrency sugerida
-                            )
-                            .collectMap(Map.Entry::getKey, Map.Entry::getValue);
-
-                    // 4) Rellena nameUser en todos los items y retorna el mismo pageResult con content enriquecido
-                    return usersByEmailMono.map(usersByEmail -> {
-                        content.forEach(req -> {
-                            User u = usersByEmail.get(req.getEmail());
-                            if (u != null) {
-                                String fullName = Stream.of(u.getName(), u.getSurname())
-                                        .filter(Objects::nonNull)
-                                        .collect(Collectors.joining(" "));
-                                req.setClientName(fullName);
-                                req.setBaseSalary(u.getBaseSalary());
-                                if (req.getMonthlyDebt() == null) {
-                                    req.setMonthlyDebt(StatusEnum.APPROVED.getId().equals(req.getStatusId()) ?
-                                            LoanMath.monthlyPayment(req.getAmount(), BigDecimal.valueOf(req.getInterestRate()), req.getTerm(), true) : null);
-                                }
-                            }
-                        });
-
-                        return new PageResult<>(
-                                content,
+    public Mono<PageResult<RequestBasicAdminInfo>> getListByStatus(Set<Long> statusEnumSet, int page, int size, boolean includeTotal,
+                                                                   Duration enrichmentDeadline) {
+        return requestDomainRepository.findPage(statusEnumSet, page, size, includeTotal)
+                .flatMap(pageResult -> enrichWithUsers(pageResult.content(), enrichmentDeadline)
+                        .map(partial -> new PageResult<>(
+                                pageResult.content(),
                                 pageResult.page(),
                                 pageResult.size(),
                                 pageResult.totalElements(),
-                                pageResult.totalPages()
-                        );
-                    });
-                });
+                                pageResult.totalPages(),
+                                pageResult.totalAccuracy(),
+                                partial
+                        )));
+    }
+
+    @Override
+    public Mono<CursorPageResult<RequestBasicAdminInfo>> getListByStatusAfter(Set<Long> statusEnumSet, String cursor, int size,
+                                                                              Duration enrichmentDeadline) {
+        return requestDomainRepository.findPageAfter(statusEnumSet, cursor, size)
+                .flatMap(pageResult -> enrichWithUsers(pageResult.content(), enrichmentDeadline)
+                        .map(partial -> new CursorPageResult<>(
+                                pageResult.content(),
+                                pageResult.size(),
+                                pageResult.nextCursor(),
+                                pageResult.hasNext(),
+                                partial
+                        )));
+    }
+
+    /**
+     * Completa clientName, baseSalary y monthlyDebt de cada fila con los datos del usuario.
+     * Con {@code deadline} (nulo = sin plazo) se usa lo que haya llegado al vencer: las filas
+     * cuyo usuario no alcanzó a llegar quedan con {@code userPending} y el resultado es
+     * {@code true} (enriquecimiento parcial). Un error de la consulta se trata igual que el
+     * vencimiento del plazo: se conservan los usuarios recibidos antes del error.
+     */
+    private Mono<Boolean> enrichWithUsers(List<RequestBasicAdminInfo> content, Duration deadline) {
+        // 1) Emails únicos (preserva orden de aparición)
+        LinkedHashSet<String> uniqueEmails = content.stream()
+                .map(RequestBasicAdminInfo::getEmail)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        // 2) Una sola consulta masiva por página; los usuarios se acumulan a medida que llegan
+        //    para no perderlos si luego vence el plazo o la consulta falla
+        AtomicBoolean incomplete = new AtomicBoolean();
+        Map<String, User> usersByEmail = new ConcurrentHashMap<>();
+        Flux<User> users = uniqueEmails.isEmpty() ? Flux.empty() : userRepository.getUsersByEmails(uniqueEmails);
+        if (deadline != null && !uniqueEmails.isEmpty()) {
+            users = users.takeUntilOther(Mono.delay(deadline).doOnNext(tick -> incomplete.set(true)));
+        }
+        Mono<Void> collected = users
+                .filter(user -> user.getEmail() != null)
+                .doOnNext(user -> usersByEmail.put(user.getEmail().toLowerCase(Locale.ROOT), user))
+                .onErrorResume(e -> {
+                    incomplete.set(true);
+                    return Mono.empty();
+                })
+                .then();
+
+        // 3) Rellena nameUser en todos los items y retorna el mismo content enriquecido
+        return collected.then(Mono.fromSupplier(() -> {
+            content.forEach(req -> {
+                User u = req.getEmail() != null ? usersByEmail.get(req.getEmail().toLowerCase(Locale.ROOT)) : null;
+                if (u == null && req.getEmail() != null && incomplete.get()) {
+                    req.setUserPending(true);
+                }
+                if (u != null) {
+                    String fullName = Stream.of(u.getName(), u.getSurname())
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.joining(" "));
+                    req.setClientName(fullName);
+                    req.setBaseSalary(u.getBaseSalary());
+                    if (req.getMonthlyDebt() == null) {
+                        req.setMonthlyDebt(StatusEnum.APPROVED.getId().equals(req.getStatusId()) ?
+                                LoanMath.monthlyPayment(req.getAmount(), BigDecimal.valueOf(req.getInterestRate()), req.getTerm(), true) : null);
+                    }
+                }
+            });
+            return incomplete.get();
+        }));
     }
 }
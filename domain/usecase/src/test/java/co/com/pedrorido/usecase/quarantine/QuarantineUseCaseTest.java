@@ -0,0 +1,107 @@
+package co.com.pedrorido.usecase.quarantine;
+
+import co.com.pedrorido.model.quarantine.QuarantinedMessage;
+import co.com.pedrorido.model.quarantine.gateways.MessageReplayRepository;
+import co.com.pedrorido.model.quarantine.gateways.QuarantineRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class QuarantineUseCaseTest {
+    private static final UUID ID = UUID.fromString("5b0c3c8e-7d0e-4b51-9d7f-4a0a6a9f2e10");
+
+    private QuarantineRepository quarantineRepository;
+    private MessageReplayRepository messageReplayRepository;
+    private QuarantineUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        quarantineRepository = mock(QuarantineRepository.class);
+        messageReplayRepository = mock(MessageReplayRepository.class);
+        useCase = new QuarantineUseCase(quarantineRepository, messageReplayRepository);
+    }
+
+    @Test
+    @DisplayName("Cuarentena: asigna id y fecha antes de guardar.")
+    void quarantine_assignsIdAndTimestamp() {
+        when(quarantineRepository.save(any())).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+
+        StepVerifier.create(useCase.quarantine(QuarantinedMessage.builder().messageId("m-1").body("{").build()))
+                .assertNext(saved -> {
+                    assertNotNull(saved.getId());
+                    assertNotNull(saved.getQuarantinedAt());
+                    assertEquals("m-1", saved.getMessageId());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Replay: reenvía el cuerpo original a su cola.")
+    void replay_sendsOriginalBody() {
+        when(quarantineRepository.findById(ID)).thenReturn(Mono.just(stored()));
+        when(quarantineRepository.markReplayed(ID)).thenReturn(Mono.just(true));
+        when(messageReplayRepository.replay("queue-url", "{\"a\":1}")).thenReturn(Mono.empty());
+
+        StepVerifier.create(useCase.replay(ID))
+                .assertNext(replayed -> assertNotNull(replayed.getReplayedAt()))
+                .verifyComplete();
+
+        InOrder order = inOrder(messageReplayRepository, quarantineRepository);
+        order.verify(messageReplayRepository).replay("queue-url", "{\"a\":1}");
+        order.verify(quarantineRepository).markReplayed(ID);
+    }
+
+    @Test
+    @DisplayName("Replay: si SQS rechaza el envío el mensaje no queda marcado.")
+    void replay_sendFails_doesNotMark() {
+        when(quarantineRepository.findById(ID)).thenReturn(Mono.just(stored()));
+        when(messageReplayRepository.replay("queue-url", "{\"a\":1}")).thenReturn(Mono.error(new RuntimeException("sqs down")));
+
+        StepVerifier.create(useCase.replay(ID))
+                .expectErrorMessage("sqs down")
+                .verify();
+
+        verify(quarantineRepository, never()).markReplayed(any());
+    }
+
+    @Test
+    @DisplayName("Replay: un mensaje ya reenviado da conflicto y no se envía otra vez.")
+    void replay_alreadyReplayed_conflict() {
+        when(quarantineRepository.findById(ID)).thenReturn(Mono.just(stored().toBuilder().replayedAt(Instant.now()).build()));
+
+        StepVerifier.create(useCase.replay(ID))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        verifyNoInteractions(messageReplayRepository);
+    }
+
+    @Test
+    @DisplayName("Replay: id inexistente es un error de argumento.")
+    void replay_unknownId() {
+        when(quarantineRepository.findById(ID)).thenReturn(Mono.empty());
+
+        StepVerifier.create(useCase.replay(ID))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    private static QuarantinedMessage stored() {
+        return QuarantinedMessage.builder()
+                .id(ID)
+                .messageId("m-1")
+                .queueUrl("queue-url")
+                .body("{\"a\":1}")
+                .receiveCount(1)
+                .build();
+    }
+}
@@ -0,0 +1,293 @@
+package co.com.pedrorido.usecase.request;
+
+import co.com.pedrorido.model.debtledger.DebtLedger;
+import co.com.pedrorido.model.debtledger.gateways.DebtLedgerRepository;
+import co.com.pedrorido.model.external.RequestStatusChangeMessage;
+import co.com.pedrorido.model.external.gateways.MessagePublisherRepository;
+import co.com.pedrorido.model.loantype.LoanType;
+import co.com.pedrorido.model.loantype.gateways.LoanTypeRepository;
+import co.com.pedrorido.model.processedmessage.gateways.ProcessedMessageRepository;
+import co.com.pedrorido.model.requestdomain.InvalidStatusChangeException;
+import co.com.pedrorido.model.requestdomain.RequestDomain;
+import co.com.pedrorido.model.requestdomain.StatusChangeOutcome;
+import co.com.pedrorido.model.requestdomain.StatusTransition;
+import co.com.pedrorido.model.requestdomain.gateways.RequestDomainRepository;
+import co.com.pedrorido.model.utils.StatusEnum;
+import co.com.pedrorido.usecase.apis.IRequestApi;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RequestEventsUseCaseTest {
+    private static final UUID REQUEST_ID = UUID.fromString("d6761e0b-8a7a-4eff-90b0-60c1accf38c3");
+    private static final UUID OTHER_ID = UUID.fromString("0f6b2a4e-3f1d-4d8c-9a57-2c1f0e9b7a11");
+
+    private DebtLedgerRepository debtLedgerRepository;
+    private MessagePublisherRepository publisherRepository;
+    private IRequestApi requestApi;
+    private ProcessedMessageRepository processedMessageRepository;
+    private RequestDomainRepository requestDomainRepository;
+    private LoanTypeRepository loanTypeRepository;
+    private RequestEventsUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        debtLedgerRepository = mock(DebtLedgerRepository.class);
+        publisherRepository = mock(MessagePublisherRepository.class);
+        requestApi = mock(IRequestApi.class);
+        processedMessageRepository = mock(ProcessedMessageRepository.class);
+        requestDomainRepository = mock(RequestDomainRepository.class);
+        loanTypeRepository = mock(LoanTypeRepository.class);
+        useCase = new RequestEventsUseCase(debtLedgerRepository, publisherRepository, requestApi, processedMessageRepository,
+                requestDomainRepository, loanTypeRepository);
+        when(publisherRepository.publishRequestStatusChange(any())).thenReturn(Mono.empty());
+        when(publisherRepository.publishRequestStatusChanges(anyList())).thenReturn(Mono.empty());
+        when(loanTypeRepository.findById(1L)).thenReturn(Mono.just(LoanType.builder().id(1L).interestRate(0.02).build()));
+    }
+
+    @Test
+    @DisplayName("APPROVED: el debtMap sale de la fila del libro de deuda del cliente.")
+    void approved_buildsDebtMapFromLedger() {
+        when(requestApi.updateStatusRequest(REQUEST_ID, StatusEnum.APPROVED.getId(), false))
+                .thenReturn(Mono.just(saved(StatusEnum.APPROVED.getId())));
+        when(debtLedgerRepository.findByEmail("a@x.com")).thenReturn(Mono.just(DebtLedger.builder()
+                .email("a@x.com")
+                .totalMonthlyDebt(new BigDecimal("300.00"))
+                .approvedCount(2)
+                .debts(Map.of(REQUEST_ID, new BigDecimal("100.00"), OTHER_ID, new BigDecimal("200.00")))
+                .build()));
+
+        StepVerifier.create(useCase.onStatusChange(incoming(StatusEnum.APPROVED.getId())))
+                .verifyComplete();
+
+        ArgumentCaptor<RequestStatusChangeMessage> captor = ArgumentCaptor.forClass(RequestStatusChangeMessage.class);
+        verify(publisherRepository).publishRequestStatusChange(captor.capture());
+        assertEquals(Map.of(REQUEST_ID, new BigDecimal("100.00"), OTHER_ID, new BigDecimal("200.00")), captor.getValue().debtMap());
+        assertEquals(StatusEnum.APPROVED.getDescription(), captor.getValue().estadoNuevo());
+    }
+
+    @Test
+    @DisplayName("REJECTED: no consulta el libro y publica sin debtMap.")
+    void rejected_doesNotReadLedger() {
+        when(requestApi.updateStatusRequest(REQUEST_ID, StatusEnum.REJECTED.getId(), false))
+                .thenReturn(Mono.just(saved(StatusEnum.REJECTED.getId())));
+
+        StepVerifier.create(useCase.onStatusChange(incoming(StatusEnum.REJECTED.getId())))
+                .verifyComplete();
+
+        ArgumentCaptor<RequestStatusChangeMessage> captor = ArgumentCaptor.forClass(RequestStatusChangeMessage.class);
+        verify(publisherRepository).publishRequestStatusChange(captor.capture());
+        assertNull(captor.getValue().debtMap());
+        verifyNoInteractions(debtLedgerRepository);
+    }
+
+    @Test
+    @DisplayName("Reentrega ya aplicada: la solicitud ya está en el estado pedido, se confirma sin publicar.")
+    void alreadyApplied_completesWithoutPublishing() {
+        when(requestApi.updateStatusRequest(REQUEST_ID, StatusEnum.APPROVED.getId(), false))
+                .thenReturn(Mono.error(new InvalidStatusChangeException("invalid status change")));
+        when(requestDomainRepository.findById(REQUEST_ID)).thenReturn(Mono.just(saved(StatusEnum.APPROVED.getId())));
+
+        StepVerifier.create(useCase.onStatusChange(incoming(StatusEnum.APPROVED.getId())))
+                .verifyComplete();
+
+        verifyNoInteractions(publisherRepository, debtLedgerRepository);
+    }
+
+    @Test
+    @DisplayName("Resuelta con otro estado: el error de transición inválida se mantiene.")
+    void resolvedWithOtherStatus_keepsTheError() {
+        when(requestApi.updateStatusRequest(REQUEST_ID, StatusEnum.APPROVED.getId(), false))
+                .thenReturn(Mono.error(new InvalidStatusChangeException("invalid status change")));
+        when(requestDomainRepository.findById(REQUEST_ID)).thenReturn(Mono.just(saved(StatusEnum.REJECTED.getId())));
+
+        StepVerifier.create(useCase.onStatusChange(incoming(StatusEnum.APPROVED.getId())))
+                .expectError(InvalidStatusChangeException.class)
+                .verify();
+
+        verifyNoInteractions(publisherRepository);
+    }
+
+    @Test
+    @DisplayName("Duplicado: se reconoce sin llamar al caso de uso de solicitudes.")
+    void duplicate_skipsProcessing() {
+        when(processedMessageRepository.claim("msg-1", REQUEST_ID + ":" + StatusEnum.APPROVED.getId()))
+                .thenReturn(Mono.just(false));
+
+        StepVerifier.create(useCase.onStatusChangeOnce("msg-1", incoming(StatusEnum.APPROVED.getId())))
+                .expectNext(false)
+                .verifyComplete();
+
+        verifyNoInteractions(requestApi, publisherRepository);
+    }
+
+    @Test
+    @DisplayName("Primera entrega: registra el mensaje y procesa el cambio.")
+    void firstDelivery_processes() {
+        when(processedMessageRepository.claim(eq("msg-1"), anyString())).thenReturn(Mono.just(true));
+        when(requestApi.updateStatusRequest(REQUEST_ID, StatusEnum.REJECTED.getId(), false))
+                .thenReturn(Mono.just(saved(StatusEnum.REJECTED.getId())));
+
+        StepVerifier.create(useCase.onStatusChangeOnce("msg-1", incoming(StatusEnum.REJECTED.getId())))
+                .expectNext(true)
+                .verifyComplete();
+
+        verify(publisherRepository).publishRequestStatusChange(any());
+    }
+
+    @Test
+    @DisplayName("Lote: una lectura, un update y una publicación; confirma los aplicados y los ya aplicados.")
+    void batch_appliesPendingAndAcksAlreadyApplied() {
+        when(requestDomainRepository.findAllByIds(anyCollection())).thenReturn(Flux.just(
+                saved(REQUEST_ID, StatusEnum.PENDING.getId()),
+                saved(OTHER_ID, StatusEnum.REJECTED.getId())));
+        when(requestDomainRepository.updateStatusesIfPending(anyList())).thenAnswer(inv -> Flux.fromIterable(
+                inv.<List<StatusTransition>>getArgument(0)).map(t -> saved(t.requestId(), t.statusId())));
+        when(debtLedgerRepository.findByEmails(anyCollection())).thenReturn(Flux.just(DebtLedger.builder()
+                .email("A@x.com")
+                .debts(Map.of(REQUEST_ID, new BigDecimal("100.00")))
+                .build()));
+
+        StepVerifier.create(useCase.onStatusChanges(List.of(
+                        incoming(REQUEST_ID, StatusEnum.APPROVED.getId()),
+                        incoming(OTHER_ID, StatusEnum.REJECTED.getId()))))
+                .expectNext(new StatusChangeOutcome(Set.of(REQUEST_ID, OTHER_ID), Set.of()))
+                .verifyComplete();
+
+        ArgumentCaptor<List<StatusTransition>> transitions = ArgumentCaptor.forClass(List.class);
+        verify(requestDomainRepository).updateStatusesIfPending(transitions.capture());
+        assertEquals(1, transitions.getValue().size());
+        assertNotNull(transitions.getValue().get(0).monthlyDebt());
+
+        ArgumentCaptor<List<RequestStatusChangeMessage>> published = ArgumentCaptor.forClass(List.class);
+        verify(publisherRepository).publishRequestStatusChanges(published.capture());
+        assertEquals(1, published.getValue().size());
+        assertEquals(Map.of(REQUEST_ID, new BigDecimal("100.00")), published.getValue().get(0).debtMap());
+    }
+
+    @Test
+    @DisplayName("Lote: un destino inválido no se aplica y se reporta como inválido.")
+    void batch_reportsInvalidTargets() {
+        StepVerifier.create(useCase.onStatusChanges(List.of(incoming(REQUEST_ID, StatusEnum.PENDING.getId()))))
+                .expectNext(new StatusChangeOutcome(Set.of(), Set.of(REQUEST_ID)))
+                .verifyComplete();
+
+        verifyNoInteractions(requestDomainRepository, publisherRepository);
+    }
+
+    @Test
+    @DisplayName("Lote: una solicitud inexistente o resuelta con otro estado se reporta como inválida.")
+    void batch_reportsMissingAndAlreadyResolvedRequests() {
+        UUID missingId = UUID.fromString("5b1c9a0e-7d2f-4e3a-8c61-9f0a2b3c4d5e");
+        when(requestDomainRepository.findAllByIds(anyCollection())).thenReturn(Flux.just(
+                saved(OTHER_ID, StatusEnum.REJECTED.getId())));
+        when(requestDomainRepository.updateStatusesIfPending(anyList())).thenReturn(Flux.empty());
+
+        StepVerifier.create(useCase.onStatusChanges(List.of(
+                        incoming(missingId, StatusEnum.APPROVED.getId()),
+                        incoming(OTHER_ID, StatusEnum.APPROVED.getId()))))
+                .expectNext(new StatusChangeOutcome(Set.of(), Set.of(missingId, OTHER_ID)))
+                .verifyComplete();
+
+        verifyNoInteractions(publisherRepository);
+    }
+
+    /**
+     * Comparación de costo por mensaje frente a por lote, contada en viajes al repositorio
+     * (cada llamada a un gateway es al menos un round trip a la base).
+     */
+    @Test
+    @DisplayName("Round trips: N mensajes uno a uno cuestan O(N); el mismo lote cuesta una cantidad fija.")
+    void batch_roundTripsAreConstant() {
+        int size = 50;
+        AtomicInteger roundTrips = new AtomicInteger();
+        List<UUID> ids = IntStream.range(0, size).mapToObj(i -> UUID.randomUUID()).toList();
+
+        when(processedMessageRepository.claim(anyString(), anyString()))
+                .thenAnswer(inv -> Mono.fromSupplier(() -> roundTrips.incrementAndGet() > 0));
+        when(requestApi.updateStatusRequest(any(), anyLong(), eq(false))).thenAnswer(inv -> Mono.fromSupplier(() -> {
+            // findById + UPDATE condicional del caso de uso de solicitudes
+            roundTrips.addAndGet(2);
+            return saved(inv.getArgument(0), inv.getArgument(1));
+        }));
+        when(debtLedgerRepository.findByEmail(anyString())).thenAnswer(inv -> Mono.fromSupplier(() -> {
+            roundTrips.incrementAndGet();
+            return DebtLedger.builder().email("a@x.com").debts(Map.of()).build();
+        }));
+        when(publisherRepository.publishRequestStatusChange(any())).thenAnswer(inv -> Mono.fromRunnable(roundTrips::incrementAndGet));
+
+        Flux.fromIterable(ids)
+                .concatMap(id -> useCase.onStatusChangeOnce(id.toString(), incoming(id, StatusEnum.APPROVED.getId())))
+                .blockLast();
+        int perMessage = roundTrips.getAndSet(0);
+
+        when(requestDomainRepository.findAllByIds(anyCollection())).thenAnswer(inv -> Flux.defer(() -> {
+            roundTrips.incrementAndGet();
+            return Flux.fromIterable(ids).map(id -> saved(id, StatusEnum.PENDING.getId()));
+        }));
+        when(requestDomainRepository.updateStatusesIfPending(anyList())).thenAnswer(inv -> Flux.defer(() -> {
+            roundTrips.incrementAndGet();
+            return Flux.fromIterable(inv.<List<StatusTransition>>getArgument(0)).map(t -> saved(t.requestId(), t.statusId()));
+        }));
+        when(debtLedgerRepository.findByEmails(anyCollection())).thenAnswer(inv -> Flux.defer(() -> {
+            roundTrips.incrementAndGet();
+            return Flux.<DebtLedger>empty();
+        }));
+        when(publisherRepository.publishRequestStatusChanges(anyList())).thenAnswer(inv -> Mono.fromRunnable(roundTrips::incrementAndGet));
+
+        List<RequestStatusChangeMessage> batch = new ArrayList<>();
+        ids.forEach(id -> batch.add(incoming(id, StatusEnum.APPROVED.getId())));
+        StepVerifier.create(useCase.onStatusChanges(batch))
+                .assertNext(outcome -> assertEquals(size, outcome.applied().size()))
+                .verifyComplete();
+        int perBatch = roundTrips.get();
+
+        assertEquals(5 * size, perMessage);
+        assertEquals(4, perBatch);
+    }
+
+    private static RequestStatusChangeMessage incoming(Long newStatus) {
+        return incoming(REQUEST_ID, newStatus);
+    }
+
+    private static RequestStatusChangeMessage incoming(UUID requestId, Long newStatus) {
+        return new RequestStatusChangeMessage(requestId, StatusEnum.PENDING.getId().toString(), newStatus.toString(),
+                "a@x.com", null, null, "auto");
+    }
+
+    private static RequestDomain saved(Long statusId) {
+        return saved(REQUEST_ID, statusId);
+    }
+
+    private static RequestDomain saved(UUID requestId, Long statusId) {
+        return RequestDomain.builder()
+                .id(requestId)
+                .email("a@x.com")
+                .statusId(statusId)
+                .amount(new BigDecimal("5000"))
+                .term(12)
+                .typeLoanId(1L)
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package co.com.pedrorido.usecase.request;
+
+import co.com.pedrorido.model.external.gateways.MessagePublisherRepository;
+import co.com.pedrorido.model.external.gateways.UserRepository;
+import co.com.pedrorido.model.loantype.LoanType;
+import co.com.pedrorido.model.loantype.gateways.LoanTypeRepository;
+import co.com.pedrorido.model.requestdomain.RequestDomain;
+import co.com.pedrorido.model.requestdomain.gateways.RequestDomainRepository;
+import co.com.pedrorido.model.utils.StatusEnum;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Transiciones que compiten por la misma solicitud vistas desde el caso de uso: el repositorio
+ * simula el UPDATE ... WHERE id_estado = PENDING y una carrera perdida debe llegar como conflicto.
+ * La atomicidad real del compare-and-set se prueba contra Postgres en RequestRepositoryAdapterTest.
+ */
+class RequestUseCaseConcurrencyTest {
+    private static final UUID REQUEST_ID = UUID.fromString("d6761e0b-8a7a-4eff-90b0-60c1accf38c3");
+
+    private AtomicReference<RequestDomain> row;
+    private RequestDomainRepository requestDomainRepository;
+    private RequestUseCase requestUseCase;
+
+    @BeforeEach
+    void setUp() {
+        row = new AtomicReference<>(RequestDomain.builder()
+                .id(REQUEST_ID)
+                .amount(new BigDecimal("10000"))
+                .term(12)
+                .email("a@x.com")
+                .statusId(StatusEnum.PENDING.getId())
+                .typeLoanId(1L)
+                .build());
+
+        requestDomainRepository = mock(RequestDomainRepository.class);
+        when(requestDomainRepository.findById(REQUEST_ID)).thenAnswer(inv -> Mono.fromSupplier(row::get));
+        when(requestDomainRepository.updateStatusIfPending(eq(REQUEST_ID), anyLong(), any())).thenAnswer(inv -> Mono.fromCallable(() -> {
+            RequestDomain current = row.get();
+            if (!StatusEnum.PENDING.getId().equals(current.getStatusId())) {
+                return null;
+            }
+            RequestDomain next = current.toBuilder()
+                    .statusId(inv.getArgument(1))
+                    .monthlyDebt(inv.getArgument(2))
+                    .build();
+            return row.compareAndSet(current, next) ? next : null;
+        }));
+
+        LoanTypeRepository loanTypeRepository = mock(LoanTypeRepository.class);
+        when(loanTypeRepository.findById(1L)).thenReturn(Mono.just(LoanType.builder().id(1L).interestRate(0.02).build()));
+
+        requestUseCase = new RequestUseCase(loanTypeRepository, requestDomainRepository,
+                mock(UserRepository.class), mock(MessagePublisherRepository.class));
+    }
+
+    @Test
+    @DisplayName("Carrera perdida: si otra transición ganó primero, el compare-and-set vacío se traduce en conflicto.")
+    void lostRace_mapsToConflict() {
+        // Otra instancia cambió la fila entre la lectura y el UPDATE condicional
+        when(requestDomainRepository.updateStatusIfPending(eq(REQUEST_ID), anyLong(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(requestUseCase.updateStatusRequest(REQUEST_ID, StatusEnum.APPROVED.getId(), false))
+                .expectErrorSatisfies(e -> {
+                    assertInstanceOf(IllegalStateException.class, e);
+                    assertEquals("invalid status change", e.getMessage());
+                })
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Carrera perdida antes de leer: una solicitud ya resuelta no llega al compare-and-set.")
+    void alreadyResolved_mapsToConflictWithoutUpdate() {
+        row.set(row.get().toBuilder().statusId(StatusEnum.REJECTED.getId()).build());
+
+        StepVerifier.create(requestUseCase.updateStatusRequest(REQUEST_ID, StatusEnum.APPROVED.getId(), false))
+                .expectErrorMatches(e -> e instanceof IllegalStateException && "invalid status change".equals(e.getMessage()))
+                .verify();
+
+        verify(requestDomainRepository, never()).updateStatusIfPending(any(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("REJECTED va directo al compare-and-set sin leer la solicitud.")
+    void rejection_isSingleRoundTrip() {
+        StepVerifier.create(requestUseCase.updateStatusRequest(REQUEST_ID, StatusEnum.REJECTED.getId(), false))
+                .assertNext(updated -> assertEquals(StatusEnum.REJECTED.getId(), updated.getStatusId()))
+                .verifyComplete();
+
+        verify(requestDomainRepository, never()).findById(any());
+        verify(requestDomainRepository, times(1)).updateStatusIfPending(REQUEST_ID, StatusEnum.REJECTED.getId(), null);
+    }
+
+    @Test
+    @DisplayName("APPROVED persiste la cuota calculada junto con el cambio de estado.")
+    void approval_persistsMonthlyDebt() {
+        StepVerifier.create(requestUseCase.updateStatusRequest(REQUEST_ID, StatusEnum.APPROVED.getId(), false))
+                .assertNext(updated -> {
+                    assertEquals(StatusEnum.APPROVED.getId(), updated.getStatusId());
+                    assertNotNull(updated.getMonthlyDebt());
+                })
+                .verifyComplete();
+    }
+}
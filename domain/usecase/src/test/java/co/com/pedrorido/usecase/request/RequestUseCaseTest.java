@@ -8,16 +8,20 @@ import co.com.pedrorido.model.requestdomain.RequestBasicAdminInfo;
 import co.com.pedrorido.model.requestdomain.RequestDomain;
 import co.com.pedrorido.model.requestdomain.gateways.RequestDomainRepository;
 import co.com.pedrorido.model.utils.CreateRequestDomainDTO;
+import co.com.pedrorido.model.utils.CursorPageResult;
 import co.com.pedrorido.model.utils.PageResult;
 import co.com.pedrorido.model.utils.StatusEnum;
+import co.com.pedrorido.model.utils.TotalAccuracy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -155,18 +159,16 @@ class RequestUseCaseTest {
 
         User ua = user("Ana", "Doe", new BigDecimal("2500000"), "a@x.com");
 
-        when(requestDomainRepository.findPage(anySet(), eq(0), eq(2)))
+        when(requestDomainRepository.findPage(anySet(), eq(0), eq(2), eq(true)))
                 .thenReturn(Mono.just(page));
 
-        // Por defecto, que no encuentre otros correos
-        when(userRepository.getUserByEmail(anyString())).thenReturn(Mono.empty());
-        when(userRepository.getUserByEmail(eq("a@x.com"))).thenReturn(Mono.just(ua));
+        when(userRepository.getUsersByEmails(Set.of("a@x.com"))).thenReturn(Flux.just(ua));
 
         try (MockedStatic<LoanMath> mocked = mockStatic(LoanMath.class)) {
             mocked.when(() -> LoanMath.monthlyPayment(any(BigDecimal.class), any(BigDecimal.class), anyInt(), eq(true)))
                     .thenReturn(new BigDecimal("123.45"));
 
-            StepVerifier.create(requestUseCase.getListByStatus(Set.of(APPROVED_ID), 0, 2))
+            StepVerifier.create(requestUseCase.getListByStatus(Set.of(APPROVED_ID), 0, 2, true, null))
                     .assertNext(result -> {
                         assertEquals(0, result.page());
                         assertEquals(2, result.size());
@@ -183,8 +185,8 @@ class RequestUseCaseTest {
                     })
                     .verifyComplete();
 
-            // Llamado solo una vez por email único
-            verify(userRepository, times(1)).getUserByEmail("a@x.com");
+            // Una sola consulta masiva con los emails únicos
+            verify(userRepository, times(1)).getUsersByEmails(Set.of("a@x.com"));
             verifyNoMoreInteractions(userRepository);
 
             // Se llamó al cálculo al menos una vez (dos items, ambos APPROVED)
@@ -203,15 +205,15 @@ class RequestUseCaseTest {
 
         User ub = user("Bob", "Smith", new BigDecimal("1800000"), "b@x.com");
 
-        when(requestDomainRepository.findPage(anySet(), eq(1), eq(1))).thenReturn(Mono.just(page));
-        when(userRepository.getUserByEmail("b@x.com")).thenReturn(Mono.just(ub));
+        when(requestDomainRepository.findPage(anySet(), eq(1), eq(1), eq(true))).thenReturn(Mono.just(page));
+        when(userRepository.getUsersByEmails(Set.of("b@x.com"))).thenReturn(Flux.just(ub));
 
         try (MockedStatic<LoanMath> mocked = mockStatic(LoanMath.class)) {
             // No debería llamarse para NOT_APPROVED, pero si se llamara, devolvemos algún valor
             mocked.when(() -> LoanMath.monthlyPayment(any(), any(), anyInt(), anyBoolean()))
                     .thenReturn(new BigDecimal("777"));
 
-            StepVerifier.create(requestUseCase.getListByStatus(Set.of(NOT_APPROVED), 1, 1))
+            StepVerifier.create(requestUseCase.getListByStatus(Set.of(NOT_APPROVED), 1, 1, true, null))
                     .assertNext(result -> {
                         RequestBasicAdminInfo it = result.content().get(0);
                         assertEquals("Bob Smith", it.getClientName());
@@ -226,40 +228,42 @@ class RequestUseCaseTest {
     }
 
     @Test
-    @DisplayName("Ignora emails null; ignora errores por-email y usuarios no encontrados (Mono.empty()).")
-    void ignoresNullEmails_andErrorPerEmail_andEmptyUser() {
+    @DisplayName("Ignora emails null; un error de la consulta masiva deja la página parcial y las filas pendientes.")
+    void ignoresNullEmails_andBatchError() {
         RequestBasicAdminInfo n1 = req("d6761e0b-8a7a-4eff-90b0-60c1accf38c3", null, APPROVED_ID, new BigDecimal("12000"), 2.8, 10);        // null email
         RequestBasicAdminInfo n2 = req("d6761e0b-8a7a-4eff-90b0-60c1accf38c3", "err@x.com", APPROVED_ID, new BigDecimal("9000"), 2.2, 8);   // error
         RequestBasicAdminInfo n3 = req("d6761e0b-8a7a-4eff-90b0-60c1accf38c3", "empty@x.com", APPROVED_ID, new BigDecimal("5000"), 1.5, 6); // empty user
 
         PageResult<RequestBasicAdminInfo> page = new PageResult<>(List.of(n1, n2, n3), 0, 3, 3L, 1);
 
-        when(requestDomainRepository.findPage(anySet(), eq(0), eq(3))).thenReturn(Mono.just(page));
-        when(userRepository.getUserByEmail("err@x.com")).thenReturn(Mono.error(new RuntimeException("boom")));
-        when(userRepository.getUserByEmail("empty@x.com")).thenReturn(Mono.empty());
+        when(requestDomainRepository.findPage(anySet(), eq(0), eq(3), eq(true))).thenReturn(Mono.just(page));
+        when(userRepository.getUsersByEmails(Set.of("err@x.com", "empty@x.com"))).thenReturn(Flux.error(new RuntimeException("boom")));
 
         try (MockedStatic<LoanMath> mocked = mockStatic(LoanMath.class)) {
             // Aunque son APPROVED, si no hay usuario NO debe llamarse LoanMath (no se enriquece)
             mocked.when(() -> LoanMath.monthlyPayment(any(), any(), anyInt(), anyBoolean()))
                     .thenReturn(new BigDecimal("999"));
 
-            StepVerifier.create(requestUseCase.getListByStatus(Set.of(APPROVED_ID), 0, 3))
+            StepVerifier.create(requestUseCase.getListByStatus(Set.of(APPROVED_ID), 0, 3, true, null))
                     .assertNext(result -> {
                         // Ninguno debe ser enriquecido porque:
                         // n1 email null -> no búsqueda
-                        // n2 error -> ignorado
-                        // n3 empty -> sin user
+                        // n2, n3 -> la consulta masiva falló
                         for (RequestBasicAdminInfo it : result.content()) {
                             assertNull(it.getClientName());
                             assertNull(it.getBaseSalary());
                             assertNull(it.getMonthlyDebt());
                         }
+                        // El error cuenta como enriquecimiento parcial: solo quedan pendientes las filas con email
+                        assertTrue(result.enrichmentPartial());
+                        assertFalse(result.content().get(0).isUserPending());
+                        assertTrue(result.content().get(1).isUserPending());
+                        assertTrue(result.content().get(2).isUserPending());
                     })
                     .verifyComplete();
 
             // Llamados realizados solo para correos no nulos
-            verify(userRepository, times(1)).getUserByEmail("err@x.com");
-            verify(userRepository, times(1)).getUserByEmail("empty@x.com");
+            verify(userRepository, times(1)).getUsersByEmails(Set.of("err@x.com", "empty@x.com"));
             verifyNoMoreInteractions(userRepository);
 
             // No debería calcularse nada porque no hubo user encontrado
@@ -267,6 +271,71 @@ class RequestUseCaseTest {
         }
     }
 
+    @Test
+    @DisplayName("Usuarios no devueltos por la consulta masiva quedan sin enriquecer; el email se compara sin mayúsculas.")
+    void missingUsersStayUnenriched_andEmailMatchIsCaseInsensitive() {
+        RequestBasicAdminInfo f1 = req("d6761e0b-8a7a-4eff-90b0-60c1accf38c3", "Found@X.com", StatusEnum.PENDING.getId(), new BigDecimal("5000"), 1.5, 6);
+        RequestBasicAdminInfo f2 = req("d6761e0b-8a7a-4eff-90b0-60c1accf38c3", "missing@x.com", StatusEnum.PENDING.getId(), new BigDecimal("5000"), 1.5, 6);
+        PageResult<RequestBasicAdminInfo> page = new PageResult<>(List.of(f1, f2), 0, 2, 2L, 1);
+
+        when(requestDomainRepository.findPage(anySet(), eq(0), eq(2), eq(true))).thenReturn(Mono.just(page));
+        when(userRepository.getUsersByEmails(Set.of("Found@X.com", "missing@x.com")))
+                .thenReturn(Flux.just(user("Fer", "Gil", new BigDecimal("2000000"), "found@x.com")));
+
+        StepVerifier.create(requestUseCase.getListByStatus(Set.of(StatusEnum.PENDING.getId()), 0, 2, true, null))
+                .assertNext(result -> {
+                    assertEquals("Fer Gil", result.content().get(0).getClientName());
+                    assertNull(result.content().get(1).getClientName());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Al vencer el plazo de enriquecimiento responde con lo resuelto y marca las filas pendientes.")
+    void enrichmentDeadline_returnsPartialPage() {
+        RequestBasicAdminInfo f1 = req("d6761e0b-8a7a-4eff-90b0-60c1accf38c3", "fast@x.com", StatusEnum.PENDING.getId(), new BigDecimal("5000"), 1.5, 6);
+        RequestBasicAdminInfo f2 = req("d6761e0b-8a7a-4eff-90b0-60c1accf38c3", "slow@x.com", StatusEnum.PENDING.getId(), new BigDecimal("5000"), 1.5, 6);
+        PageResult<RequestBasicAdminInfo> page = new PageResult<>(List.of(f1, f2), 0, 2, 2L, 1);
+
+        when(requestDomainRepository.findPage(anySet(), eq(0), eq(2), eq(true))).thenReturn(Mono.just(page));
+        when(userRepository.getUsersByEmails(Set.of("fast@x.com", "slow@x.com")))
+                .thenReturn(Flux.just(user("Fer", "Gil", new BigDecimal("2000000"), "fast@x.com")).concatWith(Flux.never()));
+
+        StepVerifier.create(requestUseCase.getListByStatus(Set.of(StatusEnum.PENDING.getId()), 0, 2, true, Duration.ofMillis(100)))
+                .assertNext(result -> {
+                    assertTrue(result.enrichmentPartial());
+                    assertEquals("Fer Gil", result.content().get(0).getClientName());
+                    assertFalse(result.content().get(0).isUserPending());
+                    assertNull(result.content().get(1).getClientName());
+                    assertTrue(result.content().get(1).isUserPending());
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("Si la consulta masiva falla a mitad de camino se conservan los usuarios ya recibidos.")
+    void enrichmentError_keepsUsersReceivedBeforeTheError() {
+        RequestBasicAdminInfo f1 = req("d6761e0b-8a7a-4eff-90b0-60c1accf38c3", "first@x.com", StatusEnum.PENDING.getId(), new BigDecimal("5000"), 1.5, 6);
+        RequestBasicAdminInfo f2 = req("d6761e0b-8a7a-4eff-90b0-60c1accf38c3", "lost@x.com", StatusEnum.PENDING.getId(), new BigDecimal("5000"), 1.5, 6);
+        PageResult<RequestBasicAdminInfo> page = new PageResult<>(List.of(f1, f2), 0, 2, 2L, 1);
+
+        when(requestDomainRepository.findPage(anySet(), eq(0), eq(2), eq(true))).thenReturn(Mono.just(page));
+        when(userRepository.getUsersByEmails(Set.of("first@x.com", "lost@x.com")))
+                .thenReturn(Flux.just(user("Fer", "Gil", new BigDecimal("2000000"), "first@x.com"))
+                        .concatWith(Flux.error(new RuntimeException("down"))));
+
+        StepVerifier.create(requestUseCase.getListByStatus(Set.of(StatusEnum.PENDING.getId()), 0, 2, true, null))
+                .assertNext(result -> {
+                    assertTrue(result.enrichmentPartial());
+                    assertEquals("Fer Gil", result.content().get(0).getClientName());
+                    assertFalse(result.content().get(0).isUserPending());
+                    assertNull(result.content().get(1).getClientName());
+                    assertTrue(result.content().get(1).isUserPending());
+                })
+                .verifyComplete();
+    }
+
     @Test
     @DisplayName("Construye clientName correctamente: solo nombre, solo apellido, y ambos.")
     void buildsClientName_skippingNulls() {
@@ -280,16 +349,14 @@ class RequestUseCaseTest {
         User u2 = user(null, "Solo", new BigDecimal("1100000"), "onlysurname@x.com");
         User u3 = user("Dana", "White", new BigDecimal("1200000"), "both@x.com");
 
-        when(requestDomainRepository.findPage(anySet(), eq(2), eq(3))).thenReturn(Mono.just(page));
-        when(userRepository.getUserByEmail("onlyname@x.com")).thenReturn(Mono.just(u1));
-        when(userRepository.getUserByEmail("onlysurname@x.com")).thenReturn(Mono.just(u2));
-        when(userRepository.getUserByEmail("both@x.com")).thenReturn(Mono.just(u3));
+        when(requestDomainRepository.findPage(anySet(), eq(2), eq(3), eq(true))).thenReturn(Mono.just(page));
+        when(userRepository.getUsersByEmails(anySet())).thenReturn(Flux.just(u1, u2, u3));
 
         try (MockedStatic<LoanMath> mocked = mockStatic(LoanMath.class)) {
             mocked.when(() -> LoanMath.monthlyPayment(any(), any(), anyInt(), eq(true)))
                     .thenReturn(new BigDecimal("321.00"));
 
-            StepVerifier.create(requestUseCase.getListByStatus(Set.of(APPROVED_ID), 2, 3))
+            StepVerifier.create(requestUseCase.getListByStatus(Set.of(APPROVED_ID), 2, 3, true, null))
                     .assertNext(result -> {
                         Map<String, RequestBasicAdminInfo> byEmail = result.content()
                                 .stream().collect(Collectors.toMap(RequestBasicAdminInfo::getEmail, x -> x));
@@ -310,6 +377,53 @@ class RequestUseCaseTest {
         }
     }
 
+    @Test
+    @DisplayName("includeTotal=false: conserva el total omitido y su precisión tal como los entrega el repositorio.")
+    void skippedTotal_isPropagated() {
+        RequestBasicAdminInfo e1 = req("d6761e0b-8a7a-4eff-90b0-60c1accf38c3", "e@x.com", StatusEnum.PENDING.getId(), new BigDecimal("5000"), 1.5, 6);
+        PageResult<RequestBasicAdminInfo> page = new PageResult<>(List.of(e1), 3, 1, -1L, -1, TotalAccuracy.SKIPPED);
+
+        when(requestDomainRepository.findPage(anySet(), eq(3), eq(1), eq(false))).thenReturn(Mono.just(page));
+        when(userRepository.getUsersByEmails(Set.of("e@x.com"))).thenReturn(Flux.empty());
+
+        StepVerifier.create(requestUseCase.getListByStatus(Set.of(StatusEnum.PENDING.getId()), 3, 1, false, null))
+                .assertNext(result -> {
+                    assertEquals(TotalAccuracy.SKIPPED, result.totalAccuracy());
+                    assertEquals(-1L, result.totalElements());
+                    assertEquals(-1, result.totalPages());
+                    assertEquals(1, result.content().size());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Paginación por cursor: enriquece el contenido y conserva nextCursor/hasNext del repositorio.")
+    void cursorPage_enrichesContent_andKeepsContinuationToken() {
+        RequestBasicAdminInfo d1 = req("d6761e0b-8a7a-4eff-90b0-60c1accf38c3", "d@x.com", APPROVED_ID, new BigDecimal("10000"), 2.0, 12);
+        CursorPageResult<RequestBasicAdminInfo> page = new CursorPageResult<>(List.of(d1), 1, "next-token", true);
+
+        when(requestDomainRepository.findPageAfter(anySet(), eq("token"), eq(1))).thenReturn(Mono.just(page));
+        when(userRepository.getUsersByEmails(Set.of("d@x.com"))).thenReturn(Flux.just(user("Dora", "Lee", new BigDecimal("3000000"), "d@x.com")));
+
+        try (MockedStatic<LoanMath> mocked = mockStatic(LoanMath.class)) {
+            mocked.when(() -> LoanMath.monthlyPayment(any(), any(), anyInt(), eq(true)))
+                    .thenReturn(new BigDecimal("456.00"));
+
+            StepVerifier.create(requestUseCase.getListByStatusAfter(Set.of(APPROVED_ID), "token", 1, null))
+                    .assertNext(result -> {
+                        assertEquals("next-token", result.nextCursor());
+                        assertTrue(result.hasNext());
+                        assertEquals(1, result.size());
+                        RequestBasicAdminInfo it = result.content().get(0);
+                        assertEquals("Dora Lee", it.getClientName());
+                        assertEquals(new BigDecimal("456.00"), it.getMonthlyDebt());
+                    })
+                    .verifyComplete();
+        }
+
+        verify(requestDomainRepository, never()).findPage(anySet(), anyInt(), anyInt(), anyBoolean());
+    }
+
     // -----------------------
     // Helpers
     // -----------------------
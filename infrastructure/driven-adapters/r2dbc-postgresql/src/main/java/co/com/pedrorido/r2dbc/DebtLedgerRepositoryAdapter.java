@@ -0,0 +1,96 @@
+package co.com.pedrorido.r2dbc;
+
+import co.com.pedrorido.model.debtledger.DebtLedger;
+import co.com.pedrorido.model.debtledger.gateways.DebtLedgerRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Libro de deuda por cliente (tabla deuda_cliente): una fila por email con la suma de
+ * deuda mensual aprobada y el detalle por solicitud, para no recorrer todas las
+ * solicitudes aprobadas del cliente en cada validación. Se escribe en la misma sentencia
+ * que aprueba la solicitud ({@link RequestRepositoryAdapter#updateStatusIfPending}).
+ */
+@Log4j2
+@Repository
+@RequiredArgsConstructor
+public class DebtLedgerRepositoryAdapter implements DebtLedgerRepository {
+    private static final ObjectReader DEBTS_READER = new ObjectMapper()
+            .readerFor(new TypeReference<Map<UUID, BigDecimal>>() {
+            });
+
+    private static final String FIND_BY_EMAIL_SQL = """
+            SELECT email, deuda_mensual_total, cantidad_aprobadas, deudas::text AS deudas, fecha_actualizacion
+            FROM deuda_cliente
+            WHERE email = LOWER(:email)
+            """;
+
+    private static final String FIND_BY_EMAILS_SQL = """
+            SELECT email, deuda_mensual_total, cantidad_aprobadas, deudas::text AS deudas, fecha_actualizacion
+            FROM deuda_cliente
+            WHERE email IN (:emails)
+            """;
+
+    private final R2dbcEntityTemplate template;
+
+    @Override
+    public Mono<DebtLedger> findByEmail(String email) {
+        return template.getDatabaseClient().sql(FIND_BY_EMAIL_SQL)
+                .bind("email", email)
+                .map((row, meta) -> toLedger(row))
+                .one()
+                .doOnNext(ledger -> log.debug("DEBT-LEDGER findByEmail(email={}) -> {} aprobadas", email, ledger.getApprovedCount()));
+    }
+
+    @Override
+    public Flux<DebtLedger> findByEmails(Collection<String> emails) {
+        if (emails == null || emails.isEmpty()) {
+            return Flux.empty();
+        }
+        List<String> normalized = emails.stream().map(e -> e.toLowerCase(Locale.ROOT)).distinct().toList();
+        return template.getDatabaseClient().sql(FIND_BY_EMAILS_SQL)
+                .bind("emails", normalized)
+                .map((row, meta) -> toLedger(row))
+                .all();
+    }
+
+    private static DebtLedger toLedger(Row row) {
+        OffsetDateTime updatedAt = row.get("fecha_actualizacion", OffsetDateTime.class);
+        return DebtLedger.builder()
+                .email(row.get("email", String.class))
+                .totalMonthlyDebt(row.get("deuda_mensual_total", BigDecimal.class))
+                .approvedCount(row.get("cantidad_aprobadas", Integer.class))
+                .debts(readDebts(row.get("deudas", String.class)))
+                .updatedAt(updatedAt != null ? updatedAt.toInstant() : null)
+                .build();
+    }
+
+    private static Map<UUID, BigDecimal> readDebts(String json) {
+        if (json == null || json.isBlank()) {
+            return Map.of();
+        }
+        try {
+            return DEBTS_READER.readValue(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("invalid deudas json in deuda_cliente", e);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package co.com.pedrorido.r2dbc;
 import co.com.pedrorido.model.loantype.LoanType;
 import co.com.pedrorido.model.loantype.gateways.LoanTypeRepository;
 import co.com.pedrorido.r2dbc.entity.LoanTypeEntity;
+import co.com.pedrorido.r2dbc.helper.LoanTypeCatalog;
 import co.com.pedrorido.r2dbc.helper.ReactiveAdapterOperations;
 import lombok.extern.log4j.Log4j2;
 import org.reactivecommons.utils.ObjectMapper;
@@ -17,13 +18,25 @@ public class LoanTypeReactiveRepositoryAdapter extends ReactiveAdapterOperations
         Long,
         LoanTypeReactiveRepository
         > implements LoanTypeRepository {
-    public LoanTypeReactiveRepositoryAdapter(LoanTypeReactiveRepository repository, ObjectMapper mapper) {
+    private final LoanTypeCatalog catalog;
+
+    public LoanTypeReactiveRepositoryAdapter(LoanTypeReactiveRepository repository, ObjectMapper mapper, LoanTypeCatalog catalog) {
         super(repository, mapper, d -> mapper.map(d, LoanType.class));
+        this.catalog = catalog;
+    }
+
+    @Override
+    public Mono<LoanType> findById(Long id) {
+        log.debug("findById: {}", id);
+        return catalog.find(id)
+                .switchIfEmpty(Mono.defer(() -> super.findById(id)));
     }
 
     @Override
     public Mono<Boolean> loanTypeExistsById(Long id) {
         log.info("loanTypeExistsById: {}", id);
-        return repository.existsById(id);
+        return catalog.find(id)
+                .map(loanType -> true)
+                .switchIfEmpty(Mono.defer(() -> repository.existsById(id)));
     }
 }
@@ -0,0 +1,83 @@
+package co.com.pedrorido.r2dbc;
+
+import co.com.pedrorido.codec.MessageCodec;
+import co.com.pedrorido.model.external.RequestCalculateDebtMessage;
+import co.com.pedrorido.model.external.RequestStatusChangeMessage;
+import co.com.pedrorido.model.external.gateways.MessagePublisherRepository;
+import co.com.pedrorido.model.outbox.OutboxEventType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Publica los eventos de dominio escribiéndolos en outbox_evento. Al usar la conexión de la
+ * transacción en curso, el evento queda confirmado junto con el cambio de la solicitud y el
+ * envío a SQS lo hace el relay fuera de la petición.
+ */
+@Log4j2
+@Repository
+@RequiredArgsConstructor
+public class OutboxPublisherAdapter implements MessagePublisherRepository {
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox_evento (clave_agregado, tipo, payload) VALUES (:aggregateId, :type, :payload)";
+
+    // Varias filas en una sola sentencia; unnest conserva el orden de los arreglos
+    private static final String INSERT_MANY_SQL = """
+            INSERT INTO outbox_evento (clave_agregado, tipo, payload)
+            SELECT * FROM unnest(CAST(:aggregateIds AS varchar[]), CAST(:types AS varchar[]), CAST(:payloads AS text[]))
+            """;
+
+    private final R2dbcEntityTemplate template;
+    private final MessageCodec codec;
+
+    @Override
+    public Mono<Void> publishRequestStatusChange(RequestStatusChangeMessage evt) {
+        log.info("OUTBOX enqueue StatusChange {}", evt.solicitudId());
+        return enqueue(String.valueOf(evt.solicitudId()), OutboxEventType.REQUEST_STATUS_CHANGE, () -> codec.encodeToText(evt));
+    }
+
+    @Override
+    public Mono<Void> publishRequestStatusChanges(List<RequestStatusChangeMessage> events) {
+        if (events == null || events.isEmpty()) {
+            return Mono.empty();
+        }
+        log.info("OUTBOX enqueue {} StatusChange events", events.size());
+        return Mono.fromCallable(() -> {
+                    String[] payloads = new String[events.size()];
+                    for (int i = 0; i < events.size(); i++) {
+                        payloads[i] = codec.encodeToText(events.get(i));
+                    }
+                    return payloads;
+                })
+                .flatMap(payloads -> template.getDatabaseClient().sql(INSERT_MANY_SQL)
+                        .bind("aggregateIds", events.stream().map(evt -> String.valueOf(evt.solicitudId())).toArray(String[]::new))
+                        .bind("types", Collections.nCopies(events.size(), OutboxEventType.REQUEST_STATUS_CHANGE.name()).toArray(String[]::new))
+                        .bind("payloads", payloads)
+                        .fetch()
+                        .rowsUpdated())
+                .then();
+    }
+
+    @Override
+    public Mono<Void> publishCalculateDebtCapacitySqs(RequestCalculateDebtMessage evt) {
+        log.info("OUTBOX enqueue CalculateDebtCapacity {}", evt.transactionId());
+        return enqueue(String.valueOf(evt.transactionId()), OutboxEventType.CALCULATE_DEBT_CAPACITY, () -> codec.encodeToText(evt));
+    }
+
+    private Mono<Void> enqueue(String aggregateId, OutboxEventType type, Callable<String> payload) {
+        return Mono.fromCallable(payload)
+                .flatMap(json -> template.getDatabaseClient().sql(INSERT_SQL)
+                        .bind("aggregateId", aggregateId)
+                        .bind("type", type.name())
+                        .bind("payload", json)
+                        .fetch()
+                        .rowsUpdated())
+                .then();
+    }
+}
@@ -0,0 +1,101 @@
+package co.com.pedrorido.r2dbc;
+
+import co.com.pedrorido.model.outbox.OutboxEvent;
+import co.com.pedrorido.model.outbox.OutboxEventType;
+import co.com.pedrorido.model.outbox.gateways.OutboxRepository;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+
+/**
+ * Lectura y limpieza de la tabla outbox_evento para el relay hacia SQS. La reserva usa
+ * FOR UPDATE SKIP LOCKED más un lease, de modo que varias instancias pueden drenar la
+ * tabla sin repartirse el mismo evento. Solo se reserva la cabeza de cada agregado (no
+ * queda ningún evento anterior suyo en la tabla): mientras otra instancia tenga tomado el
+ * primero, aunque su lease todavía no esté confirmado, los siguientes de esa solicitud
+ * esperan a que se publique y se borre.
+ */
+@Log4j2
+@Repository
+@RequiredArgsConstructor
+public class OutboxRepositoryAdapter implements OutboxRepository {
+    private static final String CLAIM_SQL = """
+            WITH candidatos AS (
+                SELECT o.id
+                FROM outbox_evento o
+                WHERE (o.bloqueado_hasta IS NULL OR o.bloqueado_hasta < now())
+                  AND NOT EXISTS (
+                      SELECT 1 FROM outbox_evento p
+                      WHERE p.clave_agregado = o.clave_agregado AND p.id < o.id)
+                ORDER BY o.id
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE outbox_evento e
+            SET bloqueado_hasta = now() + make_interval(secs => CAST(:leaseSeconds AS double precision)),
+                intentos = e.intentos + 1
+            FROM candidatos c
+            WHERE e.id = c.id
+            RETURNING e.id, e.clave_agregado, e.tipo, e.payload, e.intentos, e.creado_en
+            """;
+
+    private static final String DELETE_SQL = "DELETE FROM outbox_evento WHERE id IN (:ids)";
+
+    private static final String FAILED_SQL = "UPDATE outbox_evento SET ultimo_error = :error WHERE id = :id";
+
+    private final R2dbcEntityTemplate template;
+
+    @Override
+    public Flux<OutboxEvent> claimBatch(int size, Duration lease) {
+        return template.getDatabaseClient().sql(CLAIM_SQL)
+                .bind("limit", size)
+                .bind("leaseSeconds", lease.toMillis() / 1000.0)
+                .map((row, meta) -> toEvent(row))
+                .all()
+                // RETURNING no garantiza orden
+                .sort((a, b) -> Long.compare(a.getId(), b.getId()));
+    }
+
+    @Override
+    public Mono<Void> markPublished(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Mono.empty();
+        }
+        return template.getDatabaseClient().sql(DELETE_SQL)
+                .bind("ids", ids)
+                .fetch()
+                .rowsUpdated()
+                .doOnNext(deleted -> log.debug("OUTBOX published {} events", deleted))
+                .then();
+    }
+
+    @Override
+    public Mono<Void> markFailed(Long id, String error) {
+        return template.getDatabaseClient().sql(FAILED_SQL)
+                .bind("id", id)
+                .bind("error", error == null ? "unknown" : error)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+
+    private static OutboxEvent toEvent(Row row) {
+        OffsetDateTime createdAt = row.get("creado_en", OffsetDateTime.class);
+        return OutboxEvent.builder()
+                .id(row.get("id", Long.class))
+                .aggregateId(row.get("clave_agregado", String.class))
+                .eventType(OutboxEventType.valueOf(row.get("tipo", String.class)))
+                .payload(row.get("payload", String.class))
+                .attempts(row.get("intentos", Integer.class))
+                .createdAt(createdAt != null ? createdAt.toInstant() : null)
+                .build();
+    }
+}
@@ -0,0 +1,172 @@
+package co.com.pedrorido.r2dbc;
+
+import co.com.pedrorido.model.processedmessage.gateways.ProcessedMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Registro de mensajes procesados (tabla mensaje_procesado) con una caché LRU acotada y
+ * con expiración delante. La caché solo se llena cuando la transacción que registró el
+ * mensaje confirma, así un procesamiento revertido no deja un falso duplicado. Las filas
+ * más viejas que la retención se purgan periódicamente.
+ */
+@Log4j2
+@Repository
+public class ProcessedMessageRepositoryAdapter implements ProcessedMessageRepository, DisposableBean {
+    // ON CONFLICT sin columna objetivo cubre tanto la clave de negocio como el id del mensaje
+    private static final String CLAIM_SQL = """
+            INSERT INTO mensaje_procesado (clave, message_id, procesado_en)
+            VALUES (:key, :messageId, now())
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final String PURGE_SQL =
+            "DELETE FROM mensaje_procesado WHERE procesado_en < now() - make_interval(secs => CAST(:retentionSeconds AS double precision))";
+
+    private final R2dbcEntityTemplate template;
+    private final Duration cacheTtl;
+    private final Duration retention;
+    private final Duration purgeInterval;
+    private final Map<String, Long> cache;
+
+    private final Counter cacheHits;
+    private final Counter dbDuplicates;
+    private final Counter claimed;
+    private volatile Disposable purge;
+
+    public ProcessedMessageRepositoryAdapter(R2dbcEntityTemplate template, MeterRegistry registry,
+                                             @Value("${adapters.r2dbc.processedCacheSize:10000}") int cacheSize,
+                                             @Value("${adapters.r2dbc.processedCacheTtl:1h}") Duration cacheTtl,
+                                             @Value("${adapters.r2dbc.processedRetention:7d}") Duration retention,
+                                             @Value("${adapters.r2dbc.processedPurgeInterval:1h}") Duration purgeInterval) {
+        this.template = template;
+        this.cacheTtl = cacheTtl;
+        this.retention = retention;
+        this.purgeInterval = purgeInterval;
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.cacheHits = registry.counter("processed_message.lookups", "result", "cache_hit");
+        this.dbDuplicates = registry.counter("processed_message.lookups", "result", "db_duplicate");
+        this.claimed = registry.counter("processed_message.lookups", "result", "new");
+        registry.gauge("processed_message.cache.size", cache, this::cacheSize);
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void startPurge() {
+        if (purge != null) {
+            return;
+        }
+        purge = Flux.interval(purgeInterval, purgeInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> template.getDatabaseClient().sql(PURGE_SQL)
+                        .bind("retentionSeconds", retention.toSeconds())
+                        .fetch()
+                        .rowsUpdated()
+                        .doOnNext(deleted -> log.info("PROCESSED-MESSAGE purged {} rows older than {}", deleted, retention))
+                        .onErrorResume(e -> {
+                            log.error("PROCESSED-MESSAGE purge failed: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (purge != null) {
+            purge.dispose();
+        }
+    }
+
+    @Override
+    public Mono<Boolean> claim(String messageId, String businessKey) {
+        if (cached(businessKey) || cached(messageId)) {
+            cacheHits.increment();
+            log.info("PROCESSED-MESSAGE duplicate (cache) messageId={}, key={}", messageId, businessKey);
+            return Mono.just(false);
+        }
+        return template.getDatabaseClient().sql(CLAIM_SQL)
+                .bind("key", businessKey)
+                .bind("messageId", messageId)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(inserted -> {
+                    if (inserted == 0) {
+                        // Ya confirmado por otra entrega: se recuerda de inmediato
+                        dbDuplicates.increment();
+                        remember(messageId, businessKey);
+                        log.info("PROCESSED-MESSAGE duplicate (db) messageId={}, key={}", messageId, businessKey);
+                        return Mono.just(false);
+                    }
+                    claimed.increment();
+                    return rememberAfterCommit(messageId, businessKey).thenReturn(true);
+                });
+    }
+
+    private Mono<Void> rememberAfterCommit(String messageId, String businessKey) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .filter(TransactionSynchronizationManager::isSynchronizationActive)
+                .doOnNext(tsm -> tsm.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public Mono<Void> afterCommit() {
+                        return Mono.fromRunnable(() -> remember(messageId, businessKey));
+                    }
+                }))
+                .switchIfEmpty(Mono.fromRunnable(() -> remember(messageId, businessKey)))
+                .onErrorResume(NoTransactionException.class, e -> Mono.fromRunnable(() -> remember(messageId, businessKey)))
+                .then();
+    }
+
+    private boolean cached(String key) {
+        if (key == null) {
+            return false;
+        }
+        synchronized (cache) {
+            Long expiresAt = cache.get(key);
+            if (expiresAt == null) {
+                return false;
+            }
+            if (expiresAt < System.currentTimeMillis()) {
+                cache.remove(key);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void remember(String messageId, String businessKey) {
+        long expiresAt = System.currentTimeMillis() + cacheTtl.toMillis();
+        synchronized (cache) {
+            if (messageId != null) {
+                cache.put(messageId, expiresAt);
+            }
+            cache.put(businessKey, expiresAt);
+        }
+    }
+
+    private double cacheSize(Map<String, Long> map) {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+}
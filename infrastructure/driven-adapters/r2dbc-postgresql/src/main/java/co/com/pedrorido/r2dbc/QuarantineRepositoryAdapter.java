@@ -0,0 +1,101 @@
+package co.com.pedrorido.r2dbc;
+
+import co.com.pedrorido.model.quarantine.QuarantinedMessage;
+import co.com.pedrorido.model.quarantine.gateways.QuarantineRepository;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Tabla mensaje_cuarentena. La inserción es idempotente por message_id: si el mismo mensaje
+ * llega dos veces a cuarentena (p. ej. el ack falló) se conserva el primer registro.
+ */
+@Log4j2
+@Repository
+@RequiredArgsConstructor
+public class QuarantineRepositoryAdapter implements QuarantineRepository {
+    private static final String COLUMNS = "id, message_id, cola, cuerpo, motivo, recepciones, en_cuarentena_en, reenviado_en";
+
+    private static final String INSERT_SQL = """
+            WITH nuevo AS (
+                INSERT INTO mensaje_cuarentena (id, message_id, cola, cuerpo, motivo, recepciones, en_cuarentena_en)
+                VALUES (:id, :messageId, :queueUrl, :body, :reason, :receiveCount, now())
+                ON CONFLICT (message_id) DO NOTHING
+                RETURNING %1$s
+            )
+            SELECT %1$s FROM nuevo
+            UNION ALL
+            SELECT %1$s FROM mensaje_cuarentena WHERE message_id = :messageId AND NOT EXISTS (SELECT 1 FROM nuevo)
+            """.formatted(COLUMNS);
+
+    private static final String RECENT_SQL =
+            "SELECT " + COLUMNS + " FROM mensaje_cuarentena ORDER BY en_cuarentena_en DESC LIMIT :limit";
+
+    private static final String BY_ID_SQL = "SELECT " + COLUMNS + " FROM mensaje_cuarentena WHERE id = :id";
+
+    private static final String MARK_REPLAYED_SQL =
+            "UPDATE mensaje_cuarentena SET reenviado_en = now() WHERE id = :id AND reenviado_en IS NULL";
+
+    private final R2dbcEntityTemplate template;
+
+    @Override
+    public Mono<QuarantinedMessage> save(QuarantinedMessage message) {
+        var spec = template.getDatabaseClient().sql(INSERT_SQL)
+                .bind("id", message.getId())
+                .bind("messageId", message.getMessageId())
+                .bind("queueUrl", message.getQueueUrl())
+                .bind("body", message.getBody())
+                .bind("receiveCount", message.getReceiveCount() == null ? 1 : message.getReceiveCount());
+        spec = message.getReason() == null ? spec.bindNull("reason", String.class) : spec.bind("reason", message.getReason());
+        return spec.map((row, meta) -> toMessage(row))
+                .one()
+                .doOnNext(saved -> log.warn("QUARANTINE messageId={} id={} reason={}", saved.getMessageId(), saved.getId(), saved.getReason()));
+    }
+
+    @Override
+    public Flux<QuarantinedMessage> findRecent(int limit) {
+        return template.getDatabaseClient().sql(RECENT_SQL)
+                .bind("limit", limit)
+                .map((row, meta) -> toMessage(row))
+                .all();
+    }
+
+    @Override
+    public Mono<QuarantinedMessage> findById(UUID id) {
+        return template.getDatabaseClient().sql(BY_ID_SQL)
+                .bind("id", id)
+                .map((row, meta) -> toMessage(row))
+                .one();
+    }
+
+    @Override
+    public Mono<Boolean> markReplayed(UUID id) {
+        return template.getDatabaseClient().sql(MARK_REPLAYED_SQL)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .map(updated -> updated > 0);
+    }
+
+    private static QuarantinedMessage toMessage(Row row) {
+        OffsetDateTime quarantinedAt = row.get("en_cuarentena_en", OffsetDateTime.class);
+        OffsetDateTime replayedAt = row.get("reenviado_en", OffsetDateTime.class);
+        return QuarantinedMessage.builder()
+                .id(row.get("id", UUID.class))
+                .messageId(row.get("message_id", String.class))
+                .queueUrl(row.get("cola", String.class))
+                .body(row.get("cuerpo", String.class))
+                .reason(row.get("motivo", String.class))
+                .receiveCount(row.get("recepciones", Integer.class))
+                .quarantinedAt(quarantinedAt == null ? null : quarantinedAt.toInstant())
+                .replayedAt(replayedAt == null ? null : replayedAt.toInstant())
+                .build();
+    }
+}
@@ -5,9 +5,7 @@ import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.query.ReactiveQueryByExampleExecutor;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
 
@@ -16,13 +14,6 @@ public interface RequestReactiveRepository extends ReactiveCrudRepository<Reques
     @Query("select * from solicitud s where s.id_estado in (:statusNames)")
     Flux<RequestEntity> findByStatusName(List<String> statusNames);
 
-    @Query("""
-    SELECT COALESCE(SUM(deuda_mensual), 0)
-    FROM solicitud
-    WHERE email = :email AND id_estado = '2'
-    """)
-    Mono<BigDecimal> sumMonthlyDebtByEmail(String email);
-
     @Query("""
         SELECT id_solicitud, monto, plazo, email, id_estado, id_tipo_prestamo, deuda_mensual
         FROM solicitud
@@ -1,24 +1,32 @@
 package co.com.pedrorido.r2dbc;
 
+import co.com.pedrorido.model.debtledger.DebtLedger;
 import co.com.pedrorido.model.requestdomain.RequestBasicAdminInfo;
 import co.com.pedrorido.model.requestdomain.RequestDomain;
+import co.com.pedrorido.model.requestdomain.StatusTransition;
 import co.com.pedrorido.model.requestdomain.gateways.RequestDomainRepository;
+import co.com.pedrorido.model.utils.CursorPageResult;
 import co.com.pedrorido.model.utils.PageResult;
-import co.com.pedrorido.r2dbc.entity.LoanTypeEntity;
+import co.com.pedrorido.model.utils.StatusEnum;
+import co.com.pedrorido.model.utils.TotalAccuracy;
+import co.com.pedrorido.r2dbc.entity.RequestAndLoanTypeEntity;
 import co.com.pedrorido.r2dbc.entity.RequestEntity;
 import co.com.pedrorido.r2dbc.helper.ReactiveAdapterOperations;
+import co.com.pedrorido.r2dbc.helper.RequestStatusCounters;
+import io.r2dbc.spi.Row;
 import lombok.extern.log4j.Log4j2;
 import org.reactivecommons.utils.ObjectMapper;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.data.relational.core.query.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Log4j2
 @Repository
@@ -28,24 +36,154 @@ public class RequestRepositoryAdapter extends ReactiveAdapterOperations<
         UUID,
         RequestReactiveRepository
         > implements RequestDomainRepository {
-    public RequestRepositoryAdapter(RequestReactiveRepository repository, ObjectMapper mapper, R2dbcEntityTemplate template) {
+    public RequestRepositoryAdapter(RequestReactiveRepository repository, ObjectMapper mapper, R2dbcEntityTemplate template,
+                                    RequestStatusCounters statusCounters, DebtLedgerRepositoryAdapter debtLedger) {
         super(repository, mapper, d -> mapper.map(d, RequestDomain.class));
         this.template = template;
+        this.statusCounters = statusCounters;
+        this.debtLedger = debtLedger;
     }
 
     private final R2dbcEntityTemplate template;
+    private final RequestStatusCounters statusCounters;
+    private final DebtLedgerRepositoryAdapter debtLedger;
+
+    // Compare-and-set en una sola sentencia: el UPDATE solo gana si la fila sigue en PENDING y,
+    // si la deja APPROVED, el libro de deuda del cliente se actualiza en la misma sentencia.
+    private static final String UPDATE_STATUS_IF_PENDING_SQL = """
+            WITH upd AS (
+                UPDATE solicitud
+                SET id_estado = :statusId, deuda_mensual = :monthlyDebt
+                WHERE id_solicitud = :id AND id_estado = :pendingId
+                RETURNING id_solicitud, monto, plazo, email, id_estado, id_tipo_prestamo, deuda_mensual
+            ), ledger AS (
+                INSERT INTO deuda_cliente (email, deuda_mensual_total, cantidad_aprobadas, deudas, fecha_actualizacion)
+                SELECT LOWER(email), deuda_mensual, 1, jsonb_build_object(id_solicitud::text, deuda_mensual), now()
+                FROM upd
+                WHERE id_estado = :approvedId AND deuda_mensual IS NOT NULL
+                ON CONFLICT (email) DO UPDATE SET
+                    deuda_mensual_total = deuda_cliente.deuda_mensual_total + EXCLUDED.deuda_mensual_total,
+                    cantidad_aprobadas = deuda_cliente.cantidad_aprobadas + 1,
+                    deudas = deuda_cliente.deudas || EXCLUDED.deudas,
+                    fecha_actualizacion = now()
+                WHERE NOT deuda_cliente.deudas @> EXCLUDED.deudas
+            )
+            SELECT * FROM upd
+            """;
+
+    // Mismo compare-and-set para un lote: las transiciones llegan como arreglos paralelos y el
+    // libro de deuda se agrega por cliente (ON CONFLICT no puede tocar la misma fila dos veces).
+    private static final String UPDATE_STATUSES_IF_PENDING_SQL = """
+            WITH input AS (
+                SELECT * FROM unnest(CAST(:ids AS uuid[]), CAST(:statusIds AS bigint[]), CAST(:monthlyDebts AS numeric[]))
+                    AS t(id_solicitud, id_estado, deuda_mensual)
+            ), upd AS (
+                UPDATE solicitud s
+                SET id_estado = i.id_estado, deuda_mensual = i.deuda_mensual
+                FROM input i
+                WHERE s.id_solicitud = i.id_solicitud AND s.id_estado = :pendingId
+                RETURNING s.id_solicitud, s.monto, s.plazo, s.email, s.id_estado, s.id_tipo_prestamo, s.deuda_mensual
+            ), ledger AS (
+                INSERT INTO deuda_cliente (email, deuda_mensual_total, cantidad_aprobadas, deudas, fecha_actualizacion)
+                SELECT LOWER(email), SUM(deuda_mensual), COUNT(*), jsonb_object_agg(id_solicitud::text, deuda_mensual), now()
+                FROM upd
+                WHERE id_estado = :approvedId AND deuda_mensual IS NOT NULL
+                GROUP BY LOWER(email)
+                ON CONFLICT (email) DO UPDATE SET
+                    deuda_mensual_total = deuda_cliente.deuda_mensual_total + EXCLUDED.deuda_mensual_total,
+                    cantidad_aprobadas = deuda_cliente.cantidad_aprobadas + EXCLUDED.cantidad_aprobadas,
+                    deudas = deuda_cliente.deudas || EXCLUDED.deudas,
+                    fecha_actualizacion = now()
+                WHERE NOT deuda_cliente.deudas @> EXCLUDED.deudas
+            )
+            SELECT * FROM upd
+            """;
+
+    private static final String ADMIN_LIST_SELECT =
+            "SELECT s.id_solicitud, s.monto, s.plazo, s.email, s.id_estado, s.id_tipo_prestamo, s.deuda_mensual, tp.tasa_interes";
+
+    private static final String ADMIN_LIST_FROM =
+            " FROM solicitud s LEFT JOIN tipo_prestamo tp ON tp.id_tipo_prestamo = s.id_tipo_prestamo";
 
     @Override
     public Mono<RequestDomain> saveRequestDomain(RequestDomain request) {
         log.info("POSTGRES - saveRequestDomain: {}", request);
-        return super.save(request);
+        boolean isNew = request.getId() == null;
+        return super.save(request)
+                .flatMap(saved -> statusCounters.afterCommit(() -> {
+                    // El dominio solo permite transiciones desde PENDING
+                    if (isNew) {
+                        statusCounters.increment(saved.getStatusId());
+                    } else {
+                        statusCounters.transition(StatusEnum.PENDING.getId(), saved.getStatusId());
+                    }
+                }).thenReturn(saved));
+    }
+
+    @Override
+    public Mono<RequestDomain> updateStatusIfPending(UUID requestId, Long statusId, BigDecimal monthlyDebt) {
+        log.info("REQUEST-ADAPTER updateStatusIfPending: id={}, statusId={}, monthlyDebt={}", requestId, statusId, monthlyDebt);
+        DatabaseClient.GenericExecuteSpec spec = template.getDatabaseClient().sql(UPDATE_STATUS_IF_PENDING_SQL)
+                .bind("id", requestId)
+                .bind("statusId", statusId)
+                .bind("pendingId", StatusEnum.PENDING.getId())
+                .bind("approvedId", StatusEnum.APPROVED.getId());
+        spec = monthlyDebt != null ? spec.bind("monthlyDebt", monthlyDebt) : spec.bindNull("monthlyDebt", BigDecimal.class);
+
+        return spec.map((row, meta) -> readRequestRow(row))
+                .one()
+                .flatMap(updated -> statusCounters.afterCommit(
+                        () -> statusCounters.transition(StatusEnum.PENDING.getId(), updated.getStatusId())).thenReturn(updated));
+    }
+
+    @Override
+    public Flux<RequestDomain> updateStatusesIfPending(List<StatusTransition> transitions) {
+        if (transitions == null || transitions.isEmpty()) {
+            return Flux.empty();
+        }
+        log.info("REQUEST-ADAPTER updateStatusesIfPending: {} transitions", transitions.size());
+        return template.getDatabaseClient().sql(UPDATE_STATUSES_IF_PENDING_SQL)
+                .bind("ids", transitions.stream().map(StatusTransition::requestId).toArray(UUID[]::new))
+                .bind("statusIds", transitions.stream().map(StatusTransition::statusId).toArray(Long[]::new))
+                .bind("monthlyDebts", transitions.stream().map(StatusTransition::monthlyDebt).toArray(BigDecimal[]::new))
+                .bind("pendingId", StatusEnum.PENDING.getId())
+                .bind("approvedId", StatusEnum.APPROVED.getId())
+                .map((row, meta) -> readRequestRow(row))
+                .all()
+                .collectList()
+                .flatMapMany(updated -> statusCounters.afterCommit(() -> updated.forEach(
+                                r -> statusCounters.transition(StatusEnum.PENDING.getId(), r.getStatusId())))
+                        .thenMany(Flux.fromIterable(updated)));
+    }
+
+    @Override
+    public Flux<RequestDomain> findAllByIds(Collection<UUID> requestIds) {
+        if (requestIds == null || requestIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return repository.findAllById(requestIds)
+                .map(this::toEntity);
+    }
+
+    private static RequestDomain readRequestRow(Row row) {
+        return RequestDomain.builder()
+                .id(row.get("id_solicitud", UUID.class))
+                .amount(row.get("monto", BigDecimal.class))
+                .term(row.get("plazo", Integer.class))
+                .email(row.get("email", String.class))
+                .statusId(row.get("id_estado", Long.class))
+                .typeLoanId(row.get("id_tipo_prestamo", Long.class))
+                .monthlyDebt(row.get("deuda_mensual", BigDecimal.class))
+                .build();
     }
 
     @Override
     public Mono<BigDecimal> findSumMonthlyDebtByEmail(String email) {
         log.info("REQUEST-ADAPTER: Starting findSumMonthlyDebtByEmail for email={}", email);
 
-        return repository.sumMonthlyDebtByEmail(email)
+        return debtLedger.findByEmail(email)
+                .map(DebtLedger::getTotalMonthlyDebt)
+                .defaultIfEmpty(BigDecimal.ZERO)
                 .doOnNext(result -> log.info("REQUEST-ADAPTER: Query result for email={} is {}", email, result))
                 .doOnError(error -> log.error("REQUEST-ADAPTER: Error executing query for email={}: {}", email, error.getMessage(), error))
                 .onErrorResume(error -> {
@@ -57,8 +195,8 @@ public class RequestRepositoryAdapter extends ReactiveAdapterOperations<
 
 
     @Override
-    public Mono<PageResult<RequestBasicAdminInfo>> findPage(Set<Long> statusEnumSet, int page, int size) {
-        log.info("REQUEST-ADAPTER findPage: status={}, page={}, size={}", statusEnumSet, page, size);
+    public Mono<PageResult<RequestBasicAdminInfo>> findPage(Set<Long> statusEnumSet, int page, int size, boolean includeTotal) {
+        log.info("REQUEST-ADAPTER findPage: status={}, page={}, size={}, includeTotal={}", statusEnumSet, page, size, includeTotal);
 
         final int p = Math.max(0, page);
         final int s = Math.max(1, size);
@@ -68,66 +206,136 @@ public class RequestRepositoryAdapter extends ReactiveAdapterOperations<
                 ? List.of()
                 : statusEnumSet.stream().toList();
 
-        final Query base = statusIds.isEmpty()
-                ? Query.empty()
-                : Query.query(Criteria.where("id_estado").in(statusIds));
+        // 2) El total sale de los contadores por estado si hay instantánea; si no, de la ventana (exacto)
+        final Optional<Long> estimatedTotal = includeTotal ? statusCounters.estimate(statusIds) : Optional.empty();
+        final boolean windowTotal = includeTotal && estimatedTotal.isEmpty();
 
-        final Query pageQ = base.limit(s).offset((long) p * s);
+        // 3) Una sola sentencia: página + tasa del tipo de préstamo (+ total por función de ventana)
+        String sql = ADMIN_LIST_SELECT + (windowTotal ? ", COUNT(*) OVER () AS total" : "") + ADMIN_LIST_FROM
+                + (statusIds.isEmpty() ? "" : " WHERE s.id_estado IN (:statusIds)")
+                + " ORDER BY s.id_solicitud LIMIT :limit OFFSET :offset";
 
-        // 2) Traer página de solicitudes
-        Mono<List<RequestEntity>> requestsMono = template.select(RequestEntity.class)
-                .matching(pageQ)
-                .all()
-                .collectList();
-
-        // 3) Conteo total (con el mismo filtro)
-        Mono<Long> totalMono = template.count(base, RequestEntity.class);
-
-        // 4) Componer Read Model
-        return Mono.zip(requestsMono, totalMono)
-                .flatMap(tuple -> {
-                    List<RequestEntity> requests = tuple.getT1();
-                    long totalElements = tuple.getT2();
-
-                    // 4.a) IDs únicos de tipo de préstamo en la página
-                    Set<Long> typeLoanIds = requests.stream()
-                            .map(RequestEntity::getTypeLoanId)
-                            .filter(Objects::nonNull)
-                            .collect(Collectors.toCollection(LinkedHashSet::new));
-
-                    // 4.b) Traer tipos de préstamo solo si hay ids
-                    Mono<Map<Long, LoanTypeEntity>> loanTypesMono = typeLoanIds.isEmpty()
-                            ? Mono.just(Collections.emptyMap())
-                            : template.select(LoanTypeEntity.class)
-                            .matching(Query.query(Criteria.where("id_tipo_prestamo").in(typeLoanIds)))
-                            .all()
-                            .collectMap(LoanTypeEntity::getId, Function.identity());
-
-                    // 4.c) Enriquecer DTOs
-                    return loanTypesMono.map(loanTypes -> {
-                        List<RequestBasicAdminInfo> content = requests.stream()
-                                .map(r -> {
-                                    LoanTypeEntity lt = loanTypes.get(r.getTypeLoanId());
-                                    return RequestBasicAdminInfo.builder()
-                                            .id(r.getId() != null ? r.getId() : null)
-                                            .amount(r.getAmount())
-                                            .term(r.getTerm())
-                                            .email(r.getEmail())
-                                            .statusId(r.getStatusId())
-                                            .typeLoanId(r.getTypeLoanId())
-                                            .interestRate(lt != null ? lt.getInterestRate() : null)
-                                            .monthlyDebt(r.getMonthlyDebt())
-                                            // clientName, baseSalary, calculated se completan en otra capa si aplica
-                                            .build();
-                                })
-                                .toList();
+        DatabaseClient.GenericExecuteSpec spec = template.getDatabaseClient().sql(sql)
+                .bind("limit", s)
+                .bind("offset", (long) p * s);
+        if (!statusIds.isEmpty()) {
+            spec = spec.bind("statusIds", statusIds);
+        }
 
+        return spec.map((row, meta) -> readAdminRow(row, windowTotal))
+                .all()
+                .collectList()
+                .flatMap(rows -> {
+                    if (!includeTotal) {
+                        return Mono.just(new PageResult<>(toAdminInfo(rows), p, s, -1L, -1, TotalAccuracy.SKIPPED));
+                    }
+                    if (estimatedTotal.isPresent()) {
+                        long totalElements = estimatedTotal.get();
+                        int totalPages = (int) Math.ceil(totalElements / (double) s);
+                        return Mono.just(new PageResult<>(toAdminInfo(rows), p, s, totalElements, totalPages, TotalAccuracy.ESTIMATED));
+                    }
+                    // 4) Una página vacía no trae el total en la ventana; solo entonces se cuenta aparte
+                    Mono<Long> totalMono = rows.isEmpty()
+                            ? (p == 0 ? Mono.just(0L) : template.count(statusIds.isEmpty()
+                                    ? Query.empty()
+                                    : Query.query(Criteria.where("id_estado").in(statusIds)), RequestEntity.class))
+                            : Mono.just(rows.get(0).getTotal());
+                    return totalMono.map(totalElements -> {
                         int totalPages = (int) Math.ceil(totalElements / (double) s);
-                        return new PageResult<>(content, p, s, totalElements, totalPages);
+                        return new PageResult<>(toAdminInfo(rows), p, s, totalElements, totalPages, TotalAccuracy.EXACT);
                     });
                 });
     }
 
+    @Override
+    public Mono<CursorPageResult<RequestBasicAdminInfo>> findPageAfter(Set<Long> statusEnumSet, String cursor, int size) {
+        log.info("REQUEST-ADAPTER findPageAfter: status={}, cursor={}, size={}", statusEnumSet, cursor, size);
+
+        final int s = Math.max(1, size);
+        final UUID lastId = decodeCursor(cursor);
+        final boolean filterByStatus = statusEnumSet != null && !statusEnumSet.isEmpty();
+
+        // 1) Filtro por estados y continuación sobre la clave de orden (id_solicitud)
+        List<String> conditions = new ArrayList<>();
+        if (filterByStatus) {
+            conditions.add("s.id_estado IN (:statusIds)");
+        }
+        if (lastId != null) {
+            conditions.add("s.id_solicitud > :lastId");
+        }
+
+        // 2) Se pide una fila extra para saber si hay página siguiente sin contar
+        String sql = ADMIN_LIST_SELECT + ADMIN_LIST_FROM
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+                + " ORDER BY s.id_solicitud LIMIT :limit";
+
+        DatabaseClient.GenericExecuteSpec spec = template.getDatabaseClient().sql(sql)
+                .bind("limit", s + 1);
+        if (filterByStatus) {
+            spec = spec.bind("statusIds", List.copyOf(statusEnumSet));
+        }
+        if (lastId != null) {
+            spec = spec.bind("lastId", lastId);
+        }
+
+        return spec.map((row, meta) -> readAdminRow(row, false))
+                .all()
+                .collectList()
+                .map(rows -> {
+                    boolean hasNext = rows.size() > s;
+                    List<RequestAndLoanTypeEntity> pageRows = hasNext ? rows.subList(0, s) : rows;
+                    String nextCursor = hasNext ? encodeCursor(pageRows.get(pageRows.size() - 1).getIdSolicitud()) : null;
+                    return new CursorPageResult<>(toAdminInfo(pageRows), s, nextCursor, hasNext);
+                });
+    }
+
+    private static RequestAndLoanTypeEntity readAdminRow(Row row, boolean withTotal) {
+        return RequestAndLoanTypeEntity.builder()
+                .idSolicitud(row.get("id_solicitud", UUID.class))
+                .monto(row.get("monto", BigDecimal.class))
+                .plazo(row.get("plazo", Integer.class))
+                .email(row.get("email", String.class))
+                .idEstado(row.get("id_estado", Long.class))
+                .idTipoPrestamo(row.get("id_tipo_prestamo", Long.class))
+                .deudaMensual(row.get("deuda_mensual", BigDecimal.class))
+                .tasaInteres(row.get("tasa_interes", Double.class))
+                .total(withTotal ? row.get("total", Long.class) : null)
+                .build();
+    }
+
+    private static List<RequestBasicAdminInfo> toAdminInfo(List<RequestAndLoanTypeEntity> rows) {
+        return rows.stream()
+                .map(r -> RequestBasicAdminInfo.builder()
+                        .id(r.getIdSolicitud())
+                        .amount(r.getMonto())
+                        .term(r.getPlazo())
+                        .email(r.getEmail())
+                        .statusId(r.getIdEstado())
+                        .typeLoanId(r.getIdTipoPrestamo())
+                        .interestRate(r.getTasaInteres())
+                        .monthlyDebt(r.getDeudaMensual())
+                        // clientName, baseSalary, calculated se completan en otra capa si aplica
+                        .build())
+                .toList();
+    }
+
+    private static String encodeCursor(UUID lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(lastId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** El cursor es opaco para el cliente; vacío o null significa "desde el inicio". */
+    private static UUID decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid cursor");
+        }
+    }
+
     @Override
     public Mono<List<RequestDomain>> getRequestFromUserByStatusId(String email, Long statusId) {
         return repository.findAllByEmailAndStatusId(email, statusId)   // Flux<RequestEntity>
@@ -6,6 +6,7 @@ import org.springframework.data.relational.core.mapping.Column;
 import java.math.BigDecimal;
 import java.util.UUID;
 
+/** Proyección de solicitud + tipo_prestamo usada por el listado administrativo. */
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
@@ -25,11 +26,18 @@ public class RequestAndLoanTypeEntity {
     private String email;
 
     @Column("id_estado")
-    private String idEstado;
+    private Long idEstado;
 
     @Column("id_tipo_prestamo")
     private Long idTipoPrestamo;
 
+    @Column("deuda_mensual")
+    private BigDecimal deudaMensual;
+
     @Column("tasa_interes")
-    private BigDecimal tasaInteres;
+    private Double tasaInteres;
+
+    /** Total de filas que cumplen el filtro (COUNT(*) OVER ()), solo en la consulta paginada por offset. */
+    @Column("total")
+    private Long total;
 }
@@ -0,0 +1,156 @@
+package co.com.pedrorido.r2dbc.helper;
+
+import co.com.pedrorido.model.loantype.LoanType;
+import co.com.pedrorido.r2dbc.entity.LoanTypeEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.reactivecommons.utils.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Catálogo en memoria de tipo_prestamo. La tabla casi no cambia, así que se carga completa
+ * en una instantánea inmutable que se reemplaza de forma atómica. Cuando la instantánea
+ * supera el intervalo configurado se compara en segundo plano un hash (md5) del contenido
+ * de la tabla y solo se recarga si cambió; un id desconocido se resuelve contra la base
+ * y adelanta la verificación, como mucho una vez por intervalo. Las llamadas concurrentes
+ * comparten una sola verificación en curso.
+ */
+@Log4j2
+@Component
+public class LoanTypeCatalog {
+    private static final String VERSION_SQL =
+            "SELECT md5(COALESCE(string_agg(t::text, '|' ORDER BY t.id_tipo_prestamo), '')) AS version FROM tipo_prestamo t";
+
+    private final R2dbcEntityTemplate template;
+    private final ObjectMapper mapper;
+    private final Duration checkInterval;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean checking = new AtomicBoolean(false);
+    private final AtomicReference<Instant> lastMissCheck = new AtomicReference<>(Instant.EPOCH);
+    // Una sola verificación en curso compartida; no se guarda el resultado (cada suscripción
+    // posterior vuelve a verificar) y un error tampoco, así que el siguiente llamador reintenta
+    private final Mono<Snapshot> sharedCheck;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter reloads;
+    private final Counter unchanged;
+    private final Counter failures;
+
+    public LoanTypeCatalog(R2dbcEntityTemplate template, ObjectMapper mapper, MeterRegistry registry,
+                           @Value("${adapters.r2dbc.loanTypeCatalogCheck:30s}") Duration checkInterval) {
+        this.template = template;
+        this.mapper = mapper;
+        this.checkInterval = checkInterval;
+        this.sharedCheck = Mono.defer(this::checkVersion).cacheInvalidateIf(loaded -> true);
+        this.hits = registry.counter("loan_type_catalog.lookups", "result", "hit");
+        this.misses = registry.counter("loan_type_catalog.lookups", "result", "miss");
+        this.reloads = registry.counter("loan_type_catalog.refresh", "outcome", "reloaded");
+        this.unchanged = registry.counter("loan_type_catalog.refresh", "outcome", "unchanged");
+        this.failures = registry.counter("loan_type_catalog.refresh", "outcome", "failed");
+        registry.gauge("loan_type_catalog.size", snapshot, ref -> ref.get() == null ? 0 : ref.get().byId().size());
+    }
+
+    /** Precarga al arrancar para que la primera solicitud no pague la lectura del catálogo. */
+    @EventListener(ContextRefreshedEvent.class)
+    public void preload() {
+        checkInBackground();
+    }
+
+    /** Tipo de préstamo desde la instantánea; vacío si no está (el llamador decide si ir a la base). */
+    public Mono<LoanType> find(Long id) {
+        return current().flatMap(loaded -> {
+            LoanType loanType = id == null ? null : loaded.byId().get(id);
+            if (loanType == null) {
+                misses.increment();
+                checkOnMiss();
+                return Mono.empty();
+            }
+            hits.increment();
+            return Mono.just(loanType.toBuilder().build());
+        });
+    }
+
+    /** Lanza una verificación de versión si no hay otra en curso; los errores solo se registran. */
+    public void checkInBackground() {
+        if (!checking.compareAndSet(false, true)) {
+            return;
+        }
+        sharedCheck
+                .doFinally(signal -> checking.set(false))
+                .subscribe(
+                        loaded -> log.debug("LOAN-TYPE-CATALOG version={} size={}", loaded.version(), loaded.byId().size()),
+                        error -> {
+                            failures.increment();
+                            log.error("LOAN-TYPE-CATALOG refresh failed: {}", error.getMessage());
+                        });
+    }
+
+    /** Un id desconocido puede ser un tipo recién creado; se verifica como mucho una vez por intervalo. */
+    private void checkOnMiss() {
+        Instant now = Instant.now();
+        Instant last = lastMissCheck.get();
+        if (last.plus(checkInterval).isAfter(now) || !lastMissCheck.compareAndSet(last, now)) {
+            return;
+        }
+        checkInBackground();
+    }
+
+    private Mono<Snapshot> current() {
+        Snapshot loaded = snapshot.get();
+        if (loaded == null) {
+            // Sin instantánea aún (la precarga falló o no terminó): carga en línea compartida
+            return sharedCheck;
+        }
+        if (loaded.checkedAt().plus(checkInterval).isBefore(Instant.now())) {
+            checkInBackground();
+        }
+        return Mono.just(loaded);
+    }
+
+    private Mono<Snapshot> checkVersion() {
+        return template.getDatabaseClient().sql(VERSION_SQL)
+                .map((row, meta) -> row.get("version", String.class))
+                .one()
+                .flatMap(version -> {
+                    Snapshot loaded = snapshot.get();
+                    if (loaded != null && Objects.equals(loaded.version(), version)) {
+                        unchanged.increment();
+                        Snapshot touched = new Snapshot(loaded.byId(), version, Instant.now());
+                        snapshot.compareAndSet(loaded, touched);
+                        return Mono.just(touched);
+                    }
+                    return load(version);
+                });
+    }
+
+    private Mono<Snapshot> load(String version) {
+        return template.select(LoanTypeEntity.class).all()
+                .map(entity -> mapper.map(entity, LoanType.class))
+                .collect(Collectors.toUnmodifiableMap(LoanType::getId, Function.identity()))
+                .map(byId -> new Snapshot(byId, version, Instant.now()))
+                .doOnNext(loaded -> {
+                    snapshot.set(loaded);
+                    reloads.increment();
+                    log.info("LOAN-TYPE-CATALOG reloaded: {} tipos, version={}", loaded.byId().size(), version);
+                });
+    }
+
+    private record Snapshot(Map<Long, LoanType> byId, String version, Instant checkedAt) {
+    }
+}
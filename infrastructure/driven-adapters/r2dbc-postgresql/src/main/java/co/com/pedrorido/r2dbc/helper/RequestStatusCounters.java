@@ -0,0 +1,122 @@
+package co.com.pedrorido.r2dbc.helper;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Contadores de solicitudes por estado para el total del listado administrativo.
+ * Se ajustan en memoria con cada alta o cambio de estado una vez confirmado
+ * ({@link #afterCommit}) y se recalculan con un
+ * GROUP BY fuera del camino de la petición cuando la instantánea supera el intervalo
+ * configurado, de modo que el listado no ejecuta un COUNT(*) por llamada.
+ */
+@Log4j2
+@Component
+public class RequestStatusCounters {
+    private static final String COUNT_BY_STATUS_SQL = "SELECT id_estado, COUNT(*) AS total FROM solicitud GROUP BY id_estado";
+
+    private final R2dbcEntityTemplate template;
+    private final Duration refreshInterval;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    public RequestStatusCounters(R2dbcEntityTemplate template,
+                                 @Value("${adapters.r2dbc.statusCountsRefresh:60s}") Duration refreshInterval) {
+        this.template = template;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /** Total estimado para los estados dados (todos si la colección es vacía); vacío si aún no hay instantánea. */
+    public Optional<Long> estimate(Collection<Long> statusIds) {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            refreshInBackground();
+            return Optional.empty();
+        }
+        if (current.loadedAt().plus(refreshInterval).isBefore(Instant.now())) {
+            refreshInBackground();
+        }
+        long total = current.counts().entrySet().stream()
+                .filter(e -> statusIds == null || statusIds.isEmpty() || statusIds.contains(e.getKey()))
+                .mapToLong(e -> Math.max(0, e.getValue().get()))
+                .sum();
+        return Optional.of(total);
+    }
+
+    public void increment(Long statusId) {
+        Snapshot current = snapshot.get();
+        if (current != null && statusId != null) {
+            current.counts().computeIfAbsent(statusId, k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    public void transition(Long fromStatusId, Long toStatusId) {
+        Snapshot current = snapshot.get();
+        if (current == null || fromStatusId == null || toStatusId == null || fromStatusId.equals(toStatusId)) {
+            return;
+        }
+        current.counts().computeIfAbsent(fromStatusId, k -> new AtomicLong()).decrementAndGet();
+        current.counts().computeIfAbsent(toStatusId, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Aplica el ajuste cuando la transacción en curso confirma; si se revierte no se aplica.
+     * Fuera de una transacción la sentencia ya quedó confirmada y el ajuste va de inmediato.
+     */
+    public Mono<Void> afterCommit(Runnable delta) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .flatMap(sync -> {
+                    if (!sync.isSynchronizationActive()) {
+                        return Mono.fromRunnable(delta);
+                    }
+                    sync.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public Mono<Void> afterCommit() {
+                            return Mono.fromRunnable(delta);
+                        }
+                    });
+                    return Mono.<Void>empty();
+                })
+                .onErrorResume(NoTransactionException.class, e -> Mono.fromRunnable(delta));
+    }
+
+    /** Lanza un recálculo si no hay otro en curso; los errores solo se registran. */
+    public void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        refresh()
+                .doFinally(signal -> refreshing.set(false))
+                .subscribe(
+                        loaded -> log.debug("STATUS-COUNTERS refreshed: {}", loaded.counts()),
+                        error -> log.error("STATUS-COUNTERS refresh failed: {}", error.getMessage()));
+    }
+
+    private Mono<Snapshot> refresh() {
+        return template.getDatabaseClient().sql(COUNT_BY_STATUS_SQL)
+                .map((row, meta) -> Map.entry(row.get("id_estado", Long.class), row.get("total", Long.class)))
+                .all()
+                .collectMap(Map.Entry::getKey, e -> new AtomicLong(e.getValue()), ConcurrentHashMap::new)
+                .map(counts -> new Snapshot(counts, Instant.now()))
+                .doOnNext(snapshot::set);
+    }
+
+    private record Snapshot(Map<Long, AtomicLong> counts, Instant loadedAt) {
+    }
+}
@@ -0,0 +1,65 @@
+package co.com.pedrorido.r2dbc;
+
+import co.com.pedrorido.model.loantype.LoanType;
+import co.com.pedrorido.r2dbc.helper.LoanTypeCatalog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivecommons.utils.ObjectMapperImp;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LoanTypeCatalogTest extends PostgresContainerTest {
+    private static final int PARALLEL_CALLS = 16;
+
+    private SimpleMeterRegistry registry;
+    private LoanTypeCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        execute("TRUNCATE tipo_prestamo");
+        execute("INSERT INTO tipo_prestamo (id_tipo_prestamo, nombre, monto_minimo, monto_maximo, tasa_interes) "
+                + "VALUES (1, 'Libre inversión', 1000, 50000, 0.02)");
+        registry = new SimpleMeterRegistry();
+        catalog = new LoanTypeCatalog(template, new ObjectMapperImp(), registry, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void concurrentColdLookupsShareASingleLoad() {
+        List<LoanType> found = Flux.range(0, PARALLEL_CALLS)
+                .flatMap(i -> catalog.find(1L), PARALLEL_CALLS)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(PARALLEL_CALLS, found.size());
+        assertEquals(1.0, refreshes("reloaded"));
+        assertEquals(0.0, refreshes("unchanged"));
+    }
+
+    @Test
+    void missesCheckTheVersionAtMostOncePerInterval() {
+        catalog.find(1L).block(Duration.ofSeconds(10));
+
+        catalog.find(99L).block(Duration.ofSeconds(10));
+        // La verificación adelantada por el primer fallo corre en segundo plano
+        Mono.fromSupplier(() -> refreshes("unchanged"))
+                .filter(count -> count > 0)
+                .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(50)))
+                .block(Duration.ofSeconds(10));
+
+        Flux.range(0, PARALLEL_CALLS).concatMap(i -> catalog.find(99L)).blockLast(Duration.ofSeconds(10));
+        Mono.delay(Duration.ofMillis(200)).block();
+
+        assertEquals(1.0, refreshes("reloaded"));
+        assertEquals(1.0, refreshes("unchanged"));
+    }
+
+    private double refreshes(String outcome) {
+        return registry.counter("loan_type_catalog.refresh", "outcome", outcome).count();
+    }
+}
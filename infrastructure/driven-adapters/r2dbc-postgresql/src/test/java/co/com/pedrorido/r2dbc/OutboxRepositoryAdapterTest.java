@@ -0,0 +1,76 @@
+package co.com.pedrorido.r2dbc;
+
+import co.com.pedrorido.model.outbox.OutboxEvent;
+import io.r2dbc.spi.Connection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OutboxRepositoryAdapterTest extends PostgresContainerTest {
+    private static final Duration LEASE = Duration.ofSeconds(30);
+
+    private OutboxRepositoryAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        execute("TRUNCATE outbox_evento");
+        adapter = new OutboxRepositoryAdapter(template);
+    }
+
+    @Test
+    void onlyTheHeadOfEachAggregateIsClaimed() {
+        long x1 = insert("X");
+        long y1 = insert("Y");
+        long x2 = insert("X");
+
+        assertEquals(List.of(x1, y1), ids(adapter.claimBatch(10, LEASE)));
+        // X2 espera a que X1 se publique aunque su lease siga vigente o venza
+        assertEquals(List.of(), ids(adapter.claimBatch(10, LEASE)));
+
+        adapter.markPublished(List.of(x1)).block(Duration.ofSeconds(10));
+        assertEquals(List.of(x2), ids(adapter.claimBatch(10, LEASE)));
+    }
+
+    @Test
+    void overlappingClaimDoesNotOvertakeAnUncommittedHead() {
+        long x1 = insert("X");
+        long y1 = insert("Y");
+        insert("X");
+
+        // Instancia A: tiene X1 bloqueado y su lease aún sin confirmar
+        Connection instanceA = Mono.from(connectionFactory.create()).block(Duration.ofSeconds(10));
+        try {
+            Mono.from(instanceA.beginTransaction()).block(Duration.ofSeconds(10));
+            Flux.from(instanceA.createStatement(
+                            "UPDATE outbox_evento SET bloqueado_hasta = now() + interval '30 seconds', intentos = intentos + 1 WHERE id = $1")
+                    .bind("$1", x1)
+                    .execute())
+                    .flatMap(result -> result.getRowsUpdated())
+                    .blockLast(Duration.ofSeconds(10));
+
+            // Instancia B: SKIP LOCKED salta X1 y X2 no es cabeza de su agregado
+            assertEquals(List.of(y1), ids(adapter.claimBatch(10, LEASE)));
+        } finally {
+            Mono.from(instanceA.rollbackTransaction()).then(Mono.from(instanceA.close())).block(Duration.ofSeconds(10));
+        }
+    }
+
+    private static long insert(String aggregate) {
+        return template.getDatabaseClient()
+                .sql("INSERT INTO outbox_evento (clave_agregado, tipo, payload) VALUES (:key, 'REQUEST_STATUS_CHANGE', '{}') RETURNING id")
+                .bind("key", aggregate)
+                .map((row, meta) -> row.get("id", Long.class))
+                .one()
+                .block(Duration.ofSeconds(10));
+    }
+
+    private static List<Long> ids(Flux<OutboxEvent> claimed) {
+        return claimed.map(OutboxEvent::getId).collectList().block(Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,55 @@
+package co.com.pedrorido.r2dbc;
+
+import co.com.pedrorido.r2dbc.config.PostgreSQLConnectionPool;
+import co.com.pedrorido.r2dbc.config.PostgresqlConnectionProperties;
+import io.r2dbc.pool.ConnectionPool;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Base de las pruebas que necesitan el SQL real (bloqueos, SKIP LOCKED, compare-and-set):
+ * un Postgres en contenedor con el pool de la aplicación y el esquema de {@code db/schema.sql}.
+ * Sin Docker las pruebas se omiten.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+abstract class PostgresContainerTest {
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static ConnectionPool connectionFactory;
+    static R2dbcEntityTemplate template;
+
+    @BeforeAll
+    static void connect() throws IOException {
+        connectionFactory = new PostgreSQLConnectionPool().getConnectionConfig(new PostgresqlConnectionProperties(
+                POSTGRES.getHost(), POSTGRES.getMappedPort(PostgreSQLConnectionPool.DEFAULT_PORT), POSTGRES.getDatabaseName(),
+                "public", POSTGRES.getUsername(), POSTGRES.getPassword()));
+        template = new R2dbcEntityTemplate(connectionFactory);
+        try (InputStream in = PostgresContainerTest.class.getResourceAsStream("/db/schema.sql")) {
+            String schema = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            Flux.fromStream(Arrays.stream(schema.split(";")).map(String::strip).filter(sql -> !sql.isEmpty()))
+                    .concatMap(sql -> template.getDatabaseClient().sql(sql).then())
+                    .blockLast(Duration.ofSeconds(30));
+        }
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.dispose();
+    }
+
+    static void execute(String sql) {
+        template.getDatabaseClient().sql(sql).then().block(Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,124 @@
+package co.com.pedrorido.r2dbc;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProcessedMessageRepositoryAdapterTest extends PostgresContainerTest {
+    private static final Duration LONG_TTL = Duration.ofHours(1);
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        execute("TRUNCATE mensaje_procesado");
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void firstClaimWinsAndAnotherInstanceSeesTheDuplicateInTheDatabase() {
+        ProcessedMessageRepositoryAdapter instanceA = adapter(100, LONG_TTL);
+        ProcessedMessageRepositoryAdapter instanceB = adapter(100, LONG_TTL);
+
+        assertTrue(claim(instanceA, "m-1", "k-1"));
+        // Otra entrega del mismo evento (otro messageId) en una instancia sin caché: ON CONFLICT DO NOTHING
+        assertFalse(claim(instanceB, "m-2", "k-1"));
+        // Y la misma entrega reintentada con otra clave choca por message_id
+        assertFalse(claim(instanceB, "m-1", "k-2"));
+
+        assertEquals(1.0, lookups("new"));
+        assertEquals(2.0, lookups("db_duplicate"));
+        assertEquals(0.0, lookups("cache_hit"));
+    }
+
+    @Test
+    void duplicatesAreAnsweredFromTheCacheWithoutTheDatabase() {
+        ProcessedMessageRepositoryAdapter adapter = adapter(100, LONG_TTL);
+        assertTrue(claim(adapter, "m-1", "k-1"));
+
+        // Sin la fila, solo la caché puede reconocer el duplicado (por clave o por messageId)
+        execute("TRUNCATE mensaje_procesado");
+        assertFalse(claim(adapter, "m-2", "k-1"));
+        assertFalse(claim(adapter, "m-1", "k-9"));
+
+        assertEquals(2.0, lookups("cache_hit"));
+        assertEquals(0L, rows());
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted() {
+        // Cada claim guarda dos entradas (messageId y clave): con tamaño 2 solo queda la última
+        ProcessedMessageRepositoryAdapter adapter = adapter(2, LONG_TTL);
+        assertTrue(claim(adapter, "m-1", "k-1"));
+        assertTrue(claim(adapter, "m-2", "k-2"));
+        execute("TRUNCATE mensaje_procesado");
+
+        assertTrue(claim(adapter, "m-1", "k-1"));
+        assertFalse(claim(adapter, "m-1", "k-1"));
+        assertEquals(1.0, lookups("cache_hit"));
+    }
+
+    @Test
+    void expiredEntriesFallBackToTheDatabase() {
+        ProcessedMessageRepositoryAdapter adapter = adapter(100, Duration.ofMillis(100));
+        assertTrue(claim(adapter, "m-1", "k-1"));
+        execute("TRUNCATE mensaje_procesado");
+
+        Mono.delay(Duration.ofMillis(200)).block();
+
+        assertTrue(claim(adapter, "m-1", "k-1"));
+        assertEquals(0.0, lookups("cache_hit"));
+        assertEquals(2.0, lookups("new"));
+    }
+
+    @Test
+    void cacheIsFilledOnlyWhenTheClaimCommits() {
+        ProcessedMessageRepositoryAdapter adapter = adapter(100, LONG_TTL);
+        TransactionalOperator tx = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+
+        Boolean rolledBack = tx.execute(status -> {
+                    status.setRollbackOnly();
+                    return adapter.claim("m-1", "k-1");
+                })
+                .single()
+                .block(Duration.ofSeconds(10));
+        assertTrue(rolledBack);
+        assertEquals(0L, rows());
+        // Nada en caché ni en base: la reentrega se procesa
+        assertTrue(tx.transactional(adapter.claim("m-1", "k-1")).block(Duration.ofSeconds(10)));
+        assertEquals(0.0, lookups("cache_hit"));
+
+        // Confirmado: ahora sí queda en caché
+        execute("TRUNCATE mensaje_procesado");
+        assertFalse(claim(adapter, "m-1", "k-1"));
+        assertEquals(1.0, lookups("cache_hit"));
+    }
+
+    private ProcessedMessageRepositoryAdapter adapter(int cacheSize, Duration cacheTtl) {
+        return new ProcessedMessageRepositoryAdapter(template, registry, cacheSize, cacheTtl, Duration.ofDays(7), Duration.ofHours(1));
+    }
+
+    private static boolean claim(ProcessedMessageRepositoryAdapter adapter, String messageId, String key) {
+        return adapter.claim(messageId, key).block(Duration.ofSeconds(10));
+    }
+
+    private double lookups(String result) {
+        return registry.counter("processed_message.lookups", "result", result).count();
+    }
+
+    private static long rows() {
+        return template.getDatabaseClient().sql("SELECT COUNT(*) AS total FROM mensaje_procesado")
+                .map((row, meta) -> row.get("total", Long.class))
+                .one()
+                .block(Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,139 @@
+package co.com.pedrorido.r2dbc;
+
+import co.com.pedrorido.model.requestdomain.RequestDomain;
+import co.com.pedrorido.model.requestdomain.StatusTransition;
+import co.com.pedrorido.model.utils.StatusEnum;
+import co.com.pedrorido.r2dbc.helper.RequestStatusCounters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import org.reactivecommons.utils.ObjectMapper;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compare-and-set de estados contra el SQL real: llamadas paralelas, cada una en su propia
+ * conexión del pool, sobre las mismas solicitudes en PENDING.
+ */
+class RequestRepositoryAdapterTest extends PostgresContainerTest {
+    private static final int PARALLEL_CALLS = 32;
+    private static final BigDecimal MONTHLY_DEBT = new BigDecimal("450.00");
+
+    private RequestStatusCounters counters;
+    private RequestRepositoryAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        execute("TRUNCATE solicitud, deuda_cliente");
+        counters = new RequestStatusCounters(template, Duration.ofMinutes(1));
+        adapter = new RequestRepositoryAdapter(mock(RequestReactiveRepository.class), mock(ObjectMapper.class), template,
+                counters, new DebtLedgerRepositoryAdapter(template));
+    }
+
+    @RepeatedTest(5)
+    void exactlyOneParallelTransitionWins() {
+        UUID id = insertPending("a@x.com");
+
+        List<RequestDomain> winners = Flux.range(0, PARALLEL_CALLS)
+                .flatMap(i -> i % 2 == 0
+                        ? adapter.updateStatusIfPending(id, StatusEnum.APPROVED.getId(), MONTHLY_DEBT)
+                        : adapter.updateStatusIfPending(id, StatusEnum.REJECTED.getId(), null), PARALLEL_CALLS)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        assertEquals(1, winners.size());
+        Long status = statusOf(id);
+        assertNotEquals(StatusEnum.PENDING.getId(), status);
+        assertEquals(winners.get(0).getStatusId(), status);
+        // La deuda del cliente se suma una sola vez, y solo si ganó la aprobación
+        assertEquals(StatusEnum.APPROVED.getId().equals(status) ? Optional.of(1) : Optional.empty(), approvedCount("a@x.com"));
+    }
+
+    @Test
+    void parallelBatchesApplyEachTransitionOnce() {
+        List<UUID> ids = IntStream.range(0, 10).mapToObj(i -> insertPending("b@x.com")).toList();
+        List<StatusTransition> approvals = ids.stream()
+                .map(id -> new StatusTransition(id, StatusEnum.APPROVED.getId(), MONTHLY_DEBT))
+                .toList();
+
+        List<RequestDomain> updated = Flux.range(0, PARALLEL_CALLS)
+                .flatMap(i -> adapter.updateStatusesIfPending(approvals), PARALLEL_CALLS)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        assertEquals(ids.size(), updated.size());
+        assertEquals(ids.size(), updated.stream().map(RequestDomain::getId).distinct().count());
+        assertEquals(Optional.of(ids.size()), approvedCount("b@x.com"));
+    }
+
+    @Test
+    void countersOnlyMoveWhenTheTransitionCommits() {
+        UUID id = insertPending("c@x.com");
+        assertEquals(1L, pendingCount());
+
+        TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory))
+                .execute(status -> {
+                    status.setRollbackOnly();
+                    return adapter.updateStatusIfPending(id, StatusEnum.REJECTED.getId(), null);
+                })
+                .blockLast(Duration.ofSeconds(10));
+        assertEquals(StatusEnum.PENDING.getId(), statusOf(id));
+        assertEquals(1L, pendingCount());
+
+        TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory))
+                .transactional(adapter.updateStatusIfPending(id, StatusEnum.REJECTED.getId(), null))
+                .block(Duration.ofSeconds(10));
+        assertEquals(0L, pendingCount());
+    }
+
+    /** Espera la primera instantánea de los contadores y devuelve las solicitudes en PENDING. */
+    private long pendingCount() {
+        return Mono.fromSupplier(() -> counters.estimate(List.of(StatusEnum.PENDING.getId())))
+                .filter(Optional::isPresent)
+                .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(50)))
+                .map(Optional::get)
+                .block(Duration.ofSeconds(10));
+    }
+
+    private static UUID insertPending(String email) {
+        UUID id = UUID.randomUUID();
+        template.getDatabaseClient()
+                .sql("INSERT INTO solicitud (id_solicitud, monto, plazo, email, id_estado, id_tipo_prestamo) "
+                        + "VALUES (:id, 10000, 12, :email, :pendingId, 1)")
+                .bind("id", id)
+                .bind("email", email)
+                .bind("pendingId", StatusEnum.PENDING.getId())
+                .then()
+                .block(Duration.ofSeconds(10));
+        return id;
+    }
+
+    private static Long statusOf(UUID id) {
+        return template.getDatabaseClient().sql("SELECT id_estado FROM solicitud WHERE id_solicitud = :id")
+                .bind("id", id)
+                .map((row, meta) -> row.get("id_estado", Long.class))
+                .one()
+                .block(Duration.ofSeconds(10));
+    }
+
+    private static Optional<Integer> approvedCount(String email) {
+        return template.getDatabaseClient().sql("SELECT cantidad_aprobadas FROM deuda_cliente WHERE email = :email")
+                .bind("email", email)
+                .map((row, meta) -> row.get("cantidad_aprobadas", Integer.class))
+                .one()
+                .blockOptional(Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,48 @@
+-- Esquema mínimo para las pruebas contra Postgres (las tablas nuevas replican deployment/db)
+CREATE TABLE IF NOT EXISTS solicitud (
+    id_solicitud     UUID           PRIMARY KEY,
+    monto            NUMERIC(19, 2) NOT NULL,
+    plazo            INTEGER        NOT NULL,
+    email            VARCHAR(255)   NOT NULL,
+    id_estado        BIGINT         NOT NULL,
+    id_tipo_prestamo BIGINT,
+    deuda_mensual    NUMERIC(19, 2)
+);
+
+CREATE TABLE IF NOT EXISTS tipo_prestamo (
+    id_tipo_prestamo      BIGINT           PRIMARY KEY,
+    nombre                VARCHAR(255)     NOT NULL,
+    monto_minimo          NUMERIC(19, 2)   NOT NULL,
+    monto_maximo          NUMERIC(19, 2)   NOT NULL,
+    tasa_interes          DOUBLE PRECISION NOT NULL,
+    validacion_automatica BOOLEAN          NOT NULL DEFAULT false
+);
+
+CREATE TABLE IF NOT EXISTS deuda_cliente (
+    email               VARCHAR(255)             PRIMARY KEY,
+    deuda_mensual_total NUMERIC(19, 2)           NOT NULL DEFAULT 0,
+    cantidad_aprobadas  INTEGER                  NOT NULL DEFAULT 0,
+    deudas              JSONB                    NOT NULL DEFAULT '{}'::jsonb,
+    fecha_actualizacion TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+CREATE TABLE IF NOT EXISTS outbox_evento (
+    id              BIGSERIAL                PRIMARY KEY,
+    clave_agregado  VARCHAR(64)              NOT NULL,
+    tipo            VARCHAR(64)              NOT NULL,
+    payload         TEXT                     NOT NULL,
+    intentos        INTEGER                  NOT NULL DEFAULT 0,
+    bloqueado_hasta TIMESTAMP WITH TIME ZONE,
+    ultimo_error    TEXT,
+    creado_en       TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_evento_clave_id ON outbox_evento (clave_agregado, id);
+
+CREATE TABLE IF NOT EXISTS mensaje_procesado (
+    clave        VARCHAR(128)             PRIMARY KEY,
+    message_id   VARCHAR(128),
+    procesado_en TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_mensaje_procesado_message_id ON mensaje_procesado (message_id);
@@ -1,34 +1,70 @@
 package co.com.pedrorido.consumer;
 
+import co.com.pedrorido.consumer.cache.ResponseCache;
+import co.com.pedrorido.consumer.cache.SingleFlight;
+import co.com.pedrorido.consumer.config.UserBatchProperties;
+import co.com.pedrorido.consumer.hedge.Hedger;
+import co.com.pedrorido.consumer.resilience.ResilienceGuard;
 import co.com.pedrorido.model.external.User;
 import co.com.pedrorido.model.external.gateways.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Cliente del servicio de usuarios. Las consultas pasan por {@link ResponseCache}: la de
+ * usuario por email se indexa también por las authorities del token, así un llamador solo
+ * recibe lo que su propio token podría consultar. Las recargas en segundo plano reusan el
+ * token de la consulta que las disparó. Debajo de la caché, {@link SingleFlight} une las
+ * consultas idénticas simultáneas (misma clave, mismas authorities) en una sola llamada.
+ * {@link #getUsersByEmails} resuelve de la caché lo que puede y pide el resto en lotes al
+ * endpoint masivo; si el servicio no lo expone, usa consultas individuales acotadas.
+ * Las lecturas por email y el lote (idempotentes) pasan por {@link Hedger}. Cada llamada remota
+ * va protegida por {@link ResilienceGuard}; con el breaker abierto se responde desde la caché
+ * (último valor conocido) o degradado: en los listados, {@link #getUsersByEmails} termina en error
+ * tras emitir lo resuelto y el listado se marca como parcial.
+ */
 @Service
 @RequiredArgsConstructor
 @Log4j2
 public class RestConsumer implements UserRepository {
     private final WebClient client;
+    private final ResponseCache<String, User> userByEmailCache;
+    private final ResponseCache<String, Boolean> userExistsCache;
+    private final SingleFlight<String, User> userByEmailFlights;
+    private final SingleFlight<String, Boolean> userExistsFlights;
+    private final UserBatchProperties batchProperties;
+    private final Hedger hedger;
+    private final ResilienceGuard resilienceGuard;
+    private volatile long batchUnsupportedUntil;
 
     @Override
     public Mono<Boolean> userExistsByDocumentNumber(String documentNumber, String email) {
         log.info("WebClient - userExistsByDocumentNumber: {}", documentNumber);
-        return ReactiveSecurityContextHolder.getContext()
-                .map(ctx -> ctx.getAuthentication())
-                .filter(auth -> auth instanceof JwtAuthenticationToken)
-                .cast(JwtAuthenticationToken.class)
-                .switchIfEmpty(Mono.error(new IllegalStateException("missing_jwt_in_context")))
+        return currentJwt()
                 .flatMap(jwtAuth -> {
                     Jwt jwt = jwtAuth.getToken();
                     String claimDoc = firstNonBlankClaim(jwt, "id");
@@ -42,22 +78,11 @@ public class RestConsumer implements UserRepository {
                     }
 
                     String token = jwt.getTokenValue();
-
-                    return client.get()
-                            .uri(uri -> uri.path("/api/v1/users/exist")
-                                    .queryParam("documentNumber", documentNumber)
-                                    .build())
-                            .headers(h -> {
-                                h.remove(HttpHeaders.AUTHORIZATION);
-                                h.setBearerAuth(token);
-                            })
-                            .accept(MediaType.APPLICATION_JSON)
-                            .retrieve()
-                            .bodyToMono(new ParameterizedTypeReference<GeneralResponseDTO<Boolean>>() {
-                            })
-                            .map(resp -> resp != null
-                                    && resp.getData() != null
-                                    && Boolean.TRUE.equals(resp.getData().get("userExists")));
+                    // false se cachea como "no encontrado" (TTL negativo)
+                    String key = normalize(documentNumber);
+                    return userExistsCache.get(key, () -> userExistsFlights.execute(key,
+                                    () -> fetchUserExists(documentNumber, token).filter(Boolean::booleanValue)))
+                            .defaultIfEmpty(false);
                 })
                 .onErrorResume(ex -> (ex instanceof AccessDeniedException)
                         ? Mono.error(ex)
@@ -68,30 +93,10 @@ public class RestConsumer implements UserRepository {
     @Override
     public Mono<User> getUserByEmail(String email) {
         log.info("WebClient - getUserByEmail: {}", email);
-        return ReactiveSecurityContextHolder.getContext()
-                .map(ctx -> ctx.getAuthentication())
-                .filter(auth -> auth instanceof JwtAuthenticationToken)
-                .cast(JwtAuthenticationToken.class)
-                .switchIfEmpty(Mono.error(new IllegalStateException("missing_jwt_in_context")))
-                .flatMap(jwtAuth -> {
-                    Jwt jwt = jwtAuth.getToken();
-                    String token = jwt.getTokenValue();
-
-                    return client.get()
-                            .uri(uri -> uri.path("/api/v1/admin/users/" + email)
-                                    .build())
-                            .headers(h -> {
-                                h.remove(HttpHeaders.AUTHORIZATION);
-                                h.setBearerAuth(token);
-                            })
-                            .accept(MediaType.APPLICATION_JSON)
-                            .retrieve()
-                            .bodyToMono(new ParameterizedTypeReference<GeneralResponseDTO<User>>() {
-                            })
-                            .map(resp -> {
-                                return resp.getData().get("user");
-                            });
-                })
+        return currentJwt()
+                .flatMap(jwtAuth -> lookupUser(email, jwtAuth)
+                        // Copia: el valor cacheado se comparte entre llamadores
+                        .map(user -> user.toBuilder().build()))
                 .onErrorResume(ex ->
                         (ex instanceof AccessDeniedException)
                                 ? Mono.error(ex)
@@ -100,6 +105,183 @@ public class RestConsumer implements UserRepository {
                 );
     }
 
+    /**
+     * Con el servicio caído o el breaker abierto se emiten los usuarios que se pudieron resolver
+     * (incluido el último valor conocido en caché) y el Flux termina con el primer error, para que
+     * el llamador sepa que el resultado está incompleto.
+     */
+    @Override
+    public Flux<User> getUsersByEmails(Set<String> emails) {
+        if (emails.isEmpty()) {
+            return Flux.empty();
+        }
+        log.info("WebClient - getUsersByEmails: {} emails", emails.size());
+        return currentJwt()
+                .flatMapMany(jwtAuth -> {
+                    String token = jwtAuth.getToken().getTokenValue();
+                    AtomicReference<Throwable> unresolved = new AtomicReference<>();
+                    Map<String, String> emailByKey = new LinkedHashMap<>();
+                    emails.forEach(email -> emailByKey.putIfAbsent(userKey(email, jwtAuth), email));
+
+                    Map<String, Optional<User>> cached = userByEmailCache.getAllFresh(emailByKey.keySet());
+                    List<String> missing = new ArrayList<>();
+                    emailByKey.forEach((key, email) -> {
+                        if (!cached.containsKey(key)) {
+                            missing.add(email);
+                        }
+                    });
+                    Flux<User> fromCache = Flux.fromStream(cached.values().stream().flatMap(Optional::stream));
+                    if (missing.isEmpty()) {
+                        return fromCache;
+                    }
+                    return fromCache
+                            .concatWith(batchSupported()
+                                    ? fetchUsersInBatches(missing, token, jwtAuth, unresolved)
+                                    : fetchUsersOneByOne(missing, jwtAuth, unresolved))
+                            .concatWith(Mono.defer(() -> unresolved.get() != null
+                                    ? Mono.<User>error(unresolved.get())
+                                    : Mono.<User>empty()));
+                })
+                .map(user -> user.toBuilder().build());
+    }
+
+    /**
+     * POST al endpoint masivo en lotes de {@code maxSize}; lo no devuelto se cachea como "no encontrado".
+     * Un lote fallido se responde desde la caché y su error queda en {@code unresolved}.
+     */
+    private Flux<User> fetchUsersInBatches(List<String> emails, String token, JwtAuthenticationToken jwtAuth,
+                                           AtomicReference<Throwable> unresolved) {
+        return Flux.fromIterable(emails)
+                .buffer(batchProperties.maxSize())
+                .concatMap(chunk -> hedger.execute("getUsersByEmails", () -> resilienceGuard.protect("getUsersByEmails", client.post()
+                        .uri(uri -> uri.path("/api/v1/admin/users/batch").build())
+                        .headers(h -> {
+                            h.remove(HttpHeaders.AUTHORIZATION);
+                            h.setBearerAuth(token);
+                        })
+                        .accept(MediaType.APPLICATION_JSON)
+                        .bodyValue(Map.of("emails", chunk))
+                        .retrieve()
+                        .bodyToMono(new ParameterizedTypeReference<GeneralResponseDTO<List<User>>>() {
+                        })
+                        .map(resp -> resp.getData() != null && resp.getData().get("users") != null
+                                ? resp.getData().get("users")
+                                : List.<User>of())))
+                        .doOnNext(users -> cacheBatch(chunk, users, jwtAuth))
+                        .flatMapIterable(users -> users)
+                        .onErrorResume(e -> !batchEndpointMissing(e), e -> {
+                            unresolved.compareAndSet(null, e);
+                            return lastKnownUsers(chunk, jwtAuth, e);
+                        })
+                        .onErrorResume(this::batchEndpointMissing, e -> {
+                            batchUnsupportedUntil = System.nanoTime() + batchProperties.unsupportedRetry().toNanos();
+                            log.warn("Users batch endpoint not available ({}), falling back to single lookups", e.getMessage());
+                            return fetchUsersOneByOne(chunk, jwtAuth, unresolved);
+                        }));
+    }
+
+    /** Respuesta degradada del lote: lo que haya en caché, aunque esté vencido. */
+    private Flux<User> lastKnownUsers(List<String> emails, JwtAuthenticationToken jwtAuth, Throwable cause) {
+        log.warn("Users batch lookup failed ({}), serving {} emails from cache only", cause.toString(), emails.size());
+        return Flux.fromIterable(emails)
+                .flatMap(email -> Mono.justOrEmpty(userByEmailCache.getLastKnown(userKey(email, jwtAuth))));
+    }
+
+    private void cacheBatch(List<String> requested, List<User> found, JwtAuthenticationToken jwtAuth) {
+        Map<String, User> byKey = new LinkedHashMap<>();
+        found.stream()
+                .filter(user -> user.getEmail() != null)
+                .forEach(user -> byKey.put(userKey(user.getEmail(), jwtAuth), user));
+        requested.forEach(email -> {
+            String key = userKey(email, jwtAuth);
+            userByEmailCache.put(key, byKey.get(key));
+        });
+    }
+
+    /**
+     * Respaldo sin endpoint masivo: consultas individuales (con caché y coalescencia) en paralelo acotado.
+     * La caché ya responde el último valor conocido si la carga falla; lo que aun así falle queda en
+     * {@code unresolved}.
+     */
+    private Flux<User> fetchUsersOneByOne(List<String> emails, JwtAuthenticationToken jwtAuth, AtomicReference<Throwable> unresolved) {
+        return Flux.fromIterable(emails)
+                .flatMap(email -> lookupUser(email, jwtAuth)
+                        .onErrorResume(e -> {
+                            log.warn("User lookup failed for {}: {}", email, e.toString());
+                            unresolved.compareAndSet(null, e);
+                            return Mono.empty();
+                        }), batchProperties.fallbackConcurrency());
+    }
+
+    /** Usuario por email desde la caché (o el servicio); vacío si no existe y los errores se propagan. */
+    private Mono<User> lookupUser(String email, JwtAuthenticationToken jwtAuth) {
+        String token = jwtAuth.getToken().getTokenValue();
+        String key = userKey(email, jwtAuth);
+        return userByEmailCache.get(key, () -> userByEmailFlights.execute(key, () -> fetchUserByEmail(email, token)));
+    }
+
+    private boolean batchSupported() {
+        return batchUnsupportedUntil == 0 || System.nanoTime() - batchUnsupportedUntil > 0;
+    }
+
+    private boolean batchEndpointMissing(Throwable e) {
+        return e instanceof WebClientResponseException ex
+                && (ex.getStatusCode().isSameCodeAs(HttpStatus.NOT_FOUND)
+                || ex.getStatusCode().isSameCodeAs(HttpStatus.METHOD_NOT_ALLOWED)
+                || ex.getStatusCode().isSameCodeAs(HttpStatus.NOT_IMPLEMENTED));
+    }
+
+    private Mono<Boolean> fetchUserExists(String documentNumber, String token) {
+        return resilienceGuard.protect("userExistsByDocumentNumber", client.get()
+                .uri(uri -> uri.path("/api/v1/users/exist")
+                        .queryParam("documentNumber", documentNumber)
+                        .build())
+                .headers(h -> {
+                    h.remove(HttpHeaders.AUTHORIZATION);
+                    h.setBearerAuth(token);
+                })
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<GeneralResponseDTO<Boolean>>() {
+                })
+                .map(resp -> resp != null
+                        && resp.getData() != null
+                        && Boolean.TRUE.equals(resp.getData().get("userExists"))));
+    }
+
+    /** Vacío si el usuario no existe (404 o respuesta sin datos); los demás errores se propagan. */
+    private Mono<User> fetchUserByEmail(String email, String token) {
+        return hedger.execute("getUserByEmail", () -> resilienceGuard.protect("getUserByEmail", client.get()
+                .uri(uri -> uri.path("/api/v1/admin/users/" + email)
+                        .build())
+                .headers(h -> {
+                    h.remove(HttpHeaders.AUTHORIZATION);
+                    h.setBearerAuth(token);
+                })
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<GeneralResponseDTO<User>>() {
+                })
+                .mapNotNull(resp -> resp.getData() != null ? resp.getData().get("user") : null)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())));
+    }
+
+    private static Mono<JwtAuthenticationToken> currentJwt() {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(ctx -> ctx.getAuthentication())
+                .filter(auth -> auth instanceof JwtAuthenticationToken)
+                .cast(JwtAuthenticationToken.class)
+                .switchIfEmpty(Mono.error(new IllegalStateException("missing_jwt_in_context")));
+    }
+
+    private static String userKey(String email, JwtAuthenticationToken jwtAuth) {
+        String authorities = jwtAuth.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .sorted()
+                .collect(Collectors.joining(","));
+        return email.trim().toLowerCase(Locale.ROOT) + "|" + authorities;
+    }
+
     private static String firstNonBlankClaim(Jwt jwt, String... names) {
         for (String n : names) {
             Object v = jwt.getClaim(n);
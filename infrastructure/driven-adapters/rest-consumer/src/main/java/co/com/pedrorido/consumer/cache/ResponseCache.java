@@ -0,0 +1,177 @@
+package co.com.pedrorido.consumer.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Caché acotada con TTL para respuestas del servicio de usuarios:
+ * <ul>
+ *     <li>Dentro de {@code ttl}: se responde desde la caché.</li>
+ *     <li>Hasta {@code ttl + staleWhileRevalidate}: se responde el valor viejo y se recarga en
+ *     segundo plano (una sola recarga por clave a la vez).</li>
+ *     <li>Hasta {@code ttl + staleIfError}: se recarga como un fallo de caché, pero si la carga
+ *     falla (servicio caído, breaker abierto) se responde el último valor conocido.</li>
+ *     <li>"No encontrado" (loader vacío) se guarda {@code negativeTtl}, normalmente menor.</li>
+ * </ul>
+ * Los errores del loader no se guardan. Por método se exportan
+ * {@code rest.consumer.cache.requests{result=hit|stale|miss|fallback}} (hit ratio) y
+ * {@code rest.consumer.cache.load} (latencia de carga).
+ */
+@Log4j2
+public class ResponseCache<K, V> {
+    private final String method;
+    private final Duration ttl;
+    private final Duration revalidateUntil;
+    private final Cache<K, Entry<V>> cache;
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+    private final Counter hits;
+    private final Counter stale;
+    private final Counter misses;
+    private final Counter fallbacks;
+    private final Timer loads;
+
+    public ResponseCache(String method, long maxSize, Duration ttl, Duration staleWhileRevalidate,
+                         Duration negativeTtl, MeterRegistry registry) {
+        this(method, maxSize, ttl, staleWhileRevalidate, Duration.ZERO, negativeTtl, registry);
+    }
+
+    public ResponseCache(String method, long maxSize, Duration ttl, Duration staleWhileRevalidate,
+                         Duration staleIfError, Duration negativeTtl, MeterRegistry registry) {
+        this.method = method;
+        this.ttl = ttl;
+        this.revalidateUntil = ttl.plus(staleWhileRevalidate);
+        Duration retention = ttl.plus(staleWhileRevalidate.compareTo(staleIfError) >= 0 ? staleWhileRevalidate : staleIfError);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<K, Entry<V>>() {
+                    @Override
+                    public long expireAfterCreate(K key, Entry<V> entry, long currentTime) {
+                        return (entry.value() == null ? negativeTtl : retention).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(K key, Entry<V> entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(K key, Entry<V> entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.hits = registry.counter("rest.consumer.cache.requests", "method", method, "result", "hit");
+        this.stale = registry.counter("rest.consumer.cache.requests", "method", method, "result", "stale");
+        this.misses = registry.counter("rest.consumer.cache.requests", "method", method, "result", "miss");
+        this.fallbacks = registry.counter("rest.consumer.cache.requests", "method", method, "result", "fallback");
+        this.loads = registry.timer("rest.consumer.cache.load", "method", method);
+        registry.gauge("rest.consumer.cache.size", Tags.of("method", method), cache, Cache::estimatedSize);
+    }
+
+    /** {@code loader} vacío significa "no encontrado"; el resultado vacío también se cachea. */
+    public Mono<V> get(K key, Supplier<Mono<V>> loader) {
+        return Mono.defer(() -> {
+            Entry<V> entry = cache.getIfPresent(key);
+            if (entry == null) {
+                misses.increment();
+                return load(key, loader);
+            }
+            Duration age = entry.age();
+            if (entry.value() != null && age.compareTo(revalidateUntil) > 0) {
+                misses.increment();
+                return load(key, loader).onErrorResume(e -> {
+                    fallbacks.increment();
+                    log.warn("Load of {} failed, serving last known value: {}", method, e.getMessage());
+                    return Mono.just(entry.value());
+                });
+            }
+            if (entry.value() != null && age.compareTo(ttl) > 0) {
+                stale.increment();
+                refreshInBackground(key, loader);
+            } else {
+                hits.increment();
+            }
+            return Mono.justOrEmpty(entry.value());
+        });
+    }
+
+    /**
+     * Entradas vigentes de {@code keys} para cargas masivas; "no encontrado" llega como
+     * {@link Optional#empty()}. Las ausentes o ya vencidas no aparecen y las debe cargar el
+     * llamador (con {@link #put}).
+     */
+    public Map<K, Optional<V>> getAllFresh(Collection<K> keys) {
+        Map<K, Optional<V>> fresh = new LinkedHashMap<>();
+        for (K key : keys) {
+            Entry<V> entry = cache.getIfPresent(key);
+            if (entry != null && (entry.value() == null || entry.age().compareTo(ttl) <= 0)) {
+                hits.increment();
+                fresh.put(key, Optional.ofNullable(entry.value()));
+            } else {
+                misses.increment();
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * Último valor conocido de {@code key} sin importar su edad, para responder degradado cuando
+     * el servicio no está disponible y la carga la hace el llamador (consultas masivas).
+     */
+    public Optional<V> getLastKnown(K key) {
+        Entry<V> entry = cache.getIfPresent(key);
+        if (entry == null || entry.value() == null) {
+            return Optional.empty();
+        }
+        fallbacks.increment();
+        return Optional.of(entry.value());
+    }
+
+    /** {@code value} nulo guarda "no encontrado" con el TTL negativo. */
+    public void put(K key, V value) {
+        cache.put(key, new Entry<>(value, System.nanoTime()));
+    }
+
+    public void invalidate(K key) {
+        cache.invalidate(key);
+    }
+
+    private Mono<V> load(K key, Supplier<Mono<V>> loader) {
+        long start = System.nanoTime();
+        return loader.get()
+                .doOnNext(value -> cache.put(key, new Entry<>(value, System.nanoTime())))
+                .switchIfEmpty(Mono.fromRunnable(() -> cache.put(key, new Entry<>(null, System.nanoTime()))))
+                .doOnTerminate(() -> loads.record(Duration.ofNanos(System.nanoTime() - start)));
+    }
+
+    private void refreshInBackground(K key, Supplier<Mono<V>> loader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        load(key, loader)
+                .doFinally(signal -> refreshing.remove(key))
+                .subscribe(value -> { }, e -> log.warn("Background refresh of {} failed, keeping stale value: {}", method, e.getMessage()));
+    }
+
+    private record Entry<V>(V value, long loadedAtNanos) {
+        Duration age() {
+            return Duration.ofNanos(System.nanoTime() - loadedAtNanos);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package co.com.pedrorido.consumer.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Une las llamadas concurrentes con la misma clave en una sola llamada remota: el primero la
+ * lanza y los demás se suscriben al mismo resultado hasta que termina. A diferencia de la caché,
+ * no guarda nada después; protege al servicio remoto justo en los fallos de caché y en frío.
+ * La llamada corre mientras quede algún suscriptor; la clave debe incluir todo lo que cambia la
+ * respuesta (p. ej. las authorities del token). Las llamadas unidas se cuentan en
+ * {@code rest.consumer.singleflight.collapsed}.
+ */
+public class SingleFlight<K, V> {
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter collapsed;
+
+    public SingleFlight(String method, MeterRegistry registry) {
+        this.collapsed = registry.counter("rest.consumer.singleflight.collapsed", "method", method);
+    }
+
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> {
+            AtomicReference<Mono<V>> created = new AtomicReference<>();
+            Mono<V> shared = inFlight.computeIfAbsent(key, k -> {
+                Mono<V> flight = Mono.defer(call)
+                        .doFinally(signal -> inFlight.remove(k, created.get()))
+                        .share();
+                created.set(flight);
+                return flight;
+            });
+            if (shared != created.get()) {
+                collapsed.increment();
+            }
+            return shared;
+        });
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,55 @@
+package co.com.pedrorido.consumer.config;
+
+import co.com.pedrorido.consumer.cache.ResponseCache;
+import co.com.pedrorido.consumer.cache.SingleFlight;
+import co.com.pedrorido.consumer.hedge.Hedger;
+import co.com.pedrorido.model.external.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class RestConsumerCacheConfig {
+
+    @Bean
+    public ResponseCache<String, User> userByEmailCache(
+            @Value("${adapter.restconsumer.cache.maxSize:10000}") long maxSize,
+            @Value("${adapter.restconsumer.cache.ttl:5m}") Duration ttl,
+            @Value("${adapter.restconsumer.cache.staleWhileRevalidate:1m}") Duration staleWhileRevalidate,
+            @Value("${adapter.restconsumer.cache.staleIfError:30m}") Duration staleIfError,
+            @Value("${adapter.restconsumer.cache.negativeTtl:30s}") Duration negativeTtl,
+            MeterRegistry registry) {
+        return new ResponseCache<>("getUserByEmail", maxSize, ttl, staleWhileRevalidate, staleIfError, negativeTtl, registry);
+    }
+
+    @Bean
+    public ResponseCache<String, Boolean> userExistsCache(
+            @Value("${adapter.restconsumer.cache.maxSize:10000}") long maxSize,
+            @Value("${adapter.restconsumer.cache.ttl:5m}") Duration ttl,
+            @Value("${adapter.restconsumer.cache.staleWhileRevalidate:1m}") Duration staleWhileRevalidate,
+            @Value("${adapter.restconsumer.cache.staleIfError:30m}") Duration staleIfError,
+            @Value("${adapter.restconsumer.cache.negativeTtl:30s}") Duration negativeTtl,
+            MeterRegistry registry) {
+        return new ResponseCache<>("userExistsByDocumentNumber", maxSize, ttl, staleWhileRevalidate, staleIfError, negativeTtl, registry);
+    }
+
+    @Bean
+    public SingleFlight<String, User> userByEmailFlights(MeterRegistry registry) {
+        return new SingleFlight<>("getUserByEmail", registry);
+    }
+
+    @Bean
+    public SingleFlight<String, Boolean> userExistsFlights(MeterRegistry registry) {
+        return new SingleFlight<>("userExistsByDocumentNumber", registry);
+    }
+
+    @Bean
+    public Hedger hedger(@Value("${adapter.restconsumer.hedge.enabled:false}") boolean enabled,
+                         @Value("${adapter.restconsumer.hedge.minDelay:50ms}") Duration minDelay,
+                         MeterRegistry registry) {
+        return new Hedger(enabled, minDelay, registry);
+    }
+}
@@ -0,0 +1,23 @@
+package co.com.pedrorido.consumer.config;
+
+import co.com.pedrorido.consumer.resilience.ResilienceGuard;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Los registros los crea el starter de Resilience4j a partir de {@code resilience4j.*} y también
+ * publica el estado de los breakers en actuator health y en las métricas (Prometheus).
+ */
+@Configuration
+public class RestConsumerResilienceConfig {
+
+    @Bean
+    public ResilienceGuard resilienceGuard(CircuitBreakerRegistry circuitBreakerRegistry,
+                                           BulkheadRegistry bulkheadRegistry,
+                                           TimeLimiterRegistry timeLimiterRegistry) {
+        return new ResilienceGuard(circuitBreakerRegistry, bulkheadRegistry, timeLimiterRegistry);
+    }
+}
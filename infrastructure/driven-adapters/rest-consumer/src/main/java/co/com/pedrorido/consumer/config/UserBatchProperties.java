@@ -0,0 +1,20 @@
+package co.com.pedrorido.consumer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/** Consulta masiva de usuarios para enriquecer listados. */
+@ConfigurationProperties(prefix = "adapter.restconsumer.batch")
+public record UserBatchProperties(
+        int maxSize,
+        int fallbackConcurrency,
+        Duration unsupportedRetry) {
+
+    public UserBatchProperties {
+        maxSize = maxSize > 0 ? maxSize : 100;
+        fallbackConcurrency = fallbackConcurrency > 0 ? fallbackConcurrency : 8;
+        // Si el servicio no tiene el endpoint masivo, cada cuánto se vuelve a probar
+        unsupportedRetry = unsupportedRetry != null ? unsupportedRetry : Duration.ofMinutes(10);
+    }
+}
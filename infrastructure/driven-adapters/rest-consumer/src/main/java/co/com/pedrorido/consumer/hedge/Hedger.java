@@ -0,0 +1,97 @@
+package co.com.pedrorido.consumer.hedge;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Petición de respaldo para llamadas idempotentes: si la primera no respondió en el p95 de las
+ * latencias recientes del método se lanza una segunda y se usa la que llegue primero; la otra se
+ * cancela. Así solo se duplica ~5% del tráfico y la cola lenta del servicio remoto deja de mandar
+ * en la latencia del listado. Cada método tiene su propia ventana y hasta tener
+ * {@code MIN_SAMPLES} mediciones no se duplica nada. Métricas: {@code rest.consumer.hedge.sent}
+ * y {@code rest.consumer.hedge.won} (ganó el respaldo).
+ */
+public class Hedger {
+    static final int WINDOW = 256;
+    static final int MIN_SAMPLES = 20;
+
+    private final boolean enabled;
+    private final long minDelayNanos;
+    private final MeterRegistry registry;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    public Hedger(boolean enabled, Duration minDelay, MeterRegistry registry) {
+        this.enabled = enabled;
+        this.minDelayNanos = minDelay.toNanos();
+        this.registry = registry;
+    }
+
+    public <T> Mono<T> execute(String method, Supplier<Mono<T>> call) {
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+        return Mono.defer(() -> {
+            Window window = window(method);
+            Mono<T> primary = timed(window, call);
+            Duration delay = hedgeDelay(method);
+            if (delay == null) {
+                return primary;
+            }
+            Mono<T> backup = Mono.delay(delay)
+                    .doOnNext(tick -> registry.counter("rest.consumer.hedge.sent", "method", method).increment())
+                    .then(timed(window, call))
+                    .doOnSuccess(value -> registry.counter("rest.consumer.hedge.won", "method", method).increment());
+            return Mono.firstWithSignal(primary, backup);
+        });
+    }
+
+    /** p95 de la ventana, nunca por debajo de {@code minDelay}; nulo si aún no hay muestras suficientes. */
+    Duration hedgeDelay(String method) {
+        Long p95 = window(method).p95();
+        return p95 == null ? null : Duration.ofNanos(Math.max(minDelayNanos, p95));
+    }
+
+    void record(String method, long nanos) {
+        window(method).record(nanos);
+    }
+
+    private Window window(String method) {
+        return windows.computeIfAbsent(method, m -> new Window());
+    }
+
+    /** Solo las respuestas (con o sin valor) alimentan la ventana; los errores y cancelaciones no. */
+    private static <T> Mono<T> timed(Window window, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return Mono.defer(call)
+                    .doOnSuccess(value -> window.record(System.nanoTime() - start));
+        });
+    }
+
+    private static final class Window {
+        private final long[] samples = new long[WINDOW];
+        private int next;
+        private int count;
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % WINDOW;
+            count = Math.min(WINDOW, count + 1);
+        }
+
+        synchronized Long p95() {
+            if (count < MIN_SAMPLES) {
+                return null;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) Math.ceil(count * 0.95) - 1)];
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package co.com.pedrorido.consumer.resilience;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Circuit breaker, bulkhead y time limiter de Resilience4j alrededor de cada llamada al servicio
+ * de usuarios, con una instancia por método ({@code resilience4j.*.instances.<método>}). El orden
+ * es CircuitBreaker(TimeLimiter(Bulkhead(llamada))): el bulkhead limita las conexiones ocupadas,
+ * el time limiter corta antes que el read timeout del cliente y el breaker cuenta ambos como
+ * fallo. Con el breaker abierto o el bulkhead lleno la llamada falla de inmediato, sin tocar la
+ * red ({@code CallNotPermittedException}, {@code BulkheadFullException}); quien llama decide la
+ * respuesta degradada.
+ */
+public class ResilienceGuard {
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final TimeLimiterRegistry timeLimiters;
+
+    public ResilienceGuard(CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads, TimeLimiterRegistry timeLimiters) {
+        this.circuitBreakers = circuitBreakers;
+        this.bulkheads = bulkheads;
+        this.timeLimiters = timeLimiters;
+    }
+
+    public <T> Mono<T> protect(String method, Mono<T> call) {
+        return call
+                .transformDeferred(BulkheadOperator.of(bulkheads.bulkhead(method)))
+                .transformDeferred(TimeLimiterOperator.of(timeLimiters.timeLimiter(method)))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreakers.circuitBreaker(method)));
+    }
+}
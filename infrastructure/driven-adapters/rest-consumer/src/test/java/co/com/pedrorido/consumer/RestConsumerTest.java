@@ -1,6 +1,130 @@
 package co.com.pedrorido.consumer;
 
+import co.com.pedrorido.consumer.cache.ResponseCache;
+import co.com.pedrorido.consumer.cache.SingleFlight;
+import co.com.pedrorido.consumer.config.UserBatchProperties;
+import co.com.pedrorido.consumer.hedge.Hedger;
+import co.com.pedrorido.consumer.resilience.ResilienceGuard;
+import co.com.pedrorido.model.external.User;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class RestConsumerTest {
+    private MockWebServer server;
+    private RestConsumer consumer;
+    private CircuitBreakerRegistry circuitBreakers;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        var registry = new SimpleMeterRegistry();
+        Duration ttl = Duration.ofMinutes(5);
+        circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+        consumer = new RestConsumer(WebClient.create(server.url("/").toString()),
+                new ResponseCache<>("getUserByEmail", 100, ttl, ttl, ttl, registry),
+                new ResponseCache<>("userExistsByDocumentNumber", 100, ttl, ttl, ttl, registry),
+                new SingleFlight<>("getUserByEmail", registry),
+                new SingleFlight<>("userExistsByDocumentNumber", registry),
+                new UserBatchProperties(100, 2, null),
+                new Hedger(false, Duration.ZERO, registry),
+                new ResilienceGuard(circuitBreakers, BulkheadRegistry.ofDefaults(), TimeLimiterRegistry.ofDefaults()));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void bulkLookupUsesBatchEndpointOnceAndCachesMisses() throws InterruptedException {
+        server.enqueue(json("{\"success\":true,\"data\":{\"users\":[{\"name\":\"Ana\",\"email\":\"a@x.com\"}]}}"));
+
+        assertEquals(List.of("Ana"), names(consumer.getUsersByEmails(Set.of("a@x.com", "b@x.com"))));
+        // Segunda página con los mismos emails: todo sale de la caché, incluido el "no encontrado"
+        assertEquals(List.of("Ana"), names(consumer.getUsersByEmails(Set.of("a@x.com", "b@x.com"))));
+
+        assertEquals(1, server.getRequestCount());
+        RecordedRequest request = server.takeRequest();
+        assertEquals("POST", request.getMethod());
+        assertEquals("/api/v1/admin/users/batch", request.getPath());
+    }
+
+    @Test
+    void bulkLookupFallsBackToSingleCallsWithoutBatchEndpoint() {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return switch (request.getPath()) {
+                    case "/api/v1/admin/users/a@x.com" -> json("{\"data\":{\"user\":{\"name\":\"Ana\",\"email\":\"a@x.com\"}}}");
+                    case "/api/v1/admin/users/b@x.com" -> json("{\"data\":{\"user\":{\"name\":\"Beto\",\"email\":\"b@x.com\"}}}");
+                    default -> new MockResponse().setResponseCode(404);
+                };
+            }
+        });
+
+        assertEquals(Set.of("Ana", "Beto"), Set.copyOf(names(consumer.getUsersByEmails(Set.of("a@x.com", "b@x.com")))));
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    void openBreakerFailsFastAndSignalsTheListingIsIncomplete() {
+        circuitBreakers.circuitBreaker("getUsersByEmails").transitionToOpenState();
+
+        StepVerifier.create(authenticated(consumer.getUsersByEmails(Set.of("a@x.com"))))
+                .verifyError(CallNotPermittedException.class);
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    void openBreakerStillServesCachedUsersBeforeTheError() {
+        server.enqueue(json("{\"success\":true,\"data\":{\"users\":[{\"name\":\"Ana\",\"email\":\"a@x.com\"}]}}"));
+        assertEquals(List.of("Ana"), names(consumer.getUsersByEmails(Set.of("a@x.com"))));
+        circuitBreakers.circuitBreaker("getUsersByEmails").transitionToOpenState();
+
+        StepVerifier.create(authenticated(consumer.getUsersByEmails(Set.of("a@x.com", "b@x.com"))).map(User::getName))
+                .expectNext("Ana")
+                .verifyError(CallNotPermittedException.class);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    private static List<String> names(Flux<User> users) {
+        return authenticated(users).map(User::getName)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+    }
+
+    private static Flux<User> authenticated(Flux<User> users) {
+        Jwt jwt = Jwt.withTokenValue("token").header("alg", "none").subject("admin@x.com").build();
+        var auth = new JwtAuthenticationToken(jwt, List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+        return users.contextWrite(ReactiveSecurityContextHolder.withAuthentication(auth));
+    }
 
-}
\ No newline at end of file
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+}
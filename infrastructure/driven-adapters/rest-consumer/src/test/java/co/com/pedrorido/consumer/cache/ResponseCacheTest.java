@@ -0,0 +1,66 @@
+package co.com.pedrorido.consumer.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResponseCacheTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void hitAvoidsSecondLoad() {
+        var cache = new ResponseCache<String, String>("m", 100, Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ofMinutes(1), registry);
+        var loads = new AtomicInteger();
+
+        StepVerifier.create(cache.get("k", () -> Mono.fromSupplier(() -> "v" + loads.incrementAndGet()))).expectNext("v1").verifyComplete();
+        StepVerifier.create(cache.get("k", () -> Mono.fromSupplier(() -> "v" + loads.incrementAndGet()))).expectNext("v1").verifyComplete();
+
+        assertEquals(1, loads.get());
+        assertEquals(1.0, registry.counter("rest.consumer.cache.requests", "method", "m", "result", "hit").count());
+        assertEquals(1.0, registry.counter("rest.consumer.cache.requests", "method", "m", "result", "miss").count());
+    }
+
+    @Test
+    void notFoundIsCachedAndErrorsAreNot() {
+        var cache = new ResponseCache<String, String>("m", 100, Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ofMinutes(1), registry);
+        var loads = new AtomicInteger();
+
+        StepVerifier.create(cache.get("missing", () -> Mono.<String>empty().doOnSubscribe(s -> loads.incrementAndGet()))).verifyComplete();
+        StepVerifier.create(cache.get("missing", () -> Mono.<String>empty().doOnSubscribe(s -> loads.incrementAndGet()))).verifyComplete();
+        assertEquals(1, loads.get());
+
+        StepVerifier.create(cache.get("err", () -> Mono.<String>error(new IllegalStateException("down")))).verifyError(IllegalStateException.class);
+        StepVerifier.create(cache.get("err", () -> Mono.just("ok"))).expectNext("ok").verifyComplete();
+    }
+
+    @Test
+    void staleValueIsServedWhileRefreshing() throws InterruptedException {
+        var cache = new ResponseCache<String, String>("m", 100, Duration.ofMillis(20), Duration.ofMinutes(1), Duration.ofMinutes(1), registry);
+        StepVerifier.create(cache.get("k", () -> Mono.just("old"))).expectNext("old").verifyComplete();
+        Thread.sleep(50);
+
+        StepVerifier.create(cache.get("k", () -> Mono.just("new"))).expectNext("old").verifyComplete();
+        StepVerifier.create(cache.get("k", () -> Mono.just("newer"))).expectNext("new").verifyComplete();
+        assertEquals(1.0, registry.counter("rest.consumer.cache.requests", "method", "m", "result", "stale").count());
+    }
+
+    @Test
+    void lastKnownValueIsServedWhenReloadFails() throws InterruptedException {
+        var cache = new ResponseCache<String, String>("m", 100, Duration.ofMillis(10), Duration.ofMillis(10),
+                Duration.ofMinutes(1), Duration.ofMinutes(1), registry);
+        StepVerifier.create(cache.get("k", () -> Mono.just("old"))).expectNext("old").verifyComplete();
+        Thread.sleep(50);
+
+        StepVerifier.create(cache.get("k", () -> Mono.<String>error(new IllegalStateException("breaker open"))))
+                .expectNext("old")
+                .verifyComplete();
+        assertEquals("old", cache.getLastKnown("k").orElseThrow());
+        assertEquals(2.0, registry.counter("rest.consumer.cache.requests", "method", "m", "result", "fallback").count());
+    }
+}
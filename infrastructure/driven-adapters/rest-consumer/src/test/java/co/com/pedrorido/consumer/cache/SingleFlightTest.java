@@ -0,0 +1,52 @@
+package co.com.pedrorido.consumer.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SingleFlightTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> flights = new SingleFlight<>("m", registry);
+
+    @Test
+    void concurrentCallersShareOneCall() {
+        var calls = new AtomicInteger();
+        Sinks.One<String> remote = Sinks.one();
+
+        var first = flights.execute("k", () -> remote.asMono().doOnSubscribe(s -> calls.incrementAndGet())).toFuture();
+        var second = flights.execute("k", () -> remote.asMono().doOnSubscribe(s -> calls.incrementAndGet())).toFuture();
+        remote.tryEmitValue("user");
+
+        assertEquals("user", first.join());
+        assertEquals("user", second.join());
+        assertEquals(1, calls.get());
+        assertEquals(1.0, registry.counter("rest.consumer.singleflight.collapsed", "method", "m").count());
+        assertEquals(0, flights.inFlight());
+    }
+
+    @Test
+    void finishedCallIsNotReused() {
+        var calls = new AtomicInteger();
+
+        StepVerifier.create(flights.execute("k", () -> Mono.fromSupplier(() -> "v" + calls.incrementAndGet()))).expectNext("v1").verifyComplete();
+        StepVerifier.create(flights.execute("k", () -> Mono.fromSupplier(() -> "v" + calls.incrementAndGet()))).expectNext("v2").verifyComplete();
+    }
+
+    @Test
+    void differentKeysAreIndependent() {
+        Sinks.One<String> remote = Sinks.one();
+
+        var a = flights.execute("a", remote::asMono).toFuture();
+        StepVerifier.create(flights.execute("b", () -> Mono.just("b"))).expectNext("b").verifyComplete();
+        remote.tryEmitValue("a");
+
+        assertEquals("a", a.join());
+        assertEquals(0.0, registry.counter("rest.consumer.singleflight.collapsed", "method", "m").count());
+    }
+}
@@ -0,0 +1,62 @@
+package co.com.pedrorido.consumer.hedge;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HedgerTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Hedger hedger = new Hedger(true, Duration.ofMillis(20), registry);
+
+    @Test
+    void noHedgeUntilEnoughSamples() {
+        var calls = new AtomicInteger();
+
+        StepVerifier.create(hedger.execute("m", () -> Mono.fromSupplier(() -> "u" + calls.incrementAndGet())))
+                .expectNext("u1")
+                .verifyComplete();
+        assertNull(hedger.hedgeDelay("m"));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void slowPrimaryIsRacedByBackupAfterP95() {
+        for (int i = 0; i < Hedger.MIN_SAMPLES; i++) {
+            hedger.record("m", Duration.ofMillis(1).toNanos());
+        }
+        // p95 de 1 ms queda por debajo del mínimo configurado
+        assertEquals(Duration.ofMillis(20), hedger.hedgeDelay("m"));
+
+        var calls = new AtomicInteger();
+        Mono<String> result = hedger.execute("m", () -> calls.incrementAndGet() == 1 ? Mono.never() : Mono.just("backup"));
+
+        StepVerifier.create(result)
+                .expectNext("backup")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(2, calls.get());
+        assertEquals(1.0, registry.counter("rest.consumer.hedge.sent", "method", "m").count());
+        assertEquals(1.0, registry.counter("rest.consumer.hedge.won", "method", "m").count());
+    }
+
+    @Test
+    void fastPrimaryCancelsBackup() {
+        for (int i = 0; i < Hedger.MIN_SAMPLES; i++) {
+            hedger.record("m", Duration.ofMillis(1).toNanos());
+        }
+        var calls = new AtomicInteger();
+
+        StepVerifier.create(hedger.execute("m", () -> Mono.fromSupplier(() -> "u" + calls.incrementAndGet())))
+                .expectNext("u1")
+                .verifyComplete();
+        assertEquals(1, calls.get());
+        assertEquals(0.0, registry.counter("rest.consumer.hedge.sent", "method", "m").count());
+    }
+}
@@ -0,0 +1,52 @@
+package co.com.pedrorido.consumer.resilience;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResilienceGuardTest {
+    private final CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+    private final ResilienceGuard guard = new ResilienceGuard(circuitBreakers,
+            BulkheadRegistry.of(BulkheadConfig.custom().maxConcurrentCalls(1).maxWaitDuration(Duration.ZERO).build()),
+            TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(Duration.ofMillis(50)).build()));
+
+    @Test
+    void openBreakerRejectsWithoutCalling() {
+        circuitBreakers.circuitBreaker("m").transitionToOpenState();
+        var calls = new AtomicInteger();
+
+        StepVerifier.create(guard.protect("m", Mono.fromSupplier(calls::incrementAndGet)))
+                .verifyError(CallNotPermittedException.class);
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void fullBulkheadRejectsImmediately() {
+        var first = guard.protect("m", Mono.never()).subscribe();
+
+        StepVerifier.create(guard.protect("m", Mono.just("second")))
+                .verifyError(BulkheadFullException.class);
+        first.dispose();
+    }
+
+    @Test
+    void slowCallIsCutAndCountedAsFailure() {
+        StepVerifier.create(guard.protect("m", Mono.never()))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
+        assertEquals(1, circuitBreakers.circuitBreaker("m").getMetrics().getNumberOfFailedCalls());
+    }
+}
@@ -0,0 +1,23 @@
+package co.com.pedrorido.sqs.sender;
+
+import co.com.pedrorido.model.quarantine.gateways.MessageReplayRepository;
+import co.com.pedrorido.sqs.sender.helper.SqsBatchPublisher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/** Reenvío manual de mensajes en cuarentena a su cola de origen, sin pasar por la outbox. */
+@Service
+@Log4j2
+@RequiredArgsConstructor
+public class SQSReplaySender implements MessageReplayRepository {
+    private final SqsBatchPublisher batchPublisher;
+
+    @Override
+    public Mono<Void> replay(String queueUrl, String body) {
+        return batchPublisher.send(queueUrl, body)
+                .doOnSuccess(v -> log.info("Quarantined message replayed to {}", queueUrl))
+                .doOnError(e -> log.error("Replay to {} failed", queueUrl, e));
+    }
+}
@@ -1,56 +1,67 @@
 package co.com.pedrorido.sqs.sender;
 
-import co.com.pedrorido.model.external.RequestCalculateDebtMessage;
-import co.com.pedrorido.model.external.RequestStatusChangeMessage;
-import co.com.pedrorido.model.external.gateways.MessagePublisherRepository;
+import co.com.pedrorido.codec.MessageCodec;
+import co.com.pedrorido.codec.PayloadCompactor;
+import co.com.pedrorido.codec.WirePayload;
+import co.com.pedrorido.model.outbox.OutboxEvent;
 import co.com.pedrorido.sqs.sender.config.SQSSenderProperties;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import co.com.pedrorido.sqs.sender.helper.SqsBatchPublisher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import software.amazon.awssdk.services.sqs.SqsAsyncClient;
-import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
 
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Envía a SQS los eventos que el relay toma de la outbox. El payload ya viene serializado
+ * desde la transacción que originó el evento; el envío se agrupa por cola en
+ * SendMessageBatch ({@link SqsBatchPublisher}). Los payloads grandes salen compactados
+ * ({@link PayloadCompactor}) con su codificación en un atributo del mensaje.
+ */
 @Service
 @Log4j2
 @RequiredArgsConstructor
-public class SQSSender implements MessagePublisherRepository {
+public class SQSSender {
     private final SQSSenderProperties properties;
-    private final SqsAsyncClient client;
-    private final ObjectMapper mapper = new ObjectMapper();
-
+    private final SqsBatchPublisher batchPublisher;
+    private final PayloadCompactor compactor;
 
-    @Override
-    public Mono<Void> publishRequestStatusChange(RequestStatusChangeMessage evt) {
-        log.info("Sending StatusChange message to SQS {}", evt);
-        return serialize(evt)
-                .flatMap(json -> Mono.fromFuture(client.sendMessage(
-                        buildRequest(properties.requestStatusChangeQueueUrl(), json))))
-                .doOnNext(resp -> log.debug("StatusChange sent {}", resp.messageId()))
-                .doOnError(e -> log.error("SQS publish error (status change)", e))
+    public Mono<Void> dispatch(OutboxEvent evt) {
+        log.info("Sending {} message to SQS (outbox id={}, aggregate={})", evt.getEventType(), evt.getId(), evt.getAggregateId());
+        return Mono.fromCallable(() -> queueUrlFor(evt))
+                .flatMap(queueUrl -> compactor.pack(evt.getPayload())
+                        .flatMap(wire -> batchPublisher.send(queueUrl, wire.body(), attributes(evt, wire))))
+                .doOnSuccess(v -> log.debug("{} sent (outbox id={})", evt.getEventType(), evt.getId()))
+                .doOnError(e -> log.error("SQS publish error ({}, outbox id={})", evt.getEventType(), evt.getId(), e))
                 .then();
     }
 
-    @Override
-    public Mono<Void> publishCalculateDebtCapacitySqs(RequestCalculateDebtMessage evt) {
-        log.info("Sending CalculateDebtCapacity message to SQS {}" , evt);
-        return serialize(evt)
-                .flatMap(json -> Mono.fromFuture(client.sendMessage(
-                        buildRequest(properties.calculateDebtCapacityQueueUrl(), json))))
-                .doOnNext(resp -> log.debug("DebtCapacity sent {}", resp.messageId()))
-                .doOnError(e -> log.error("SQS publish error (debt capacity)", e))
-                .then();
+    /** La clave de orden viaja aparte: un cuerpo compactado no se puede leer para ordenar. */
+    private static Map<String, MessageAttributeValue> attributes(OutboxEvent evt, WirePayload wire) {
+        Map<String, MessageAttributeValue> attributes = new HashMap<>();
+        if (evt.getAggregateId() != null) {
+            attributes.put(MessageCodec.ORDERING_KEY_ATTRIBUTE, stringAttribute(evt.getAggregateId()));
+        }
+        if (wire.encoding() != null) {
+            attributes.put(PayloadCompactor.ENCODING_ATTRIBUTE, stringAttribute(wire.encoding()));
+        }
+        return attributes;
     }
 
-    private Mono<String> serialize(Object evt) {
-        return Mono.fromCallable(() -> mapper.writeValueAsString(evt));
+    private static MessageAttributeValue stringAttribute(String value) {
+        return MessageAttributeValue.builder()
+                .dataType("String")
+                .stringValue(value)
+                .build();
     }
 
-    private SendMessageRequest buildRequest(String queueUrl, String body) {
-        SendMessageRequest.Builder b = SendMessageRequest.builder()
-                .queueUrl(queueUrl)
-                .messageBody(body);
-        return b.build();
+    private String queueUrlFor(OutboxEvent evt) {
+        return switch (evt.getEventType()) {
+            case REQUEST_STATUS_CHANGE -> properties.requestStatusChangeQueueUrl();
+            case CALCULATE_DEBT_CAPACITY -> properties.calculateDebtCapacityQueueUrl();
+        };
     }
 }
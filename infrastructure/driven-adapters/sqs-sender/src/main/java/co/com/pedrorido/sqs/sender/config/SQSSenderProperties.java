@@ -2,10 +2,58 @@ package co.com.pedrorido.sqs.sender.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 @ConfigurationProperties(prefix = "adapter.sqs")
 public record SQSSenderProperties(
      String region,
      String requestStatusChangeQueueUrl,
      String calculateDebtCapacityQueueUrl,
-     String endpoint){
+     String endpoint,
+     Outbox outbox,
+     Batch batch){
+
+    public SQSSenderProperties {
+        if (outbox == null) {
+            outbox = new Outbox(null, 0, null, null, 0, null);
+        }
+        if (batch == null) {
+            batch = new Batch(0, null, 0, null);
+        }
+    }
+
+    /** Relay de outbox_evento hacia SQS. */
+    public record Outbox(
+            Boolean enabled,
+            int batchSize,
+            Duration pollInterval,
+            Duration lease,
+            int concurrency,
+            Duration drainTimeout) {
+
+        public Outbox {
+            enabled = enabled == null || enabled;
+            batchSize = batchSize > 0 ? batchSize : 50;
+            pollInterval = pollInterval != null ? pollInterval : Duration.ofMillis(500);
+            lease = lease != null ? lease : Duration.ofSeconds(30);
+            concurrency = concurrency > 0 ? concurrency : 8;
+            drainTimeout = drainTimeout != null ? drainTimeout : Duration.ofSeconds(10);
+        }
+    }
+
+    /** Agrupación de envíos por cola en SendMessageBatch. */
+    public record Batch(
+            int maxSize,
+            Duration window,
+            int maxInFlight,
+            Duration flushTimeout) {
+
+        public Batch {
+            // SQS admite como máximo 10 entradas por lote
+            maxSize = maxSize > 0 ? Math.min(maxSize, 10) : 10;
+            window = window != null ? window : Duration.ofMillis(20);
+            maxInFlight = maxInFlight > 0 ? maxInFlight : 4;
+            flushTimeout = flushTimeout != null ? flushTimeout : Duration.ofSeconds(5);
+        }
+    }
 }
@@ -0,0 +1,204 @@
+package co.com.pedrorido.sqs.sender.helper;
+
+import co.com.pedrorido.sqs.sender.config.SQSSenderProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Agrupa los envíos por URL de cola en llamadas SendMessageBatch de hasta 10 mensajes,
+ * cerrando el lote por tamaño o por ventana de tiempo. Cada llamador recibe su propio
+ * resultado: el Mono termina vacío si SQS aceptó su entrada o con error si la rechazó.
+ * Al apagar, después de la outbox, envía lo que quede en los lotes abiertos antes de cerrar.
+ */
+@Log4j2
+@Component
+public class SqsBatchPublisher implements SmartLifecycle, DisposableBean {
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4097;
+
+    private final SqsAsyncClient client;
+    private final SQSSenderProperties.Batch config;
+    private final MeterRegistry registry;
+    private final Map<String, QueueBatcher> batchers = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    public SqsBatchPublisher(SqsAsyncClient client, SQSSenderProperties properties, MeterRegistry registry) {
+        this.client = client;
+        this.config = properties.batch();
+        this.registry = registry;
+    }
+
+    public Mono<Void> send(String queueUrl, String body) {
+        return send(queueUrl, body, Map.of());
+    }
+
+    /** Igual que {@link #send(String, String)} con atributos de mensaje (p. ej. la codificación del cuerpo). */
+    public Mono<Void> send(String queueUrl, String body, Map<String, MessageAttributeValue> attributes) {
+        return Mono.defer(() -> {
+            Sinks.One<Void> result = Sinks.one();
+            batchers.computeIfAbsent(queueUrl, QueueBatcher::new).submit(new PendingEntry(body, attributes, result));
+            return result.asMono();
+        });
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        flush().doFinally(signal -> callback.run()).subscribe();
+    }
+
+    @Override
+    public void stop() {
+        flush().block();
+    }
+
+    /** Cierra la entrada de cada cola y espera a que se envíen los lotes pendientes. */
+    Mono<Void> flush() {
+        running = false;
+        long start = System.nanoTime();
+        return Flux.fromIterable(batchers.values())
+                .flatMap(QueueBatcher::flush)
+                .then()
+                .timeout(config.flushTimeout(), Mono.fromRunnable(() ->
+                        log.warn("SQS publisher: pending batches not flushed within {}", config.flushTimeout())))
+                .doFinally(signal -> log.info("SQS publisher flushed in {}ms", (System.nanoTime() - start) / 1_000_000));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    @Override
+    public void destroy() {
+        batchers.values().forEach(QueueBatcher::close);
+    }
+
+    private record PendingEntry(String body, Map<String, MessageAttributeValue> attributes, Sinks.One<Void> result) {
+    }
+
+    private final class QueueBatcher {
+        private final String queueUrl;
+        private final Sinks.Many<PendingEntry> pending = Sinks.many().unicast().onBackpressureBuffer();
+        private final Disposable pipeline;
+        private final Sinks.Empty<Void> done = Sinks.empty();
+        private final DistributionSummary batchSize;
+        private final Timer batchLatency;
+        private final Counter failedEntries;
+        private final Counter failedBatches;
+
+        QueueBatcher(String queueUrl) {
+            this.queueUrl = queueUrl;
+            String queue = queueUrl.substring(queueUrl.lastIndexOf('/') + 1);
+            this.batchSize = DistributionSummary.builder("sqs.sender.batch.size").tag("queue", queue).register(registry);
+            this.batchLatency = Timer.builder("sqs.sender.batch.latency").tag("queue", queue).register(registry);
+            this.failedEntries = registry.counter("sqs.sender.batch.failed_entries", "queue", queue);
+            this.failedBatches = registry.counter("sqs.sender.batch.failed_calls", "queue", queue);
+            this.pipeline = pending.asFlux()
+                    .bufferTimeout(config.maxSize(), config.window())
+                    .flatMap(this::sendBatch, config.maxInFlight())
+                    .doFinally(signal -> done.tryEmitEmpty())
+                    .subscribe();
+        }
+
+        void submit(PendingEntry entry) {
+            Sinks.EmitFailureHandler busyLooping = Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100));
+            pending.emitNext(entry, (signal, result) -> {
+                if (result == Sinks.EmitResult.FAIL_TERMINATED || result == Sinks.EmitResult.FAIL_CANCELLED) {
+                    // Publicador ya cerrado: el llamador no debe quedar esperando
+                    entry.result().tryEmitError(new IllegalStateException("sqs publisher closed"));
+                    return false;
+                }
+                return busyLooping.onEmitFailure(signal, result);
+            });
+        }
+
+        /** bufferTimeout emite el lote incompleto al recibir el complete. */
+        Mono<Void> flush() {
+            pending.tryEmitComplete();
+            return done.asMono();
+        }
+
+        void close() {
+            pending.tryEmitComplete();
+            pipeline.dispose();
+        }
+
+        private Mono<Void> sendBatch(List<PendingEntry> entries) {
+            List<SendMessageBatchRequestEntry> requestEntries = new ArrayList<>(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                PendingEntry entry = entries.get(i);
+                SendMessageBatchRequestEntry.Builder builder = SendMessageBatchRequestEntry.builder()
+                        .id(Integer.toString(i))
+                        .messageBody(entry.body());
+                if (!entry.attributes().isEmpty()) {
+                    builder.messageAttributes(entry.attributes());
+                }
+                requestEntries.add(builder.build());
+            }
+            SendMessageBatchRequest request = SendMessageBatchRequest.builder()
+                    .queueUrl(queueUrl)
+                    .entries(requestEntries)
+                    .build();
+
+            batchSize.record(entries.size());
+            long start = System.nanoTime();
+            return Mono.fromFuture(() -> client.sendMessageBatch(request))
+                    .doOnNext(response -> {
+                        batchLatency.record(Duration.ofNanos(System.nanoTime() - start));
+                        complete(entries, response);
+                    })
+                    .doOnError(e -> {
+                        failedBatches.increment();
+                        failedEntries.increment(entries.size());
+                        log.error("SQS SendMessageBatch error ({} entries, queue={})", entries.size(), queueUrl, e);
+                        entries.forEach(entry -> entry.result().tryEmitError(e));
+                    })
+                    .onErrorResume(e -> Mono.empty())
+                    .then();
+        }
+
+        private void complete(List<PendingEntry> entries, SendMessageBatchResponse response) {
+            response.successful().forEach(ok -> entries.get(Integer.parseInt(ok.id())).result().tryEmitEmpty());
+            for (BatchResultErrorEntry failed : response.failed()) {
+                failedEntries.increment();
+                log.warn("SQS batch entry rejected (queue={}, code={}, senderFault={}): {}",
+                        queueUrl, failed.code(), failed.senderFault(), failed.message());
+                entries.get(Integer.parseInt(failed.id())).result()
+                        .tryEmitError(new IllegalStateException("sqs rejected message: " + failed.code()));
+            }
+            // Entradas sin resultado en la respuesta: no dejar al llamador esperando
+            entries.forEach(entry -> entry.result().tryEmitError(new IllegalStateException("sqs returned no result for message")));
+        }
+    }
+}
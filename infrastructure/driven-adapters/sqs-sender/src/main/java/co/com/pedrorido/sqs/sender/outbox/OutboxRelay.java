@@ -0,0 +1,154 @@
+package co.com.pedrorido.sqs.sender.outbox;
+
+import co.com.pedrorido.model.outbox.OutboxEvent;
+import co.com.pedrorido.model.outbox.gateways.OutboxRepository;
+import co.com.pedrorido.sqs.sender.SQSSender;
+import co.com.pedrorido.sqs.sender.config.SQSSenderProperties;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drena outbox_evento hacia SQS en lotes. Los eventos de una misma solicitud se envían en
+ * orden y uno a la vez; solicitudes distintas van en paralelo. Un evento solo se borra
+ * después de que SQS lo confirma (entrega al menos una vez); si falla, los posteriores de
+ * la misma solicitud esperan a que venza el lease y se reintentan juntos.
+ * Al apagar termina el lote en curso (dentro de {@code drainTimeout}) en vez de cortarlo: lo
+ * enviado y no borrado se reenviaría al vencer el lease. Se detiene después del servidor web
+ * y de los listeners, para publicar lo que ellos alcanzaron a escribir.
+ */
+@Log4j2
+@Component
+public class OutboxRelay implements SmartLifecycle, DisposableBean {
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final OutboxRepository outboxRepository;
+    private final SQSSender sender;
+    private final SQSSenderProperties.Outbox config;
+    private final Sinks.Empty<Void> stopped = Sinks.empty();
+    private volatile Disposable loop;
+    private volatile boolean stopping;
+
+    public OutboxRelay(OutboxRepository outboxRepository, SQSSender sender, SQSSenderProperties properties) {
+        this.outboxRepository = outboxRepository;
+        this.sender = sender;
+        this.config = properties.outbox();
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!config.enabled() || loop != null) {
+            return;
+        }
+        log.info("OUTBOX relay started: batchSize={}, pollInterval={}, lease={}",
+                config.batchSize(), config.pollInterval(), config.lease());
+        loop = Mono.defer(this::relayBatch)
+                .onErrorResume(e -> {
+                    log.error("OUTBOX relay batch failed: {}", e.getMessage());
+                    return Mono.just(0);
+                })
+                // Lote lleno: probablemente hay más pendientes, se sigue sin esperar
+                .flatMap(claimed -> claimed >= config.batchSize()
+                        ? Mono.just(claimed)
+                        : Mono.delay(config.pollInterval()).thenReturn(claimed))
+                .repeat(() -> !stopping)
+                .doFinally(signal -> stopped.tryEmitEmpty())
+                .subscribe();
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        drain().doFinally(signal -> callback.run()).subscribe();
+    }
+
+    @Override
+    public void stop() {
+        drain().block();
+    }
+
+    /** No toma lotes nuevos y espera el actual; vencido el plazo lo corta (el lease lo devolverá). */
+    Mono<Void> drain() {
+        if (loop == null) {
+            return Mono.empty();
+        }
+        stopping = true;
+        long start = System.nanoTime();
+        return stopped.asMono()
+                .timeout(config.drainTimeout(), Mono.fromRunnable(() -> {
+                    log.warn("OUTBOX relay: batch not finished within {}, cancelling", config.drainTimeout());
+                    loop.dispose();
+                }))
+                .doFinally(signal -> log.info("OUTBOX relay stopped in {}ms", (System.nanoTime() - start) / 1_000_000));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return loop != null && !stopping;
+    }
+
+    /** Lo arranca ApplicationReadyEvent; como Lifecycle solo participa del apagado. */
+    @Override
+    public boolean isAutoStartup() {
+        return false;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    @Override
+    public void destroy() {
+        if (loop != null) {
+            loop.dispose();
+        }
+    }
+
+    /** Reserva un lote, lo envía y borra lo confirmado; devuelve cuántos eventos se reservaron. */
+    Mono<Integer> relayBatch() {
+        return outboxRepository.claimBatch(config.batchSize(), config.lease())
+                .collectList()
+                .flatMap(events -> {
+                    if (events.isEmpty()) {
+                        return Mono.just(0);
+                    }
+                    return Flux.fromIterable(groupByAggregate(events))
+                            .flatMap(this::sendInOrder, config.concurrency())
+                            .collectList()
+                            .flatMap(published -> outboxRepository.markPublished(published)
+                                    .doOnSuccess(v -> log.debug("OUTBOX relayed {}/{} events", published.size(), events.size())))
+                            .thenReturn(events.size());
+                });
+    }
+
+    /** Envía los eventos de un agregado en orden y se detiene en el primer fallo. */
+    private Flux<Long> sendInOrder(List<OutboxEvent> group) {
+        return Flux.fromIterable(group)
+                .concatMap(evt -> sender.dispatch(evt)
+                        .thenReturn(evt.getId())
+                        .onErrorResume(e -> outboxRepository.markFailed(evt.getId(), e.getMessage())
+                                .onErrorResume(markError -> Mono.empty())
+                                .then(Mono.error(e))))
+                .onErrorResume(e -> Flux.empty());
+    }
+
+    private static Collection<List<OutboxEvent>> groupByAggregate(List<OutboxEvent> events) {
+        Map<String, List<OutboxEvent>> byAggregate = new LinkedHashMap<>();
+        events.forEach(evt -> byAggregate.computeIfAbsent(evt.getAggregateId(), k -> new ArrayList<>()).add(evt));
+        return byAggregate.values();
+    }
+}
@@ -0,0 +1,106 @@
+package co.com.pedrorido.sqs.sender.helper;
+
+import co.com.pedrorido.sqs.sender.config.SQSSenderProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SqsBatchPublisherTest {
+    private static final String QUEUE = "http://localhost:4566/000000000000/statusChange";
+
+    private SqsAsyncClient client;
+    private SimpleMeterRegistry registry;
+    private SqsBatchPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(SqsAsyncClient.class);
+        registry = new SimpleMeterRegistry();
+        SQSSenderProperties properties = new SQSSenderProperties("us-east-1", QUEUE, QUEUE, null, null,
+                new SQSSenderProperties.Batch(10, Duration.ofMillis(50), 2, null));
+        publisher = new SqsBatchPublisher(client, properties, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.destroy();
+    }
+
+    @Test
+    void groupsConcurrentSendsAndReportsEachEntry() {
+        when(client.sendMessageBatch(any(SendMessageBatchRequest.class))).thenAnswer(inv -> {
+            SendMessageBatchRequest request = inv.getArgument(0);
+            SendMessageBatchResponse.Builder response = SendMessageBatchResponse.builder();
+            List<SendMessageBatchResultEntry> ok = request.entries().stream()
+                    .filter(e -> !e.messageBody().equals("bad"))
+                    .map(e -> SendMessageBatchResultEntry.builder().id(e.id()).messageId("m-" + e.id()).build())
+                    .toList();
+            List<BatchResultErrorEntry> failed = request.entries().stream()
+                    .filter(e -> e.messageBody().equals("bad"))
+                    .map(e -> BatchResultErrorEntry.builder().id(e.id()).code("InvalidMessageContents").senderFault(true).build())
+                    .toList();
+            return CompletableFuture.completedFuture(response.successful(ok).failed(failed).build());
+        });
+
+        List<String> outcomes = Flux.just("a", "b", "bad", "c")
+                .flatMap(body -> publisher.send(QUEUE, body)
+                        .thenReturn(body + ":ok")
+                        .onErrorResume(e -> Mono.just(body + ":error")))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(List.of("a:ok", "b:ok", "bad:error", "c:ok"), outcomes.stream().sorted().toList());
+        ArgumentCaptor<SendMessageBatchRequest> captor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(client, times(1)).sendMessageBatch(captor.capture());
+        assertEquals(4, captor.getValue().entries().size());
+        assertEquals(1.0, registry.get("sqs.sender.batch.failed_entries").counter().count());
+    }
+
+    @Test
+    void failedCallFailsEveryEntry() {
+        when(client.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("network")));
+
+        StepVerifier.create(publisher.send(QUEUE, "a"))
+                .expectErrorMessage("network")
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void flushSendsOpenBatchesBeforeClosing() {
+        when(client.sendMessageBatch(any(SendMessageBatchRequest.class))).thenReturn(CompletableFuture.completedFuture(
+                SendMessageBatchResponse.builder()
+                        .successful(SendMessageBatchResultEntry.builder().id("0").messageId("m-0").build())
+                        .build()));
+        // Ventana larga: sin el flush el lote seguiría abierto
+        var slow = new SqsBatchPublisher(client, new SQSSenderProperties("us-east-1", QUEUE, QUEUE, null, null,
+                new SQSSenderProperties.Batch(10, Duration.ofSeconds(30), 2, null)), registry);
+        var sent = slow.send(QUEUE, "pending").toFuture();
+
+        StepVerifier.create(slow.flush()).verifyComplete();
+
+        assertTrue(sent.isDone() && !sent.isCompletedExceptionally());
+        verify(client, times(1)).sendMessageBatch(any(SendMessageBatchRequest.class));
+        StepVerifier.create(slow.send(QUEUE, "late")).expectError(IllegalStateException.class).verify(Duration.ofSeconds(1));
+        slow.destroy();
+    }
+}
@@ -0,0 +1,85 @@
+package co.com.pedrorido.sqs.sender.outbox;
+
+import co.com.pedrorido.model.outbox.OutboxEvent;
+import co.com.pedrorido.model.outbox.OutboxEventType;
+import co.com.pedrorido.model.outbox.gateways.OutboxRepository;
+import co.com.pedrorido.sqs.sender.SQSSender;
+import co.com.pedrorido.sqs.sender.config.SQSSenderProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+    private OutboxRepository outboxRepository;
+    private SQSSender sender;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository = mock(OutboxRepository.class);
+        sender = mock(SQSSender.class);
+        SQSSenderProperties properties = new SQSSenderProperties("us-east-1", "status-url", "debt-url", null,
+                new SQSSenderProperties.Outbox(true, 10, null, null, 4, null), null);
+        relay = new OutboxRelay(outboxRepository, sender, properties);
+        when(outboxRepository.markPublished(anyCollection())).thenReturn(Mono.empty());
+        when(outboxRepository.markFailed(anyLong(), any())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void publishesInOrderPerAggregateAndDeletesOnlyConfirmed() {
+        when(outboxRepository.claimBatch(eq(10), any())).thenReturn(Flux.just(
+                event(1L, "a"), event(2L, "b"), event(3L, "a"), event(4L, "b"), event(5L, "a")));
+        List<Long> sent = new CopyOnWriteArrayList<>();
+        when(sender.dispatch(any())).thenAnswer(inv -> {
+            OutboxEvent evt = inv.getArgument(0);
+            if (evt.getId() == 4L) {
+                return Mono.error(new IllegalStateException("sqs down"));
+            }
+            return Mono.fromRunnable(() -> sent.add(evt.getId()));
+        });
+
+        StepVerifier.create(relay.relayBatch())
+                .expectNext(5)
+                .verifyComplete();
+
+        assertEquals(List.of(1L, 3L, 5L), sent.stream().filter(id -> id % 2 == 1).toList());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxRepository).markPublished(captor.capture());
+        assertEquals(List.of(1L, 2L, 3L, 5L), captor.getValue().stream().sorted().toList());
+        verify(outboxRepository).markFailed(eq(4L), eq("sqs down"));
+    }
+
+    @Test
+    void emptyBatchDoesNothing() {
+        when(outboxRepository.claimBatch(eq(10), any())).thenReturn(Flux.empty());
+
+        StepVerifier.create(relay.relayBatch())
+                .expectNext(0)
+                .verifyComplete();
+
+        verifyNoInteractions(sender);
+        verify(outboxRepository, never()).markPublished(anyCollection());
+    }
+
+    private static OutboxEvent event(Long id, String aggregateId) {
+        return OutboxEvent.builder()
+                .id(id)
+                .aggregateId(aggregateId)
+                .eventType(OutboxEventType.REQUEST_STATUS_CHANGE)
+                .payload("{}")
+                .attempts(1)
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package co.com.pedrorido.api;
+
+import co.com.pedrorido.api.dto.GeneralResponseDTO;
+import co.com.pedrorido.model.quarantine.QuarantinedMessage;
+import co.com.pedrorido.usecase.apis.IQuarantineApi;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+/** Administración de mensajes SQS en cuarentena: consulta y reenvío a su cola de origen. */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class QuarantineHandler {
+    private final IQuarantineApi quarantineApi;
+
+    public Mono<ServerResponse> listQuarantined(ServerRequest req) {
+        int limit = parseIntOrDefault(req.queryParam("limit").orElse("50"), 50);
+        return quarantineApi.list(limit)
+                .collectList()
+                .flatMap(messages -> {
+                    HashMap<String, List<QuarantinedMessage>> data = new HashMap<>();
+                    data.put("messages", messages);
+                    return ServerResponse.ok().bodyValue(GeneralResponseDTO.<List<QuarantinedMessage>>builder()
+                            .success(true)
+                            .message(messages.size() + " quarantined messages")
+                            .data(data)
+                            .build());
+                });
+    }
+
+    public Mono<ServerResponse> replayQuarantined(ServerRequest req) {
+        return Mono.fromCallable(() -> UUID.fromString(req.pathVariable("id")))
+                .onErrorMap(e -> new IllegalArgumentException("invalid quarantine id"))
+                // Sin transacción: el caso de uso marca el reenvío solo después de que SQS lo acepta
+                .flatMap(quarantineApi::replay)
+                .doOnNext(replayed -> log.info("Quarantined message {} replayed", replayed.getId()))
+                .flatMap(replayed -> {
+                    HashMap<String, QuarantinedMessage> data = new HashMap<>();
+                    data.put("message", replayed);
+                    return ServerResponse.status(HttpStatus.ACCEPTED).bodyValue(GeneralResponseDTO.<QuarantinedMessage>builder()
+                            .success(true)
+                            .message("Message replayed")
+                            .data(data)
+                            .build());
+                });
+    }
+
+    private static int parseIntOrDefault(String s, int def) {
+        try { return Integer.parseInt(s); } catch (Exception e) { return def; }
+    }
+}
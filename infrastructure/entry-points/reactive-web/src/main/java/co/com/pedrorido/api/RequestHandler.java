@@ -19,6 +19,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
@@ -28,6 +29,7 @@ import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
@@ -44,6 +46,10 @@ public class RequestHandler {
     private final RequestUseCase requestUseCase;
     private final TransactionalOperator tx;
 
+    /** Plazo para completar los datos de usuario del listado; al vencer se responde parcial. 0 = sin plazo. */
+    @Value("${entrypoint.listing.enrichmentDeadline:1500ms}")
+    private Duration enrichmentDeadline;
+
     @Operation(
             summary = "Guardar solicitud",
             description = "Recibe un objeto CreateRequestDTO en el cuerpo de la solicitud, lo procesa y guarda la solicitud. Devuelve la información de la solicitud guardada junto con un mensaje de éxito.",
@@ -113,6 +119,20 @@ public class RequestHandler {
                             in = ParameterIn.QUERY,
                             required = false,
                             schema = @Schema(type = "integer", defaultValue = "10")
+                    ),
+                    @Parameter(
+                            name = "includeTotal",
+                            description = "Si es false no se calcula el total; totalElements y totalPages vienen en -1 (opcional)",
+                            in = ParameterIn.QUERY,
+                            required = false,
+                            schema = @Schema(type = "boolean", defaultValue = "true")
+                    ),
+                    @Parameter(
+                            name = "cursor",
+                            description = "Token de continuación (opcional). Si está presente, aunque sea vacío, se pagina por cursor: vacío pide la primera página y el valor nextCursor de la respuesta pide la siguiente. Ignora 'page'.",
+                            in = ParameterIn.QUERY,
+                            required = false,
+                            schema = @Schema(type = "string")
                     )
             },
             responses = {
@@ -137,6 +157,7 @@ public class RequestHandler {
 
         int page = parseIntOrDefault(req.queryParam("page").orElse("0"), 0);
         int size = parseIntOrDefault(req.queryParam("size").orElse("20"), 10);
+        boolean includeTotal = !"false".equalsIgnoreCase(req.queryParam("includeTotal").orElse("true"));
 
         // estado puede venir como ?estado=PENDIENTE&estado=APROBADA o ?estado=PENDIENTE,APROBADA
         Set<Long> status = req.queryParams().getOrDefault("estado", List.of(StatusEnum.PENDING.getId().toString()))
@@ -146,10 +167,21 @@ public class RequestHandler {
                 .map(Long::valueOf)
                 .collect(Collectors.toSet());
 
-        return requestUseCase.getListByStatus(status, page, size)
+        // ?cursor=... activa la paginación por cursor (latencia constante sin importar la profundidad)
+        if (req.queryParams().containsKey("cursor")) {
+            String cursor = req.queryParam("cursor").orElse("");
+            return requestUseCase.getListByStatusAfter(status, cursor, size, listingDeadline())
+                    .flatMap(dto -> ServerResponse.ok().bodyValue(dto));
+        }
+
+        return requestUseCase.getListByStatus(status, page, size, includeTotal, listingDeadline())
                 .flatMap(dto -> org.springframework.web.reactive.function.server.ServerResponse.ok().bodyValue(dto));
     }
 
+    private Duration listingDeadline() {
+        return enrichmentDeadline == null || enrichmentDeadline.isZero() || enrichmentDeadline.isNegative() ? null : enrichmentDeadline;
+    }
+
     private static int parseIntOrDefault(String s, int def) {
         try { return Integer.parseInt(s); } catch (Exception e) { return def; }
     }
@@ -67,4 +67,34 @@ public class RouterRest {
                                 .contentType(MediaType.APPLICATION_JSON)
                                 .bodyValue(re.getBody())));
     }
+
+    @Bean
+    @RouterOperations({
+            @RouterOperation(
+                    path = "/api/v1/cuarentena",
+                    method = RequestMethod.GET,
+                    beanClass = QuarantineHandler.class,
+                    beanMethod = "listQuarantined",
+                    operation = @Operation(
+                            operationId = "listCuarentena",
+                            summary = "Listar mensajes en cuarentena",
+                            security = @SecurityRequirement(name = "bearerAuth")
+                    )
+            ),
+            @RouterOperation(
+                    path = "/api/v1/cuarentena/{id}/replay",
+                    method = RequestMethod.POST,
+                    beanClass = QuarantineHandler.class,
+                    beanMethod = "replayQuarantined",
+                    operation = @Operation(
+                            operationId = "replayCuarentena",
+                            summary = "Reenviar un mensaje en cuarentena a su cola",
+                            security = @SecurityRequirement(name = "bearerAuth")
+                    )
+            )
+    })
+    public RouterFunction<ServerResponse> quarantineRouterFunction(QuarantineHandler quarantineHandler) {
+        return route(GET("/api/v1/cuarentena"), quarantineHandler::listQuarantined)
+                .andRoute(POST("/api/v1/cuarentena/{id}/replay"), quarantineHandler::replayQuarantined);
+    }
 }
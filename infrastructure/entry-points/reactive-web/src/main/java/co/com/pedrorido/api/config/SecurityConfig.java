@@ -49,6 +49,7 @@ public class SecurityConfig {
                         .pathMatchers(HttpMethod.GET, "/api/v1/solicitud").hasRole("ADMIN")
                         .pathMatchers(HttpMethod.POST, "/api/v1/solicitud").hasRole("CLIENTE")
                         .pathMatchers(HttpMethod.PUT, "/api/v1/solicitud").hasRole("ASESOR")
+                        .pathMatchers("/api/v1/cuarentena/**").hasRole("ADMIN")
 
                         .anyExchange().authenticated()
                 )
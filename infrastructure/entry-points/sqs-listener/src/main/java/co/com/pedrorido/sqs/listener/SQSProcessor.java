@@ -1,35 +1,153 @@
 package co.com.pedrorido.sqs.listener;
 
+import co.com.pedrorido.codec.MessageCodec;
+import co.com.pedrorido.codec.PayloadCompactor;
 import co.com.pedrorido.model.external.RequestStatusChangeMessage;
+import co.com.pedrorido.model.requestdomain.InvalidStatusChangeException;
+import co.com.pedrorido.sqs.listener.helper.BatchMessageHandler;
+import co.com.pedrorido.sqs.listener.helper.PermanentMessageException;
 import co.com.pedrorido.usecase.apis.IRequestEventsApi;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
 
+import java.io.UncheckedIOException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class SQSProcessor implements Function<Message, Mono<Void>> {
+public class SQSProcessor implements Function<Message, Mono<Void>>, BatchMessageHandler {
     private final IRequestEventsApi myUseCase;
-    private final ObjectMapper objectMapper;
+    private final MessageCodec codec;
+    private final PayloadCompactor compactor;
+    private final TransactionalOperator tx;
 
     @Override
     public Mono<Void> apply(Message message) {
-        RequestStatusChangeMessage requestStatusChangeMessage = null;
-        try {
-            log.info("Processing message {}", message.body());
-            requestStatusChangeMessage = objectMapper.readValue(message.body(), RequestStatusChangeMessage.class);
-        } catch (Exception e) {
-            log.error("Error processing message {}", message.body(), e);
-            // Opcional: podrías ACKear para no ciclar si es definitivamente ilegible
-            return Mono.error(e);
+        log.info("Processing message {}", message.messageId());
+        log.debug("Message {} body {}", message.messageId(), message.body());
+
+        // Registro de idempotencia, cambio de estado y evento en outbox se confirman juntos
+        return decode(message)
+                .doOnError(PermanentMessageException.class, e -> log.error("Invalid message {}", message.messageId(), e))
+                .flatMap(evt -> myUseCase.onStatusChangeOnce(message.messageId(), evt)
+                        .as(tx::transactional))
+                .doOnNext(processed -> {
+                    if (!processed) {
+                        log.info("Duplicate message {} acknowledged without processing", message.messageId());
+                    }
+                })
+                // Transición imposible: reintentar no cambia el resultado; el resto de errores se reintenta
+                .onErrorMap(InvalidStatusChangeException.class, e -> new PermanentMessageException(e.getMessage(), e))
+                .then();
+    }
+
+    /**
+     * Modo lote: un solo caso de uso y una sola transacción para todo el lote. El cambio de estado
+     * es condicional (solo desde PENDING), así que una reentrega ya aplicada se confirma sin
+     * registro de mensajes procesados. Los ilegibles y las transiciones imposibles se rechazan
+     * como permanentes y los que no se aplicaron vuelven a la cola.
+     */
+    @Override
+    public Mono<Result> handleBatch(List<Message> messages) {
+        Map<String, RequestStatusChangeMessage> byMessage = new LinkedHashMap<>();
+        Map<String, Throwable> rejected = new HashMap<>();
+        return Flux.fromIterable(messages)
+                .concatMap(message -> decode(message)
+                        .doOnNext(evt -> byMessage.put(message.messageId(), evt))
+                        .onErrorResume(e -> {
+                            if (e instanceof PermanentMessageException) {
+                                log.error("Invalid message {}", message.messageId(), e);
+                                rejected.put(message.messageId(), e);
+                            } else {
+                                // Ni confirmado ni rechazado: vuelve a la cola
+                                log.warn("Message {} could not be decoded now: {}", message.messageId(), e.getMessage());
+                            }
+                            return Mono.empty();
+                        }))
+                .then(Mono.defer(() -> applyBatch(messages.size(), byMessage, rejected)));
+    }
+
+    private Mono<Result> applyBatch(int received, Map<String, RequestStatusChangeMessage> byMessage, Map<String, Throwable> rejected) {
+        // Por solicitud gana el primer evento del lote; los repetidos con el mismo destino se confirman con él
+        Map<UUID, String> targetByRequest = new LinkedHashMap<>();
+        List<RequestStatusChangeMessage> events = new ArrayList<>();
+        byMessage.values().forEach(evt -> {
+            if (targetByRequest.putIfAbsent(evt.solicitudId(), evt.estadoNuevo()) == null) {
+                events.add(evt);
+            }
+        });
+        if (events.isEmpty()) {
+            return Mono.just(new Result(Set.of(), rejected));
         }
 
-        return myUseCase.onStatusChange(requestStatusChangeMessage);
+        return myUseCase.onStatusChanges(events)
+                .as(tx::transactional)
+                .map(outcome -> {
+                    Set<String> ackable = new HashSet<>();
+                    Map<String, Throwable> failed = new HashMap<>(rejected);
+                    byMessage.forEach((messageId, evt) -> {
+                        if (!Objects.equals(targetByRequest.get(evt.solicitudId()), evt.estadoNuevo())) {
+                            return;
+                        }
+                        if (outcome.applied().contains(evt.solicitudId())) {
+                            ackable.add(messageId);
+                        } else if (outcome.invalid().contains(evt.solicitudId())) {
+                            // Transición imposible: reintentar no cambia el resultado
+                            log.error("Invalid status change in message {} for request {}", messageId, evt.solicitudId());
+                            failed.put(messageId, new PermanentMessageException("invalid status change"));
+                        }
+                    });
+                    log.info("Batch of {} messages: {} applied, {} rejected", received, ackable.size(), failed.size());
+                    return new Result(ackable, failed);
+                });
+    }
+
+    /**
+     * JSON plano (sin atributo de codificación) se lee directo del cuerpo; los formatos compactos
+     * pasan antes por {@link PayloadCompactor}. Un blob de claim-check ausente o un fallo al leerlo
+     * no son permanentes y el mensaje vuelve a la cola hasta agotar los reintentos.
+     */
+    private Mono<RequestStatusChangeMessage> decode(Message message) {
+        MessageAttributeValue encoding = message.messageAttributes().get(PayloadCompactor.ENCODING_ATTRIBUTE);
+        if (encoding == null) {
+            return Mono.fromCallable(() -> validate(codec.decodeStatusChange(message.body())))
+                    .onErrorMap(e -> !(e instanceof PermanentMessageException),
+                            e -> new PermanentMessageException("undecodable message", e));
+        }
+        return compactor.unpack(message.body(), encoding.stringValue())
+                .onErrorMap(e -> e instanceof IllegalArgumentException || e instanceof UncheckedIOException,
+                        e -> new PermanentMessageException("undecodable " + encoding.stringValue() + " message", e))
+                .flatMap(json -> Mono.fromCallable(() -> validate(codec.decodeStatusChange(json)))
+                        .onErrorMap(e -> !(e instanceof PermanentMessageException),
+                                e -> new PermanentMessageException("undecodable message", e)));
+    }
+
+    private static RequestStatusChangeMessage validate(RequestStatusChangeMessage evt) {
+        if (evt == null || evt.solicitudId() == null || evt.estadoNuevo() == null) {
+            throw new PermanentMessageException("missing solicitudId or estadoNuevo");
+        }
+        try {
+            Long.valueOf(evt.estadoNuevo());
+        } catch (NumberFormatException e) {
+            throw new PermanentMessageException("invalid estadoNuevo: " + evt.estadoNuevo(), e);
+        }
+        return evt;
     }
 }
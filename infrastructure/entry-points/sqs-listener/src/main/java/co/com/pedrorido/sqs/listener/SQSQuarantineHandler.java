@@ -0,0 +1,60 @@
+package co.com.pedrorido.sqs.listener;
+
+import co.com.pedrorido.codec.PayloadCompactor;
+import co.com.pedrorido.model.quarantine.QuarantinedMessage;
+import co.com.pedrorido.sqs.listener.helper.MessageQuarantine;
+import co.com.pedrorido.usecase.apis.IQuarantineApi;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+import java.nio.charset.StandardCharsets;
+
+@Component
+@RequiredArgsConstructor
+public class SQSQuarantineHandler implements MessageQuarantine {
+    private static final int MAX_REASON = 1000;
+
+    private final IQuarantineApi quarantineApi;
+    private final PayloadCompactor compactor;
+
+    @Override
+    public Mono<Void> quarantine(Message message, String queueUrl, int receiveCount, Throwable cause) {
+        return plainBody(message)
+                .flatMap(body -> quarantineApi.quarantine(QuarantinedMessage.builder()
+                        .messageId(message.messageId())
+                        .queueUrl(queueUrl)
+                        .body(body)
+                        .reason(reason(cause))
+                        .receiveCount(receiveCount)
+                        .build()))
+                .then();
+    }
+
+    /**
+     * El replay reenvía solo el cuerpo, sin atributos: un mensaje compacto se guarda ya
+     * expandido a JSON. Si no se puede expandir se guarda tal cual para inspección.
+     */
+    private Mono<String> plainBody(Message message) {
+        MessageAttributeValue encoding = message.messageAttributes().get(PayloadCompactor.ENCODING_ATTRIBUTE);
+        if (encoding == null) {
+            return Mono.just(message.body());
+        }
+        return compactor.unpack(message.body(), encoding.stringValue())
+                .map(json -> new String(json, StandardCharsets.UTF_8))
+                .onErrorReturn(message.body());
+    }
+
+    private static String reason(Throwable cause) {
+        if (cause == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(cause.getClass().getSimpleName()).append(": ").append(cause.getMessage());
+        if (cause.getCause() != null) {
+            sb.append(" <- ").append(cause.getCause().getClass().getSimpleName()).append(": ").append(cause.getCause().getMessage());
+        }
+        return sb.length() > MAX_REASON ? sb.substring(0, MAX_REASON) : sb.toString();
+    }
+}
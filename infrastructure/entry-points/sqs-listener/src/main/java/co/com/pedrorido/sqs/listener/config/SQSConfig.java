@@ -1,6 +1,13 @@
 package co.com.pedrorido.sqs.listener.config;
 
+import co.com.pedrorido.codec.MessageCodec;
+import co.com.pedrorido.sqs.listener.helper.BatchMessageHandler;
+import co.com.pedrorido.sqs.listener.helper.MessageKeyExtractor;
+import co.com.pedrorido.sqs.listener.helper.MessageQuarantine;
 import co.com.pedrorido.sqs.listener.helper.SQSListener;
+import co.com.pedrorido.sqs.listener.helper.SharedConcurrencyBudget;
+import co.com.pedrorido.sqs.listener.helper.SqsListenerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import reactor.core.publisher.Mono;
@@ -17,19 +24,68 @@ import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.model.Message;
 
 import java.net.URI;
+import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 @Configuration
 public class SQSConfig {
+    public static final String DEFAULT_LISTENER = "default";
+    public static final String DEFAULT_PROCESSOR = "SQSProcessor";
 
-    @Bean
-    public SQSListener sqsListener(SqsAsyncClient client, SQSProperties properties, Function<Message, Mono<Void>> fn) {
-        return SQSListener.builder()
-                .client(client)
-                .properties(properties)
-                .processor(fn)
-                .build()
-                .start();
+    /**
+     * La cola principal ({@code entrypoint.sqs.listener}) más las declaradas en
+     * {@code entrypoint.sqs.registry.queues}, todas bajo el mismo presupuesto de concurrencia.
+     * Cada cola toma su procesador por nombre de bean ({@code processor}; la principal usa
+     * {@value #DEFAULT_PROCESSOR} si no lo indica) y procesa por lotes si ese bean también es
+     * {@link BatchMessageHandler}.
+     */
+    @Bean(destroyMethod = "stop")
+    public SqsListenerRegistry sqsListenerRegistry(SqsAsyncClient client, SQSProperties properties, SqsListenerProps listenerProps,
+                                                   SqsListenerRegistryProps registryProps,
+                                                   Map<String, Function<Message, Mono<Void>>> processors, MessageCodec codec,
+                                                   Optional<MessageQuarantine> quarantine, MeterRegistry meterRegistry) {
+        String defaultProcessorName = listenerProps.getProcessor() == null || listenerProps.getProcessor().isBlank()
+                ? DEFAULT_PROCESSOR
+                : listenerProps.getProcessor();
+        Function<Message, Mono<Void>> defaultProcessor = processors.get(defaultProcessorName);
+        if (defaultProcessor == null) {
+            throw new IllegalStateException("SQS listener '" + DEFAULT_LISTENER + "' needs an existing processor bean, got processor="
+                    + defaultProcessorName);
+        }
+        MessageKeyExtractor keyExtractor = new MessageKeyExtractor(codec);
+        SqsListenerRegistry registry = new SqsListenerRegistry(
+                new SharedConcurrencyBudget(registryProps.getGlobalConcurrency(), meterRegistry));
+        registry.register(DEFAULT_LISTENER, SQSListener.builder()
+                        .client(client)
+                        .properties(properties)
+                        .listenerProps(listenerProps)
+                        .processor(defaultProcessor)
+                        .keyExtractor(keyExtractor)
+                        .batchHandler(defaultProcessor instanceof BatchMessageHandler batch ? batch : null)
+                        .quarantine(quarantine.orElse(null))
+                        .meterRegistry(meterRegistry),
+                listenerProps.getWeight(), listenerProps.getPriority());
+
+        registryProps.getQueues().forEach((name, queueProps) -> {
+            Function<Message, Mono<Void>> processor = processors.get(queueProps.getProcessor());
+            if (queueProps.getQueueUrl() == null || queueProps.getQueueUrl().isBlank() || processor == null) {
+                throw new IllegalStateException("SQS listener '" + name + "' needs queueUrl and an existing processor bean, got processor="
+                        + queueProps.getProcessor());
+            }
+            registry.register(name, SQSListener.builder()
+                            .client(client)
+                            .properties(properties)
+                            .listenerProps(queueProps)
+                            .processor(processor)
+                            .keyExtractor(keyExtractor)
+                            .batchHandler(processor instanceof BatchMessageHandler batch ? batch : null)
+                            .quarantine(quarantine.orElse(null))
+                            .meterRegistry(meterRegistry),
+                    queueProps.getWeight(), queueProps.getPriority());
+        });
+        // Lo arranca y lo drena SqsListenerLifecycle; stop() queda como corte final si el drenado no llegó a correr
+        return registry;
     }
 
     @Bean
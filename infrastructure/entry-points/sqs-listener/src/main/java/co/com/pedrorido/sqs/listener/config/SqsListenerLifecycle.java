@@ -0,0 +1,56 @@
+package co.com.pedrorido.sqs.listener.config;
+
+import co.com.pedrorido.sqs.listener.helper.SqsListenerRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Arranca los listeners con el contexto y, al apagar, los drena antes que cualquier otro
+ * componente (fase más alta): así los eventos que generen los mensajes en vuelo todavía
+ * encuentran la outbox y el publicador SQS activos.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class SqsListenerLifecycle implements SmartLifecycle {
+    private final SqsListenerRegistry registry;
+    private final SqsListenerRegistryProps registryProps;
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        registry.start();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        registry.drain(registryProps.getDrainTimeout()).block();
+        running = false;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        registry.drain(registryProps.getDrainTimeout())
+                .doOnError(e -> log.error("SQS listeners drain failed", e))
+                .onErrorResume(e -> Mono.empty())
+                .doFinally(signal -> {
+                    running = false;
+                    callback.run();
+                })
+                .subscribe();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+}
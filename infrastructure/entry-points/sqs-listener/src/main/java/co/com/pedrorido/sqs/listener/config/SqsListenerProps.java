@@ -5,17 +5,39 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.time.Duration;
 
+/**
+ * Ajustes de un consumidor de cola. La cola principal se configura en
+ * {@code entrypoint.sqs.listener}; las adicionales en {@code entrypoint.sqs.registry.queues.<nombre>},
+ * donde {@code processor} es el nombre del bean {@code Function<Message, Mono<Void>>} que las procesa.
+ */
 @ConfigurationProperties(prefix = "entrypoint.sqs.listener")
 @Data
 public class SqsListenerProps {
     private String queueUrl;
-    private int maxMessages = 10;
-    private int waitTimeSeconds = 20;
-    private int visibilityTimeoutSeconds = 60;
+    private String processor;
+    private int weight = 1;
+    private int priority = 0;
+    /** Recepción propia de la cola; sin valor se usan los de {@code entrypoint.sqs}. */
+    private Integer maxMessages;
+    private Integer waitTimeSeconds;
+    private Integer visibilityTimeoutSeconds;
     private int requeueVisibilityOnErrorSeconds = 30;
     private int concurrency = 8;
     private Duration idleDelay = Duration.ofMillis(200);
     private Duration handleTimeout = Duration.ofSeconds(30);
     private Duration errorBackoff = Duration.ofSeconds(1);
-    private int maxRetries = Integer.MAX_VALUE;
+    private Duration ackWindow = Duration.ofMillis(100);
+    private int maxRetries = 5;
+    private boolean heartbeatEnabled = true;
+    private Duration maxVisibilityExtension = Duration.ofMinutes(5);
+    private boolean batchEnabled = false;
+    private int batchSize = 50;
+    private Duration batchWindow = Duration.ofMillis(50);
+    private boolean adaptiveEnabled = false;
+    private Duration adaptiveInterval = Duration.ofSeconds(5);
+    private int minReceivers = 1;
+    private int maxReceivers = 4;
+    private int minInFlight = 1;
+    private int maxInFlight = 32;
+    private Duration targetLatency = Duration.ofSeconds(2);
 }
\ No newline at end of file
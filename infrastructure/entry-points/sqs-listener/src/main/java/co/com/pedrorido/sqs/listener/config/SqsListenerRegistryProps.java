@@ -0,0 +1,17 @@
+package co.com.pedrorido.sqs.listener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "entrypoint.sqs.registry")
+@Data
+public class SqsListenerRegistryProps {
+    private int globalConcurrency = 32;
+    /** Plazo para terminar lo que está en vuelo al apagar; debe ser menor que spring.lifecycle.timeout-per-shutdown-phase. */
+    private Duration drainTimeout = Duration.ofSeconds(20);
+    private Map<String, SqsListenerProps> queues = new LinkedHashMap<>();
+}
@@ -0,0 +1,205 @@
+package co.com.pedrorido.sqs.listener.helper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.log4j.Log4j2;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ajusta receptores activos y handlers en vuelo según la profundidad de la cola
+ * (ApproximateNumberOfMessages) y la latencia propia de procesamiento:
+ * <ul>
+ *     <li>Cola vacía: un solo receptor de long polling y el mínimo de handlers.</li>
+ *     <li>Latencia media sobre el objetivo: el límite en vuelo baja un 25% (la dependencia está saturada).</li>
+ *     <li>Backlog mayor que el límite: sube un 25% (al menos uno); backlog bajo: baja de a uno.</li>
+ * </ul>
+ * Los receptores se ajustan a los necesarios para alimentar ese límite con lotes de
+ * {@code batchSize}. Si la consulta de atributos falla se conserva la configuración actual.
+ */
+@Log4j2
+public class AdaptiveController {
+    private final SqsAsyncClient client;
+    private final String queueUrl;
+    private final int batchSize;
+    private final int minReceivers;
+    private final int maxReceivers;
+    private final int minInFlight;
+    private final int maxInFlight;
+    private final Duration targetLatency;
+
+    private final AtomicInteger activeReceivers;
+    private final AtomicInteger inFlightLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong backlog = new AtomicLong(-1);
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final Queue<Sinks.One<Void>> waiters = new ArrayDeque<>();
+
+    public AdaptiveController(SqsAsyncClient client, String queueUrl, int batchSize,
+                              int minReceivers, int maxReceivers, int minInFlight, int maxInFlight,
+                              Duration targetLatency, MeterRegistry registry, String operation) {
+        this.client = client;
+        this.queueUrl = queueUrl;
+        this.batchSize = Math.max(1, batchSize);
+        this.minReceivers = Math.max(1, minReceivers);
+        this.maxReceivers = Math.max(this.minReceivers, maxReceivers);
+        this.minInFlight = Math.max(1, minInFlight);
+        this.maxInFlight = Math.max(this.minInFlight, maxInFlight);
+        this.targetLatency = targetLatency;
+        this.activeReceivers = new AtomicInteger(this.minReceivers);
+        this.inFlightLimit = new AtomicInteger(this.minInFlight);
+        if (registry != null) {
+            registry.gauge("sqs.listener.receivers.active", Tags.of("operation", operation), activeReceivers);
+            registry.gauge("sqs.listener.inflight.limit", Tags.of("operation", operation), inFlightLimit);
+            registry.gauge("sqs.listener.inflight.active", Tags.of("operation", operation), inFlight);
+            registry.gauge("sqs.listener.backlog", Tags.of("operation", operation), backlog);
+        }
+    }
+
+    public Disposable start(Duration interval) {
+        return Flux.interval(Duration.ZERO, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> sampleBacklog()
+                        .doOnNext(this::adjust)
+                        .onErrorResume(e -> {
+                            log.warn("Could not read queue depth of {}: {}", queueUrl, e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    public int maxReceivers() {
+        return maxReceivers;
+    }
+
+    public int maxInFlight() {
+        return maxInFlight;
+    }
+
+    /** El receptor {@code index} (base 0) solo sondea mientras esté dentro de los activos. */
+    public boolean receiverActive(int index) {
+        return index < activeReceivers.get();
+    }
+
+    /** Espera un cupo de procesamiento; se libera con {@link #release(long)}. */
+    public Mono<Void> acquire() {
+        return Mono.defer(() -> {
+            synchronized (waiters) {
+                if (inFlight.get() < inFlightLimit.get()) {
+                    inFlight.incrementAndGet();
+                    return Mono.empty();
+                }
+                Sinks.One<Void> waiter = Sinks.one();
+                waiters.add(waiter);
+                return waiter.asMono().doOnCancel(() -> abandon(waiter));
+            }
+        });
+    }
+
+    /** Libera el cupo y registra cuánto tardó el procesamiento. */
+    public void release(long elapsedNanos) {
+        latencyNanos.add(elapsedNanos);
+        completed.increment();
+        inFlight.decrementAndGet();
+        drainWaiters();
+    }
+
+    void adjust(long currentBacklog) {
+        backlog.set(currentBacklog);
+        long count = completed.sumThenReset();
+        long nanos = latencyNanos.sumThenReset();
+        Duration avgLatency = count == 0 ? Duration.ZERO : Duration.ofNanos(nanos / count);
+
+        int limit = inFlightLimit.get();
+        int nextLimit;
+        if (currentBacklog == 0) {
+            nextLimit = minInFlight;
+        } else if (avgLatency.compareTo(targetLatency) > 0) {
+            nextLimit = limit - Math.max(1, limit / 4);
+        } else if (currentBacklog > limit) {
+            nextLimit = limit + Math.max(1, limit / 4);
+        } else if (currentBacklog < limit / 2) {
+            nextLimit = limit - 1;
+        } else {
+            nextLimit = limit;
+        }
+        nextLimit = clamp(nextLimit, minInFlight, maxInFlight);
+
+        int nextReceivers = currentBacklog == 0
+                ? minReceivers
+                : clamp(Math.min(ceilDiv(currentBacklog, batchSize), ceilDiv(nextLimit, batchSize)), minReceivers, maxReceivers);
+
+        if (nextLimit != limit || nextReceivers != activeReceivers.get()) {
+            log.info("SQS adaptive {}: backlog={}, avgLatency={}ms, inFlight {}->{}, receivers {}->{}",
+                    queueUrl, currentBacklog, avgLatency.toMillis(), limit, nextLimit, activeReceivers.get(), nextReceivers);
+        }
+        inFlightLimit.set(nextLimit);
+        activeReceivers.set(nextReceivers);
+        drainWaiters();
+    }
+
+    int inFlightLimit() {
+        return inFlightLimit.get();
+    }
+
+    int activeReceivers() {
+        return activeReceivers.get();
+    }
+
+    private void abandon(Sinks.One<Void> waiter) {
+        boolean granted;
+        synchronized (waiters) {
+            granted = !waiters.remove(waiter);
+        }
+        if (granted) {
+            // El cupo ya se había concedido a un suscriptor que se fue
+            inFlight.decrementAndGet();
+            drainWaiters();
+        }
+    }
+
+    private void drainWaiters() {
+        while (true) {
+            Sinks.One<Void> next;
+            synchronized (waiters) {
+                if (waiters.isEmpty() || inFlight.get() >= inFlightLimit.get()) {
+                    return;
+                }
+                next = waiters.poll();
+                inFlight.incrementAndGet();
+            }
+            next.tryEmitEmpty();
+        }
+    }
+
+    private Mono<Long> sampleBacklog() {
+        return Mono.fromCallable(() -> GetQueueAttributesRequest.builder()
+                        .queueUrl(queueUrl)
+                        .attributeNames(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES)
+                        .build())
+                .flatMap(request -> Mono.fromFuture(client.getQueueAttributes(request)))
+                .map(response -> Long.parseLong(response.attributes()
+                        .getOrDefault(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES, "0")));
+    }
+
+    private static long ceilDiv(long value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    private static int clamp(long value, int min, int max) {
+        return (int) Math.max(min, Math.min(max, value));
+    }
+}
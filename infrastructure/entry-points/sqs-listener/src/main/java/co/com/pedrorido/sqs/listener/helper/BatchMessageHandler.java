@@ -0,0 +1,23 @@
+package co.com.pedrorido.sqs.listener.helper;
+
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** Procesa un lote de mensajes recibidos e indica qué hacer con cada uno. */
+public interface BatchMessageHandler {
+    Mono<Result> handleBatch(List<Message> messages);
+
+    /**
+     * {@code acknowledged}: messageId aplicados, se confirman. {@code rejected}: messageId con su
+     * error (p. ej. {@link PermanentMessageException} para los ilegibles). El resto se reintenta.
+     */
+    record Result(Set<String> acknowledged, Map<String, Throwable> rejected) {
+        public static Result of(Set<String> acknowledged) {
+            return new Result(acknowledged, Map.of());
+        }
+    }
+}
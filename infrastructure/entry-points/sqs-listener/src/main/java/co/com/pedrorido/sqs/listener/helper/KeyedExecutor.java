@@ -0,0 +1,127 @@
+package co.com.pedrorido.sqs.listener.helper;
+
+import lombok.extern.log4j.Log4j2;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta tareas en carriles: todas las tareas con la misma clave caen en el mismo carril
+ * y se ejecutan en orden, una a la vez; carriles distintos avanzan en paralelo sobre el
+ * scheduler paralelo. El número de carriles limita la concurrencia total.
+ * Cada carril admite a lo sumo {@code laneDepth} tareas (la que corre y las que esperan turno);
+ * las siguientes de ese carril esperan cupo sin frenar a los demás carriles.
+ */
+@Log4j2
+public class KeyedExecutor {
+    private final List<Lane> lanes;
+    private final List<Disposable> workers = new ArrayList<>();
+    private final int laneDepth;
+
+    public KeyedExecutor(int laneCount) {
+        this(laneCount, Integer.MAX_VALUE);
+    }
+
+    public KeyedExecutor(int laneCount, int laneDepth) {
+        int count = Math.max(1, laneCount);
+        this.laneDepth = Math.max(1, laneDepth);
+        Scheduler scheduler = Schedulers.parallel();
+        this.lanes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Lane lane = new Lane();
+            lanes.add(lane);
+            workers.add(lane.tasks.asFlux()
+                    .publishOn(scheduler, 1)
+                    .concatMap(task -> task.run().doFinally(signal -> lane.release()))
+                    .subscribe());
+        }
+    }
+
+    /** Encola la tarea en el carril de la clave; el Mono devuelto termina cuando la tarea termina. */
+    public Mono<Void> submit(String key, Supplier<Mono<Void>> work) {
+        return dispatch(key, work).flatMap(done -> done);
+    }
+
+    /**
+     * Admite la tarea en el carril de la clave sin esperar a que termine: emite, al entrar al
+     * carril, el Mono que termina con la tarea. Si el carril ya tiene {@code laneDepth} tareas,
+     * solo esta admisión espera a que una de ellas termine.
+     */
+    public Mono<Mono<Void>> dispatch(String key, Supplier<Mono<Void>> work) {
+        return Mono.create(sink -> {
+            Sinks.One<Void> done = Sinks.one();
+            lanes.get(laneOf(key)).admit(new Admission(new Task(work, done), () -> sink.success(done.asMono())));
+        });
+    }
+
+    public int laneCount() {
+        return lanes.size();
+    }
+
+    public void shutdown() {
+        lanes.forEach(lane -> lane.tasks.tryEmitComplete());
+        workers.forEach(Disposable::dispose);
+    }
+
+    int laneOf(String key) {
+        return key == null ? 0 : Math.floorMod(key.hashCode(), lanes.size());
+    }
+
+    private final class Lane {
+        private final Sinks.Many<Task> tasks = Sinks.many().unicast().onBackpressureBuffer();
+        private final Queue<Admission> waiting = new ArrayDeque<>();
+        private int admitted;
+
+        void admit(Admission admission) {
+            synchronized (this) {
+                if (admitted >= laneDepth) {
+                    waiting.add(admission);
+                    return;
+                }
+                admitted++;
+            }
+            enter(admission);
+        }
+
+        /** Terminó una tarea del carril: su cupo pasa a la primera admisión en espera. */
+        void release() {
+            Admission next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    admitted--;
+                    return;
+                }
+            }
+            enter(next);
+        }
+
+        private void enter(Admission admission) {
+            tasks.emitNext(admission.task(), Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+            admission.onAdmitted().run();
+        }
+    }
+
+    private record Admission(Task task, Runnable onAdmitted) {
+    }
+
+    private record Task(Supplier<Mono<Void>> work, Sinks.One<Void> done) {
+        Mono<Void> run() {
+            return Mono.defer(work)
+                    .doOnSuccess(v -> done.tryEmitEmpty())
+                    .onErrorResume(e -> {
+                        done.tryEmitError(e);
+                        return Mono.empty();
+                    });
+        }
+    }
+}
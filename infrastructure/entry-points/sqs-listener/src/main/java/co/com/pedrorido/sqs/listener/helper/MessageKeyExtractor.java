@@ -0,0 +1,36 @@
+package co.com.pedrorido.sqs.listener.helper;
+
+import co.com.pedrorido.codec.MessageCodec;
+import co.com.pedrorido.codec.PayloadCompactor;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+import java.util.function.Function;
+
+/**
+ * Clave de orden de un mensaje: el atributo {@value MessageCodec#ORDERING_KEY_ATTRIBUTE} que pone
+ * el emisor (obligatorio para cuerpos compactados, que no se pueden leer); si no viene, el id de
+ * la solicitud, el usuario o el email del cuerpo JSON; si nada de eso se puede leer, el id del
+ * mensaje.
+ */
+public class MessageKeyExtractor implements Function<Message, String> {
+    private final MessageCodec codec;
+
+    public MessageKeyExtractor(MessageCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public String apply(Message message) {
+        MessageAttributeValue attribute = message.messageAttributes().get(MessageCodec.ORDERING_KEY_ATTRIBUTE);
+        if (attribute != null && attribute.stringValue() != null && !attribute.stringValue().isBlank()) {
+            return attribute.stringValue();
+        }
+        if (message.messageAttributes().containsKey(PayloadCompactor.ENCODING_ATTRIBUTE)) {
+            // Cuerpo compactado sin clave: no se descomprime solo para ordenar
+            return message.messageId();
+        }
+        String key = message.body() != null ? codec.orderingKey(message.body()) : null;
+        return key != null ? key : message.messageId();
+    }
+}
@@ -0,0 +1,9 @@
+package co.com.pedrorido.sqs.listener.helper;
+
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/** Destino de los mensajes que no deben volver a la cola; al completar, el listener los confirma. */
+public interface MessageQuarantine {
+    Mono<Void> quarantine(Message message, String queueUrl, int receiveCount, Throwable cause);
+}
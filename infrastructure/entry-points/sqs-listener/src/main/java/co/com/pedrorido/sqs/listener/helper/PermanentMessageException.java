@@ -0,0 +1,24 @@
+package co.com.pedrorido.sqs.listener.helper;
+
+/**
+ * Fallo que no se corrige reintentando (mensaje ilegible o inválido, transición imposible).
+ * El listener lo envía a cuarentena y lo confirma en lugar de devolverlo a la cola.
+ */
+public class PermanentMessageException extends RuntimeException {
+    public PermanentMessageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public PermanentMessageException(String message) {
+        super(message);
+    }
+
+    public static boolean isPermanent(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof PermanentMessageException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
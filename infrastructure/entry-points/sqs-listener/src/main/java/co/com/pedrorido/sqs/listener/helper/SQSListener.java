@@ -1,79 +1,508 @@
 package co.com.pedrorido.sqs.listener.helper;
 
+import co.com.pedrorido.codec.MessageCodec;
 import co.com.pedrorido.sqs.listener.config.SQSProperties;
+import co.com.pedrorido.sqs.listener.config.SqsListenerProps;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.Builder;
 import lombok.extern.log4j.Log4j2;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
 import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
 import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
+/**
+ * Motor de consumo: {@code numberOfThreads} receptores de long polling alimentan una etapa
+ * de procesamiento con {@link SqsListenerProps#getConcurrency()} carriles ({@link KeyedExecutor}):
+ * los mensajes de una misma solicitud se procesan en orden y las distintas en paralelo.
+ * Cada mensaje tiene un timeout propio; si falla se acorta su visibilidad para que vuelva
+ * pronto a la cola en vez de esperar el visibility timeout completo. Los acks se agrupan
+ * en DeleteMessageBatch por tamaño (10) o por ventana de tiempo. Mientras un mensaje está
+ * en proceso, {@link VisibilityHeartbeat} extiende su visibilidad.
+ * Con {@link SqsListenerProps#isBatchEnabled()} y un {@link BatchMessageHandler} los mensajes
+ * se agrupan por tamaño o ventana y se procesan lote a lote; el handler indica cuáles confirmar.
+ * Un fallo permanente ({@link PermanentMessageException}) o agotar {@code maxRetries} recepciones
+ * manda el mensaje a {@link MessageQuarantine} y lo confirma; los demás fallos se reintentan.
+ * Con {@link SqsListenerProps#isAdaptiveEnabled()} un {@link AdaptiveController} decide cuántos
+ * receptores sondean y cuántos handlers corren según la profundidad de la cola. Dentro de un
+ * {@link SqsListenerRegistry} cada handler toma además un cupo del {@link SharedConcurrencyBudget}.
+ * {@link #drain(Duration)} apaga de forma ordenada: deja de recibir, espera a los mensajes en vuelo,
+ * devuelve a la cola los que no terminaron a tiempo y vacía los acks pendientes.
+ */
 @Log4j2
 @Builder
 public class SQSListener {
+    private static final int MAX_BATCH = 10;
+    private static final int LANE_DEPTH = 2;
+
     private final SqsAsyncClient client;
     private final SQSProperties properties;
+    private final SqsListenerProps listenerProps;
     private final Function<Message, Mono<Void>> processor;
+    private final MeterRegistry meterRegistry;
+    private final Function<Message, String> keyExtractor;
+    private final BatchMessageHandler batchHandler;
+    private final MessageQuarantine quarantine;
+    private final SharedConcurrencyBudget budget;
+    private final String name;
     private String operation;
+    private VisibilityHeartbeat heartbeat;
+    private KeyedExecutor executor;
+    private AdaptiveController controller;
+
+    private final Sinks.Many<Message> acks = Sinks.many().unicast().onBackpressureBuffer();
+    private final List<Disposable> running = new ArrayList<>();
+    private final Sinks.Empty<Void> stopReceiving = Sinks.empty();
+    private final Sinks.Empty<Void> processingDone = Sinks.empty();
+    private final Sinks.Empty<Void> acksDone = Sinks.empty();
+    private final Map<String, Message> inFlight = new ConcurrentHashMap<>();
+    private Disposable processing;
 
     public SQSListener start() {
-        this.operation = "MessageFrom:" + properties.queueUrl();
-        ExecutorService service = Executors.newFixedThreadPool(properties.numberOfThreads());
-        Flux<Void> flow = listenRetryRepeat().publishOn(Schedulers.fromExecutorService(service));
-        for (var i = 0; i < properties.numberOfThreads(); i++) {
-            flow.subscribe();
+        this.operation = "MessageFrom:" + queueUrl();
+        int receivers = Math.max(1, properties.numberOfThreads());
+        if (props().isAdaptiveEnabled()) {
+            controller = new AdaptiveController(client, queueUrl(), maxMessages(),
+                    props().getMinReceivers(), props().getMaxReceivers(), props().getMinInFlight(), props().getMaxInFlight(),
+                    props().getTargetLatency(), meterRegistry, operation);
+            running.add(controller.start(props().getAdaptiveInterval()));
+            receivers = controller.maxReceivers();
+        }
+        log.info("SQS listener starting: queue={}, receivers={}, concurrency={}, handleTimeout={}, adaptive={}",
+                queueUrl(), receivers, props().getConcurrency(), props().getHandleTimeout(), controller != null);
+
+        running.add(acks.asFlux()
+                .bufferTimeout(MAX_BATCH, props().getAckWindow())
+                .concatMap(this::confirm)
+                .doFinally(signal -> acksDone.tryEmitEmpty())
+                .subscribe());
+
+        if (props().isHeartbeatEnabled()) {
+            heartbeat = new VisibilityHeartbeat(client, queueUrl(), visibilityTimeoutSeconds(),
+                    props().getMaxVisibilityExtension(), meterRegistry, operation);
+            running.add(heartbeat.start());
         }
+
+        processing = listen(receivers)
+                .doFinally(signal -> processingDone.tryEmitEmpty())
+                .subscribe();
         return this;
     }
 
-    private Flux<Void> listenRetryRepeat() {
-        return listen()
-                .doOnError(e -> log.error("Error listening sqs queue", e))
+    /** Corte inmediato: lo que estaba en vuelo vuelve a la cola al vencer su visibilidad. */
+    public void stop() {
+        if (processing != null) {
+            processing.dispose();
+        }
+        running.forEach(Disposable::dispose);
+        running.clear();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Apagado ordenado dentro de {@code deadline}: corta el long polling, deja terminar los
+     * handlers en vuelo (y los lotes ya armados), libera con visibilidad 0 los que no alcanzaron
+     * a terminar para que otra instancia los tome de inmediato y envía los acks pendientes.
+     */
+    public Mono<Void> drain(Duration deadline) {
+        return Mono.defer(() -> {
+            if (processing == null) {
+                return Mono.<Void>empty();
+            }
+            long start = System.nanoTime();
+            log.info("SQS listener draining: queue={}, inFlight={}, deadline={}", queueUrl(), inFlight.size(), deadline);
+            stopReceiving.tryEmitEmpty();
+            return processingDone.asMono()
+                    .timeout(deadline, Mono.fromRunnable(() ->
+                            log.warn("SQS listener {}: drain deadline reached, cancelling handlers", queueUrl())))
+                    .then(Mono.defer(this::releaseInFlight))
+                    .then(Mono.defer(() -> {
+                        acks.tryEmitComplete();
+                        Duration left = deadline.minusNanos(System.nanoTime() - start);
+                        return acksDone.asMono().timeout(left.isNegative() ? Duration.ZERO : left, Mono.fromRunnable(() ->
+                                log.warn("SQS listener {}: pending acks not flushed before deadline", queueUrl())));
+                    }))
+                    .doFinally(signal -> {
+                        stop();
+                        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+                        log.info("SQS listener drained: queue={}, took={}ms", queueUrl(), elapsed.toMillis());
+                        if (meterRegistry != null) {
+                            meterRegistry.timer("sqs.listener.drain.duration", "operation", operation).record(elapsed);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Cancela los handlers que sigan corriendo y devuelve a la cola, sin esperar la visibilidad, todo
+     * lo que siga en vuelo: los que no terminaron a tiempo y los recibidos que quedaron en el buffer
+     * de los receptores sin llegar a un handler.
+     */
+    private Mono<Void> releaseInFlight() {
+        List<Message> pending = new ArrayList<>(inFlight.values());
+        processing.dispose();
+        if (pending.isEmpty()) {
+            return Mono.empty();
+        }
+        log.warn("SQS listener {}: releasing {} in-flight messages", queueUrl(), pending.size());
+        if (meterRegistry != null) {
+            meterRegistry.counter("sqs.listener.drain.released", "operation", operation).increment(pending.size());
+        }
+        return Flux.fromIterable(pending)
+                .buffer(MAX_BATCH)
+                .concatMap(batch -> Mono.fromCallable(() -> getReleaseRequest(batch))
+                        .flatMap(request -> Mono.fromFuture(client.changeMessageVisibilityBatch(request)))
+                        .doOnError(e -> log.warn("Could not release {} messages: {}", batch.size(), e.getMessage()))
+                        .onErrorResume(e -> Mono.empty()))
+                .then();
+    }
+
+    Flux<Void> listen(int receivers) {
+        // Con control adaptativo hay carriles para el máximo en vuelo; el controlador limita cuántos corren
+        int lanes = Math.max(1, controller != null
+                ? Math.max(props().getConcurrency(), controller.maxInFlight())
+                : props().getConcurrency());
+        executor = new KeyedExecutor(lanes, LANE_DEPTH);
+        Function<Message, String> keyOf = keyExtractor != null ? keyExtractor : new MessageKeyExtractor(new MessageCodec());
+        // Prefetch de un lote por receptor: cada uno vuelve a recibir cuando se consume su lote
+        // Al drenar se cancela el long polling en curso; flatMap sigue esperando a los handlers ya lanzados
+        // y lo que quedó en el buffer del merge se libera junto con el resto de inFlight
+        Flux<Message> received = Flux.merge(Flux.range(0, receivers).map(this::receiveLoop),
+                        receivers, Math.max(MAX_BATCH, maxMessages()))
+                .takeUntilOther(stopReceiving.asMono());
+        if (props().isBatchEnabled() && batchHandler != null) {
+            // Lotes independientes entre sí: la transición condicional en base resuelve los choques
+            return received
+                    .bufferTimeout(Math.max(1, props().getBatchSize()), props().getBatchWindow())
+                    .flatMap(batch -> limited(() -> handleBatch(batch)), lanes);
+        }
+        // Cada carril admite LANE_DEPTH mensajes (uno ejecutando y otro esperando turno); el flatMap
+        // solo acota los que esperan cupo en un carril lleno, así una clave caliente no frena a las demás
+        return received
+                .flatMap(message -> executor.dispatch(keyOf.apply(message), () -> limited(() -> handle(message))),
+                        lanes * LANE_DEPTH, 1)
+                .flatMap(done -> done, Integer.MAX_VALUE);
+    }
+
+    /** Un receptor: long polling continuo, pausa si la cola está vacía y backoff exponencial ante errores. */
+    private Flux<Message> receiveLoop(int index) {
+        Duration backoff = props().getErrorBackoff();
+        return Mono.defer(() -> controller == null || controller.receiverActive(index)
+                        ? getMessages()
+                        : Mono.<List<Message>>just(List.of()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, backoff)
+                        .maxBackoff(backoff.multipliedBy(30))
+                        .transientErrors(true)
+                        .doBeforeRetry(signal -> log.error("Error receiving from sqs (attempt {})",
+                                signal.totalRetriesInARow() + 1, signal.failure())))
+                .flatMap(messages -> messages.isEmpty()
+                        ? Mono.delay(props().getIdleDelay()).thenReturn(messages)
+                        : Mono.just(messages))
+                .flatMapIterable(messages -> messages)
+                // Se rastrea al recibir: el heartbeat y el drenado cubren también lo que espera en el buffer
+                .doOnNext(this::track)
                 .repeat();
     }
 
-    private Flux<Void> listen() {
-        return getMessages()
-                .flatMap(message -> processor.apply(message)
-                        .name("async_operation")
-                        .tag("operation", operation)
-                        .metrics()
-                        .then(confirm(message)))
-                .onErrorContinue((e, o) -> log.error("Error listening sqs message", e));
+    /** Cupo del controlador adaptativo (si hay) y luego del presupuesto compartido (si hay). */
+    private Mono<Void> limited(Supplier<Mono<Void>> work) {
+        if (controller == null && budget == null) {
+            return work.get();
+        }
+        Mono<Void> permits = (controller != null ? controller.acquire() : Mono.<Void>empty())
+                .then(budget != null ? budget.acquire(name) : Mono.<Void>empty());
+        return permits.then(Mono.defer(() -> {
+            long start = System.nanoTime();
+            return work.get().doFinally(signal -> {
+                if (budget != null) {
+                    budget.release(name);
+                }
+                if (controller != null) {
+                    controller.release(System.nanoTime() - start);
+                }
+            });
+        }));
+    }
+
+    private Mono<Void> handle(Message message) {
+        return Mono.defer(() -> processor.apply(message))
+                .name("async_operation")
+                .tag("operation", operation)
+                .metrics()
+                .timeout(props().getHandleTimeout())
+                .doOnTerminate(() -> untrack(message))
+                .doOnCancel(() -> untrack(message))
+                .then(Mono.fromRunnable(() -> ack(message)))
+                .onErrorResume(e -> onFailure(message, e))
+                .then();
+    }
+
+    private Mono<Void> handleBatch(List<Message> batch) {
+        if (meterRegistry != null) {
+            meterRegistry.summary("sqs.listener.batch.size", "operation", operation).record(batch.size());
+        }
+        return Mono.defer(() -> batchHandler.handleBatch(batch))
+                .name("async_operation")
+                .tag("operation", operation)
+                .metrics()
+                .timeout(props().getHandleTimeout())
+                .doFinally(signal -> batch.forEach(this::untrack))
+                .flatMap(result -> Flux.fromIterable(batch)
+                        .concatMap(message -> {
+                            if (result.acknowledged().contains(message.messageId())) {
+                                return Mono.fromRunnable(() -> ack(message));
+                            }
+                            Throwable error = result.rejected().get(message.messageId());
+                            return onFailure(message, error != null ? error : new IllegalStateException("message not applied in batch"));
+                        })
+                        .then())
+                .onErrorResume(e -> Flux.fromIterable(batch).concatMap(message -> onFailure(message, e)).then());
+    }
+
+    private Mono<Void> onFailure(Message message, Throwable error) {
+        int receiveCount = receiveCount(message);
+        boolean permanent = PermanentMessageException.isPermanent(error);
+        if (permanent || receiveCount >= props().getMaxRetries()) {
+            return toQuarantine(message, receiveCount, permanent, error);
+        }
+        log.error("Error processing sqs message {} (receive {}), requeue in {}s",
+                message.messageId(), receiveCount, props().getRequeueVisibilityOnErrorSeconds(), error);
+        count("sqs.listener.message.failed");
+        return requeue(message);
+    }
+
+    private Mono<Void> toQuarantine(Message message, int receiveCount, boolean permanent, Throwable error) {
+        String cause = permanent ? "permanent" : "max_retries";
+        if (quarantine == null) {
+            // Sin cuarentena configurada: se descarta para no ciclar indefinidamente
+            log.error("Message {} discarded ({}) after {} receives", message.messageId(), cause, receiveCount, error);
+            count("sqs.listener.message.discarded");
+            ack(message);
+            return Mono.empty();
+        }
+        return quarantine.quarantine(message, queueUrl(), receiveCount, error)
+                .then(Mono.fromRunnable(() -> {
+                    log.warn("Message {} quarantined ({}) after {} receives: {}",
+                            message.messageId(), cause, receiveCount, error.getMessage());
+                    if (meterRegistry != null) {
+                        meterRegistry.counter("sqs.listener.message.quarantined", "operation", operation, "cause", cause).increment();
+                    }
+                    ack(message);
+                }))
+                .onErrorResume(e -> {
+                    // Si no se pudo guardar, el mensaje sigue en la cola y se intentará de nuevo
+                    log.error("Could not quarantine message {}", message.messageId(), e);
+                    return requeue(message);
+                })
+                .then();
+    }
+
+    private Mono<Void> requeue(Message message) {
+        return Mono.fromCallable(() -> ChangeMessageVisibilityRequest.builder()
+                        .queueUrl(queueUrl())
+                        .receiptHandle(message.receiptHandle())
+                        .visibilityTimeout(props().getRequeueVisibilityOnErrorSeconds())
+                        .build())
+                .flatMap(request -> Mono.fromFuture(client.changeMessageVisibility(request)))
+                .doOnError(e -> log.warn("Could not change visibility of {}: {}", message.messageId(), e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private void ack(Message message) {
+        acks.emitNext(message, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+    }
+
+    /** Un DeleteMessageBatch por lote de acks; las entradas que fallen se reintentan una a una. */
+    private Mono<Void> confirm(List<Message> processed) {
+        if (processed.isEmpty()) {
+            return Mono.empty();
+        }
+        long start = System.nanoTime();
+        return Mono.fromCallable(() -> getDeleteMessageBatchRequest(processed))
+                .flatMap(request -> Mono.fromFuture(client.deleteMessageBatch(request)))
+                .flatMap(response -> retryFailed(processed, response))
+                .onErrorResume(e -> {
+                    // Los mensajes se volverán a entregar; el procesamiento debe tolerar duplicados
+                    countAckFailures(processed.size());
+                    log.error("Ack batch failed for {} messages", processed.size(), e);
+                    return Mono.empty();
+                })
+                .doFinally(signal -> recordAck(start, processed.size()));
     }
 
-    private Mono<Void> confirm(Message message) {
+    private Mono<Void> retryFailed(List<Message> processed, DeleteMessageBatchResponse response) {
+        if (!response.hasFailed() || response.failed().isEmpty()) {
+            return Mono.empty();
+        }
+        log.warn("{} of {} acks failed in batch, retrying individually", response.failed().size(), processed.size());
+        return Flux.fromIterable(response.failed())
+                .flatMap(failed -> confirmOne(processed.get(Integer.parseInt(failed.id())))
+                        .doOnError(e -> {
+                            countAckFailures(1);
+                            log.error("Ack failed for message {}", processed.get(Integer.parseInt(failed.id())).messageId(), e);
+                        })
+                        .onErrorResume(e -> Mono.empty()))
+                .then();
+    }
+
+    private Mono<Void> confirmOne(Message message) {
         return Mono.fromCallable(() -> getDeleteMessageRequest(message.receiptHandle()))
                 .flatMap(request -> Mono.fromFuture(client.deleteMessage(request)))
                 .then();
     }
 
-    private Flux<Message> getMessages() {
+    private void track(Message message) {
+        if (inFlight.put(message.messageId(), message) != null) {
+            // Llegó otra vez mientras seguía en proceso: venció su visibilidad (los reintentos
+            // tras un fallo no cuentan, para entonces el mensaje ya salió de inFlight)
+            count("sqs.listener.message.redelivered");
+        }
+        if (heartbeat != null) {
+            heartbeat.track(message);
+        }
+    }
+
+    private void untrack(Message message) {
+        // Solo la entrega propia: una reentrega del mismo messageId sigue en vuelo
+        inFlight.remove(message.messageId(), message);
+        if (heartbeat != null) {
+            heartbeat.untrack(message);
+        }
+    }
+
+    private void count(String name) {
+        if (meterRegistry != null) {
+            meterRegistry.counter(name, "operation", operation).increment();
+        }
+    }
+
+    private void countAckFailures(int count) {
+        if (meterRegistry != null) {
+            meterRegistry.counter("sqs.listener.ack.failed", "operation", operation).increment(count);
+        }
+    }
+
+    private void recordAck(long startNanos, int size) {
+        if (meterRegistry == null) {
+            return;
+        }
+        Timer.builder("sqs.listener.ack.latency")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.summary("sqs.listener.ack.batch.size", "operation", operation).record(size);
+    }
+
+    private static int receiveCount(Message message) {
+        String count = message.attributes().get(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT);
+        try {
+            return count == null ? 1 : Integer.parseInt(count);
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    private SqsListenerProps props() {
+        return listenerProps != null ? listenerProps : new SqsListenerProps();
+    }
+
+    // Los ajustes de recepción de la cola pisan los globales de entrypoint.sqs
+    private int maxMessages() {
+        Integer own = listenerProps != null ? listenerProps.getMaxMessages() : null;
+        return own != null ? own : properties.maxNumberOfMessages();
+    }
+
+    private int waitTimeSeconds() {
+        Integer own = listenerProps != null ? listenerProps.getWaitTimeSeconds() : null;
+        return own != null ? own : properties.waitTimeSeconds();
+    }
+
+    private int visibilityTimeoutSeconds() {
+        Integer own = listenerProps != null ? listenerProps.getVisibilityTimeoutSeconds() : null;
+        return own != null ? own : properties.visibilityTimeoutSeconds();
+    }
+
+    private String queueUrl() {
+        String override = listenerProps != null ? listenerProps.getQueueUrl() : null;
+        return override != null && !override.isBlank() ? override : properties.queueUrl();
+    }
+
+    private Mono<List<Message>> getMessages() {
         return Mono.fromCallable(this::getReceiveMessageRequest)
                 .flatMap(request -> Mono.fromFuture(client.receiveMessage(request)))
                 .doOnNext(response -> log.debug("{} received messages from sqs", response.messages().size()))
-                .flatMapMany(response -> Flux.fromIterable(response.messages()));
+                .map(response -> response.messages());
     }
 
     private ReceiveMessageRequest getReceiveMessageRequest() {
         return ReceiveMessageRequest.builder()
-                .queueUrl(properties.queueUrl())
-                .maxNumberOfMessages(properties.maxNumberOfMessages())
-                .waitTimeSeconds(properties.waitTimeSeconds())
-                .visibilityTimeout(properties.visibilityTimeoutSeconds())
+                .queueUrl(queueUrl())
+                .maxNumberOfMessages(maxMessages())
+                .waitTimeSeconds(waitTimeSeconds())
+                .visibilityTimeout(visibilityTimeoutSeconds())
+                .messageSystemAttributeNames(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT)
+                // Atributos de usuario, p. ej. la codificación del cuerpo
+                .messageAttributeNames("All")
+                .build();
+    }
+
+    private DeleteMessageBatchRequest getDeleteMessageBatchRequest(List<Message> messages) {
+        List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            entries.add(DeleteMessageBatchRequestEntry.builder()
+                    .id(Integer.toString(i))
+                    .receiptHandle(messages.get(i).receiptHandle())
+                    .build());
+        }
+        return DeleteMessageBatchRequest.builder()
+                .queueUrl(queueUrl())
+                .entries(entries)
+                .build();
+    }
+
+    private ChangeMessageVisibilityBatchRequest getReleaseRequest(List<Message> messages) {
+        List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            entries.add(ChangeMessageVisibilityBatchRequestEntry.builder()
+                    .id(Integer.toString(i))
+                    .receiptHandle(messages.get(i).receiptHandle())
+                    .visibilityTimeout(0)
+                    .build());
+        }
+        return ChangeMessageVisibilityBatchRequest.builder()
+                .queueUrl(queueUrl())
+                .entries(entries)
                 .build();
     }
 
     private DeleteMessageRequest getDeleteMessageRequest(String receiptHandle) {
         return DeleteMessageRequest.builder()
-                .queueUrl(properties.queueUrl())
+                .queueUrl(queueUrl())
                 .receiptHandle(receiptHandle)
                 .build();
     }
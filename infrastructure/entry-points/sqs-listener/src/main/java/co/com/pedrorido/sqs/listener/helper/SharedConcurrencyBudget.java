@@ -0,0 +1,156 @@
+package co.com.pedrorido.sqs.listener.helper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.log4j.Log4j2;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cupo global de handlers en vuelo compartido por todas las colas. Cada cola tiene una
+ * cuota garantizada proporcional a su peso; puede usar capacidad ociosa de las demás,
+ * pero nunca la que reservan las colas que tienen mensajes esperando. Al liberarse un cupo
+ * se atiende primero a las colas por debajo de su cuota y, entre ellas, a la de mayor
+ * prioridad: una avalancha en una cola no deja sin procesamiento a las otras.
+ */
+@Log4j2
+public class SharedConcurrencyBudget {
+    private final int total;
+    private final MeterRegistry registry;
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+    private int used;
+
+    public SharedConcurrencyBudget(int total, MeterRegistry registry) {
+        this.total = Math.max(1, total);
+        this.registry = registry;
+    }
+
+    public synchronized void register(String queue, int weight, int priority) {
+        Lane lane = new Lane(Math.max(1, weight), priority);
+        lanes.put(queue, lane);
+        int totalWeight = lanes.values().stream().mapToInt(l -> l.weight).sum();
+        lanes.values().forEach(l -> l.share = Math.max(1, total * l.weight / totalWeight));
+        if (registry != null) {
+            registry.gauge("sqs.listener.budget.used", Tags.of("queue", queue), lane, l -> l.used);
+            registry.gauge("sqs.listener.budget.share", Tags.of("queue", queue), lane, l -> l.share);
+        }
+        log.info("SQS budget: queue={} weight={} priority={} share={}/{}", queue, lane.weight, priority, lane.share, total);
+    }
+
+    public Mono<Void> acquire(String queue) {
+        return Mono.defer(() -> {
+            Sinks.One<Void> waiter;
+            synchronized (this) {
+                Lane lane = lane(queue);
+                if (lane.waiters.isEmpty() && canGrant(lane)) {
+                    grant(lane);
+                    return Mono.empty();
+                }
+                waiter = Sinks.one();
+                lane.waiters.add(waiter);
+            }
+            return waiter.asMono().doOnCancel(() -> abandon(queue, waiter));
+        });
+    }
+
+    public void release(String queue) {
+        List<Sinks.One<Void>> granted;
+        synchronized (this) {
+            Lane lane = lane(queue);
+            lane.used--;
+            used--;
+            granted = dispatch();
+        }
+        granted.forEach(Sinks.One::tryEmitEmpty);
+    }
+
+    synchronized int used(String queue) {
+        return lane(queue).used;
+    }
+
+    synchronized int share(String queue) {
+        return lane(queue).share;
+    }
+
+    private void abandon(String queue, Sinks.One<Void> waiter) {
+        List<Sinks.One<Void>> granted;
+        synchronized (this) {
+            if (lane(queue).waiters.remove(waiter)) {
+                return;
+            }
+            // Ya se le había concedido el cupo: se devuelve
+            lane(queue).used--;
+            used--;
+            granted = dispatch();
+        }
+        granted.forEach(Sinks.One::tryEmitEmpty);
+    }
+
+    private List<Sinks.One<Void>> dispatch() {
+        List<Sinks.One<Void>> granted = new ArrayList<>();
+        Comparator<Lane> order = Comparator.<Lane>comparingInt(l -> l.used < l.share ? 0 : 1)
+                .thenComparing(Comparator.<Lane>comparingInt(l -> l.priority).reversed())
+                .thenComparingDouble(l -> (double) l.used / l.share);
+        while (used < total) {
+            Lane next = lanes.values().stream()
+                    .filter(l -> !l.waiters.isEmpty() && canGrant(l))
+                    .min(order)
+                    .orElse(null);
+            if (next == null) {
+                break;
+            }
+            grant(next);
+            granted.add(next.waiters.poll());
+        }
+        return granted;
+    }
+
+    private boolean canGrant(Lane lane) {
+        if (used >= total) {
+            return false;
+        }
+        if (lane.used < lane.share) {
+            return true;
+        }
+        // Préstamo: solo de la capacidad que no reservan las colas con mensajes esperando
+        int reserved = lanes.values().stream()
+                .filter(l -> l != lane && !l.waiters.isEmpty())
+                .mapToInt(l -> Math.max(0, l.share - l.used))
+                .sum();
+        return used + 1 + reserved <= total;
+    }
+
+    private void grant(Lane lane) {
+        lane.used++;
+        used++;
+    }
+
+    private Lane lane(String queue) {
+        Lane lane = lanes.get(queue);
+        if (lane == null) {
+            throw new IllegalStateException("queue not registered in budget: " + queue);
+        }
+        return lane;
+    }
+
+    private static final class Lane {
+        private final int weight;
+        private final int priority;
+        private final Deque<Sinks.One<Void>> waiters = new ArrayDeque<>();
+        private int share;
+        private int used;
+
+        private Lane(int weight, int priority) {
+            this.weight = weight;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package co.com.pedrorido.sqs.listener.helper;
+
+import lombok.extern.log4j.Log4j2;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Un {@link SQSListener} por cola, todos limitados por el mismo {@link SharedConcurrencyBudget}.
+ * Como el procesamiento es reactivo sobre los schedulers compartidos de Reactor, sumar colas
+ * no agrega hilos: solo reparte el cupo global.
+ */
+@Log4j2
+public class SqsListenerRegistry {
+    private final SharedConcurrencyBudget budget;
+    private final Map<String, SQSListener> listeners = new LinkedHashMap<>();
+
+    public SqsListenerRegistry(SharedConcurrencyBudget budget) {
+        this.budget = budget;
+    }
+
+    public SqsListenerRegistry register(String name, SQSListener.SQSListenerBuilder listener, int weight, int priority) {
+        if (listeners.containsKey(name)) {
+            throw new IllegalStateException("listener already registered: " + name);
+        }
+        budget.register(name, weight, priority);
+        listeners.put(name, listener.budget(budget).name(name).build());
+        return this;
+    }
+
+    public SqsListenerRegistry start() {
+        listeners.forEach((name, listener) -> {
+            log.info("Starting SQS listener '{}'", name);
+            listener.start();
+        });
+        return this;
+    }
+
+    /** Drena todas las colas en paralelo, cada una con el mismo plazo. */
+    public Mono<Void> drain(Duration deadline) {
+        return Flux.fromIterable(listeners.values())
+                .flatMap(listener -> listener.drain(deadline))
+                .then();
+    }
+
+    public void stop() {
+        listeners.values().forEach(SQSListener::stop);
+    }
+
+    public Map<String, SQSListener> listeners() {
+        return Collections.unmodifiableMap(listeners);
+    }
+}
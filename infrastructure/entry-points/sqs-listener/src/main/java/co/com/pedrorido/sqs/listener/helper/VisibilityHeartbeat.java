@@ -0,0 +1,119 @@
+package co.com.pedrorido.sqs.listener.helper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Extiende periódicamente la visibilidad de los mensajes que siguen en proceso para que
+ * no reaparezcan en la cola y otro receptor los procese de nuevo. Cada ciclo (la mitad del
+ * visibility timeout) envía ChangeMessageVisibilityBatch de hasta 10 entradas; un mensaje
+ * deja de extenderse cuando supera la extensión máxima configurada.
+ */
+@Log4j2
+public class VisibilityHeartbeat {
+    private static final int MAX_BATCH = 10;
+
+    private final SqsAsyncClient client;
+    private final String queueUrl;
+    private final int visibilityTimeoutSeconds;
+    private final Duration maxExtension;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Counter extensions;
+    private final Counter exhausted;
+
+    public VisibilityHeartbeat(SqsAsyncClient client, String queueUrl, int visibilityTimeoutSeconds,
+                               Duration maxExtension, MeterRegistry registry, String operation) {
+        MeterRegistry meters = registry != null ? registry : new SimpleMeterRegistry();
+        this.client = client;
+        this.queueUrl = queueUrl;
+        this.visibilityTimeoutSeconds = Math.max(1, visibilityTimeoutSeconds);
+        this.maxExtension = maxExtension;
+        this.extensions = meters.counter("sqs.listener.visibility.extended", "operation", operation);
+        this.exhausted = meters.counter("sqs.listener.visibility.max_reached", "operation", operation);
+    }
+
+    public Disposable start() {
+        Duration period = Duration.ofMillis(visibilityTimeoutSeconds * 1000L / 2);
+        return Flux.interval(period, period)
+                .onBackpressureDrop()
+                .concatMap(tick -> extendAll())
+                .subscribe();
+    }
+
+    public void track(Message message) {
+        inFlight.put(message.receiptHandle(), new InFlight(message, Instant.now()));
+    }
+
+    public void untrack(Message message) {
+        inFlight.remove(message.receiptHandle());
+    }
+
+    private Mono<Void> extendAll() {
+        Instant now = Instant.now();
+        List<InFlight> due = new ArrayList<>();
+        inFlight.values().forEach(entry -> {
+            if (entry.startedAt().plus(maxExtension).isBefore(now)) {
+                // Se deja vencer: el mensaje vuelve a la cola y el timeout del handler decide
+                inFlight.remove(entry.message().receiptHandle());
+                exhausted.increment();
+                log.warn("Message {} exceeded max visibility extension {}", entry.message().messageId(), maxExtension);
+            } else {
+                due.add(entry);
+            }
+        });
+        if (due.isEmpty()) {
+            return Mono.empty();
+        }
+        List<List<InFlight>> chunks = new ArrayList<>();
+        for (int i = 0; i < due.size(); i += MAX_BATCH) {
+            chunks.add(due.subList(i, Math.min(i + MAX_BATCH, due.size())));
+        }
+        return Flux.fromIterable(chunks)
+                .flatMap(this::extend)
+                .then();
+    }
+
+    private Mono<Void> extend(List<InFlight> chunk) {
+        List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            entries.add(ChangeMessageVisibilityBatchRequestEntry.builder()
+                    .id(Integer.toString(i))
+                    .receiptHandle(chunk.get(i).message().receiptHandle())
+                    .visibilityTimeout(visibilityTimeoutSeconds)
+                    .build());
+        }
+        ChangeMessageVisibilityBatchRequest request = ChangeMessageVisibilityBatchRequest.builder()
+                .queueUrl(queueUrl)
+                .entries(entries)
+                .build();
+        return Mono.fromFuture(() -> client.changeMessageVisibilityBatch(request))
+                .doOnNext(response -> {
+                    extensions.increment(response.successful().size());
+                    // Normalmente el mensaje ya se confirmó y el receipt handle dejó de ser válido
+                    response.failed().forEach(failed -> log.debug("Visibility not extended for {}: {}",
+                            chunk.get(Integer.parseInt(failed.id())).message().messageId(), failed.code()));
+                })
+                .doOnError(e -> log.warn("ChangeMessageVisibilityBatch failed: {}", e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private record InFlight(Message message, Instant startedAt) {
+    }
+}
@@ -0,0 +1,216 @@
+package co.com.pedrorido.sqs.listener;
+
+import co.com.pedrorido.codec.MessageCodec;
+import co.com.pedrorido.codec.PayloadCompactor;
+import co.com.pedrorido.codec.blob.BlobNotFoundException;
+import co.com.pedrorido.model.external.RequestStatusChangeMessage;
+import co.com.pedrorido.model.requestdomain.InvalidStatusChangeException;
+import co.com.pedrorido.model.requestdomain.StatusChangeOutcome;
+import co.com.pedrorido.model.utils.StatusEnum;
+import co.com.pedrorido.sqs.listener.helper.PermanentMessageException;
+import co.com.pedrorido.usecase.apis.IRequestEventsApi;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SQSProcessorTest {
+    private static final UUID REQUEST_A = UUID.fromString("d6761e0b-8a7a-4eff-90b0-60c1accf38c3");
+    private static final UUID REQUEST_B = UUID.fromString("0f6b2a4e-3f1d-4d8c-9a57-2c1f0e9b7a11");
+    private static final UUID REQUEST_C = UUID.fromString("5b1c9a0e-7d2f-4e3a-8c61-9f0a2b3c4d5e");
+
+    private final MessageCodec codec = new MessageCodec();
+    private IRequestEventsApi useCase;
+    private PayloadCompactor compactor;
+    private SQSProcessor processor;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        useCase = mock(IRequestEventsApi.class);
+        compactor = mock(PayloadCompactor.class);
+        TransactionalOperator tx = mock(TransactionalOperator.class);
+        when(tx.transactional(any(Mono.class))).thenAnswer(inv -> inv.getArgument(0));
+        processor = new SQSProcessor(useCase, codec, compactor, tx);
+    }
+
+    @Test
+    void apply_decodesPlainJsonAndProcessesOnce() {
+        when(useCase.onStatusChangeOnce(eq("m-1"), any())).thenReturn(Mono.just(true));
+
+        StepVerifier.create(processor.apply(message("m-1", codec.encodeToText(event(REQUEST_A, StatusEnum.APPROVED)))))
+                .verifyComplete();
+
+        ArgumentCaptor<RequestStatusChangeMessage> captor = ArgumentCaptor.forClass(RequestStatusChangeMessage.class);
+        verify(useCase).onStatusChangeOnce(eq("m-1"), captor.capture());
+        assertEquals(REQUEST_A, captor.getValue().solicitudId());
+        verifyNoInteractions(compactor);
+    }
+
+    @Test
+    void apply_unreadableBodyIsPermanent() {
+        StepVerifier.create(processor.apply(message("m-1", "{not json")))
+                .expectError(PermanentMessageException.class)
+                .verify();
+
+        verifyNoInteractions(useCase);
+    }
+
+    @Test
+    void apply_missingFieldsArePermanent() {
+        String body = codec.encodeToText(new RequestStatusChangeMessage(null, "1", "2", "a@x.com", null, null, "auto"));
+
+        StepVerifier.create(processor.apply(message("m-1", body)))
+                .expectErrorMatches(e -> e instanceof PermanentMessageException
+                        && "missing solicitudId or estadoNuevo".equals(e.getMessage()))
+                .verify();
+
+        verifyNoInteractions(useCase);
+    }
+
+    @Test
+    void apply_nonNumericTargetIsPermanent() {
+        String body = codec.encodeToText(new RequestStatusChangeMessage(REQUEST_A, "1", "APPROVED", "a@x.com", null, null, "auto"));
+
+        StepVerifier.create(processor.apply(message("m-1", body)))
+                .expectErrorMatches(e -> e instanceof PermanentMessageException
+                        && e.getMessage().startsWith("invalid estadoNuevo"))
+                .verify();
+    }
+
+    @Test
+    void apply_impossibleTransitionIsPermanent() {
+        when(useCase.onStatusChangeOnce(eq("m-1"), any())).thenReturn(Mono.error(new InvalidStatusChangeException("invalid status change")));
+
+        StepVerifier.create(processor.apply(message("m-1", codec.encodeToText(event(REQUEST_A, StatusEnum.APPROVED)))))
+                .expectError(PermanentMessageException.class)
+                .verify();
+    }
+
+    @Test
+    void apply_otherIllegalStateIsTransient() {
+        when(useCase.onStatusChangeOnce(eq("m-1"), any())).thenReturn(Mono.error(new IllegalStateException("loan type not found")));
+
+        StepVerifier.create(processor.apply(message("m-1", codec.encodeToText(event(REQUEST_A, StatusEnum.APPROVED)))))
+                .expectErrorSatisfies(e -> assertFalse(PermanentMessageException.isPermanent(e)))
+                .verify();
+    }
+
+    @Test
+    void apply_infrastructureFailureIsTransient() {
+        when(useCase.onStatusChangeOnce(eq("m-1"), any())).thenReturn(Mono.error(new RuntimeException("db down")));
+
+        StepVerifier.create(processor.apply(message("m-1", codec.encodeToText(event(REQUEST_A, StatusEnum.APPROVED)))))
+                .expectErrorSatisfies(e -> assertFalse(PermanentMessageException.isPermanent(e)))
+                .verify();
+    }
+
+    @Test
+    void apply_compactedBodyIsUnpackedFirst() {
+        String json = codec.encodeToText(event(REQUEST_A, StatusEnum.REJECTED));
+        when(compactor.unpack("packed", PayloadCompactor.GZIP_V1)).thenReturn(Mono.just(json.getBytes(StandardCharsets.UTF_8)));
+        when(useCase.onStatusChangeOnce(eq("m-1"), any())).thenReturn(Mono.just(true));
+
+        StepVerifier.create(processor.apply(message("m-1", "packed", PayloadCompactor.GZIP_V1)))
+                .verifyComplete();
+
+        verify(useCase).onStatusChangeOnce(eq("m-1"), any());
+    }
+
+    @Test
+    void apply_corruptCompactedBodyIsPermanentButStoreFailureIsNot() {
+        when(compactor.unpack("corrupt", PayloadCompactor.GZIP_V1)).thenReturn(Mono.error(new IllegalArgumentException("bad gzip")));
+        when(compactor.unpack("ref", PayloadCompactor.CLAIM_CHECK_V1)).thenReturn(Mono.error(new RuntimeException("s3 down")));
+        when(compactor.unpack("missing", PayloadCompactor.CLAIM_CHECK_V1)).thenReturn(Mono.error(new BlobNotFoundException("missing")));
+
+        StepVerifier.create(processor.apply(message("m-1", "corrupt", PayloadCompactor.GZIP_V1)))
+                .expectError(PermanentMessageException.class)
+                .verify();
+        StepVerifier.create(processor.apply(message("m-2", "ref", PayloadCompactor.CLAIM_CHECK_V1)))
+                .expectErrorSatisfies(e -> assertFalse(PermanentMessageException.isPermanent(e)))
+                .verify();
+        StepVerifier.create(processor.apply(message("m-3", "missing", PayloadCompactor.CLAIM_CHECK_V1)))
+                .expectErrorSatisfies(e -> assertFalse(PermanentMessageException.isPermanent(e)))
+                .verify();
+        verifyNoInteractions(useCase);
+    }
+
+    @Test
+    void handleBatch_classifiesEachMessage() {
+        when(compactor.unpack("ref", PayloadCompactor.CLAIM_CHECK_V1)).thenReturn(Mono.error(new RuntimeException("s3 down")));
+        when(useCase.onStatusChanges(anyList())).thenReturn(Mono.just(new StatusChangeOutcome(Set.of(REQUEST_A), Set.of(REQUEST_B))));
+
+        List<Message> batch = List.of(
+                message("applied", codec.encodeToText(event(REQUEST_A, StatusEnum.APPROVED))),
+                message("redelivered", codec.encodeToText(event(REQUEST_A, StatusEnum.APPROVED))),
+                message("invalid-target", codec.encodeToText(event(REQUEST_B, StatusEnum.PENDING))),
+                message("unreadable", "{not json"),
+                message("store-down", "ref", PayloadCompactor.CLAIM_CHECK_V1),
+                message("not-applied", codec.encodeToText(event(REQUEST_C, StatusEnum.REJECTED))));
+
+        StepVerifier.create(processor.handleBatch(batch))
+                .assertNext(result -> {
+                    assertEquals(Set.of("applied", "redelivered"), result.acknowledged());
+                    assertEquals(Set.of("invalid-target", "unreadable"), result.rejected().keySet());
+                    result.rejected().values().forEach(e -> assertInstanceOf(PermanentMessageException.class, e));
+                    // store-down y not-applied no se confirman ni se rechazan: vuelven a la cola
+                    assertFalse(result.acknowledged().contains("store-down") || result.rejected().containsKey("store-down"));
+                    assertFalse(result.acknowledged().contains("not-applied") || result.rejected().containsKey("not-applied"));
+                })
+                .verifyComplete();
+
+        // Un evento por solicitud llega al caso de uso
+        ArgumentCaptor<List<RequestStatusChangeMessage>> events = ArgumentCaptor.forClass(List.class);
+        verify(useCase).onStatusChanges(events.capture());
+        assertEquals(List.of(REQUEST_A, REQUEST_B, REQUEST_C), events.getValue().stream().map(RequestStatusChangeMessage::solicitudId).toList());
+        verify(useCase, never()).onStatusChangeOnce(anyString(), any());
+    }
+
+    @Test
+    void handleBatch_withoutDecodableMessagesSkipsTheUseCase() {
+        StepVerifier.create(processor.handleBatch(List.of(message("unreadable", "{not json"))))
+                .assertNext(result -> {
+                    assertTrue(result.acknowledged().isEmpty());
+                    assertEquals(Set.of("unreadable"), result.rejected().keySet());
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(useCase);
+    }
+
+    private static RequestStatusChangeMessage event(UUID requestId, StatusEnum target) {
+        return new RequestStatusChangeMessage(requestId, StatusEnum.PENDING.getId().toString(), target.getId().toString(),
+                "a@x.com", null, null, "auto");
+    }
+
+    private static Message message(String id, String body) {
+        return Message.builder().messageId(id).receiptHandle("rh-" + id).body(body).build();
+    }
+
+    private static Message message(String id, String body, String encoding) {
+        return Message.builder().messageId(id).receiptHandle("rh-" + id).body(body)
+                .messageAttributes(Map.of(PayloadCompactor.ENCODING_ATTRIBUTE,
+                        MessageAttributeValue.builder().dataType("String").stringValue(encoding).build()))
+                .build();
+    }
+}
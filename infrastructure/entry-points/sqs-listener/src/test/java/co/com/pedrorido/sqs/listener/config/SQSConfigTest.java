@@ -1,15 +1,29 @@
 package co.com.pedrorido.sqs.listener.config;
 
+import co.com.pedrorido.codec.MessageCodec;
+import co.com.pedrorido.sqs.listener.helper.SqsListenerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import reactor.core.publisher.Mono;
 import software.amazon.awssdk.metrics.LoggingMetricPublisher;
+import software.amazon.awssdk.metrics.MetricPublisher;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.when;
 
 class SQSConfigTest {
@@ -34,8 +48,62 @@ class SQSConfigTest {
     }
 
     @Test
-    void configSQSListenerIsNotNull() {
-        assertThat(sqsConfig.sqsListener(sqsAsyncClient, sqsProperties, message -> Mono.empty())).isNotNull();
+    void configSQSListenerRegistryIsNotNull() {
+        var registry = sqsConfig.sqsListenerRegistry(sqsAsyncClient, sqsProperties, new SqsListenerProps(),
+                new SqsListenerRegistryProps(), Map.of(SQSConfig.DEFAULT_PROCESSOR, message -> Mono.empty()), new MessageCodec(), Optional.empty(),
+                new SimpleMeterRegistry());
+        assertThat(registry.listeners()).containsOnlyKeys(SQSConfig.DEFAULT_LISTENER);
+        registry.stop();
+    }
+
+    @Test
+    void configSQSListenerRegistryRejectsUnknownProcessor() {
+        var extra = new SqsListenerProps();
+        extra.setQueueUrl("http://localhost:4566/00000000000/other");
+        extra.setProcessor("missing");
+        var registryProps = new SqsListenerRegistryProps();
+        registryProps.getQueues().put("other", extra);
+
+        assertThatThrownBy(() -> sqsConfig.sqsListenerRegistry(sqsAsyncClient, sqsProperties, new SqsListenerProps(),
+                registryProps, Map.of(SQSConfig.DEFAULT_PROCESSOR, message -> Mono.empty()), new MessageCodec(), Optional.empty(),
+                new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void contextStartsWithTwoProcessorBeans() {
+        var extra = new SqsListenerProps();
+        extra.setQueueUrl("http://localhost:4566/00000000000/debt-capacity");
+        extra.setProcessor("debtCapacityProcessor");
+        var registryProps = new SqsListenerRegistryProps();
+        registryProps.getQueues().put("debtCapacity", extra);
+
+        new ApplicationContextRunner()
+                .withUserConfiguration(SQSConfig.class, TwoProcessors.class)
+                .withBean(SQSProperties.class, () -> sqsProperties)
+                .withBean(SqsListenerProps.class, SqsListenerProps::new)
+                .withBean(SqsListenerRegistryProps.class, () -> registryProps)
+                .withBean(MetricPublisher.class, LoggingMetricPublisher::create)
+                .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+                .withBean(MessageCodec.class, MessageCodec::new)
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    assertThat(context.getBean(SqsListenerRegistry.class).listeners())
+                            .containsOnlyKeys(SQSConfig.DEFAULT_LISTENER, "debtCapacity");
+                });
+    }
+
+    @Configuration
+    static class TwoProcessors {
+        @Bean(SQSConfig.DEFAULT_PROCESSOR)
+        Function<Message, Mono<Void>> statusChangeProcessor() {
+            return message -> Mono.empty();
+        }
+
+        @Bean
+        Function<Message, Mono<Void>> debtCapacityProcessor() {
+            return message -> Mono.empty();
+        }
     }
 
     @Test
@@ -0,0 +1,68 @@
+package co.com.pedrorido.sqs.listener.helper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class AdaptiveControllerTest {
+    private AdaptiveController controller;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        controller = new AdaptiveController(mock(SqsAsyncClient.class), "queue", 10,
+                1, 4, 1, 32, Duration.ofMillis(500), registry, "test");
+    }
+
+    @Test
+    void growsWithBacklogWithinBounds() {
+        for (int i = 0; i < 30; i++) {
+            controller.adjust(10_000);
+        }
+        assertEquals(32, controller.inFlightLimit());
+        assertEquals(4, controller.activeReceivers());
+        assertTrue(controller.receiverActive(3));
+        assertEquals(10_000, registry.get("sqs.listener.backlog").gauge().value());
+    }
+
+    @Test
+    void emptyQueueDropsToSingleIdlePoller() {
+        controller.adjust(10_000);
+        controller.adjust(10_000);
+        controller.adjust(0);
+        assertEquals(1, controller.inFlightLimit());
+        assertEquals(1, controller.activeReceivers());
+        assertFalse(controller.receiverActive(1));
+    }
+
+    @Test
+    void slowProcessingShrinksInFlight() {
+        for (int i = 0; i < 30; i++) {
+            controller.adjust(10_000);
+        }
+        controller.acquire().block();
+        controller.release(TimeUnit.SECONDS.toNanos(2));
+        controller.adjust(10_000);
+        assertEquals(24, controller.inFlightLimit());
+    }
+
+    @Test
+    void acquireWaitsForReleasedPermit() {
+        controller.acquire().block();
+
+        StepVerifier.create(controller.acquire())
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(50))
+                .then(() -> controller.release(1))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,101 @@
+package co.com.pedrorido.sqs.listener.helper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedExecutorTest {
+    private final KeyedExecutor executor = new KeyedExecutor(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void sameKeyRunsInOrderOneAtATime() {
+        List<Integer> completed = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        Flux.range(0, 20)
+                .flatMap(i -> executor.submit("solicitud-1", () -> Mono.delay(Duration.ofMillis(5 + (20 - i)))
+                        .doOnSubscribe(s -> maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max))
+                        .doOnNext(t -> {
+                            running.decrementAndGet();
+                            completed.add(i);
+                        })
+                        .then()))
+                .blockLast(Duration.ofSeconds(5));
+
+        assertEquals(Flux.range(0, 20).collectList().block(), completed);
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void differentKeysRunInParallel() {
+        String[] keys = new String[4];
+        int found = 0;
+        for (int i = 0; found < 4; i++) {
+            String key = "solicitud-" + i;
+            int lane = executor.laneOf(key);
+            if (keys[lane] == null) {
+                keys[lane] = key;
+                found++;
+            }
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        Flux.fromArray(keys)
+                .flatMap(key -> executor.submit(key, () -> Mono.delay(Duration.ofMillis(100))
+                        .doOnSubscribe(s -> maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max))
+                        .doOnNext(t -> running.decrementAndGet())
+                        .then()))
+                .blockLast(Duration.ofSeconds(5));
+
+        assertEquals(4, maxRunning.get());
+    }
+
+    @Test
+    void saturatedLaneDoesNotHoldBackOtherLanes() {
+        KeyedExecutor bounded = new KeyedExecutor(2, 2);
+        String hot = "A";
+        String cold = "B";
+        assertNotEquals(bounded.laneOf(hot), bounded.laneOf(cold));
+        List<String> admitted = new CopyOnWriteArrayList<>();
+
+        try {
+            // Como en el listener: el flatMap espera la admisión, no el fin de la tarea
+            Flux.just(hot, hot, hot, hot, cold)
+                    .flatMap(key -> bounded.dispatch(key, key.equals(hot) ? Mono::never : Mono::empty)
+                            .doOnNext(done -> admitted.add(key)), 4)
+                    .subscribe();
+
+            Mono.fromSupplier(() -> admitted.contains(cold))
+                    .filter(Boolean::booleanValue)
+                    .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(10)))
+                    .block(Duration.ofSeconds(2));
+            assertEquals(List.of(hot, hot, cold), admitted);
+        } finally {
+            bounded.shutdown();
+        }
+    }
+
+    @Test
+    void failurePropagatesOnlyToItsCaller() {
+        Mono<Void> failing = executor.submit("k", () -> Mono.error(new IllegalStateException("boom")));
+        Mono<Void> next = executor.submit("k", Mono::empty);
+
+        assertThrows(IllegalStateException.class, () -> failing.block(Duration.ofSeconds(1)));
+        assertDoesNotThrow(() -> next.block(Duration.ofSeconds(1)));
+    }
+}
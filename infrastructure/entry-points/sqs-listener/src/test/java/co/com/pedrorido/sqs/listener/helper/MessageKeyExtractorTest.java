@@ -0,0 +1,51 @@
+package co.com.pedrorido.sqs.listener.helper;
+
+import co.com.pedrorido.codec.MessageCodec;
+import co.com.pedrorido.codec.PayloadCompactor;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MessageKeyExtractorTest {
+    private final MessageKeyExtractor extractor = new MessageKeyExtractor(new MessageCodec());
+
+    @Test
+    void orderingKeyAttributeWinsOverCompactedBody() {
+        Message message = message("H4sIAAAAAAAA", Map.of(
+                MessageCodec.ORDERING_KEY_ATTRIBUTE, "req-1",
+                PayloadCompactor.ENCODING_ATTRIBUTE, PayloadCompactor.GZIP_V1));
+
+        assertEquals("req-1", extractor.apply(message));
+    }
+
+    @Test
+    void compactedBodyWithoutKeyFallsBackToMessageId() {
+        Message message = message("{\"claimCheck\":\"abc\"}", Map.of(PayloadCompactor.ENCODING_ATTRIBUTE, PayloadCompactor.CLAIM_CHECK_V1));
+
+        assertEquals("m-1", extractor.apply(message));
+    }
+
+    @Test
+    void plainBodyIsKeyedBySolicitudIdIgnoringNestedFields() {
+        Message message = message("{\"email\":\"a@x.com\",\"deudas\":{\"solicitudId\":\"nested\"},\"solicitudId\":\"req-2\"}", Map.of());
+
+        assertEquals("req-2", extractor.apply(message));
+    }
+
+    @Test
+    void bodyWithoutKeyFieldsUsesEmailThenMessageId() {
+        assertEquals("a@x.com", extractor.apply(message("{\"email\":\"a@x.com\",\"solicitudId\":null}", Map.of())));
+        assertEquals("m-1", extractor.apply(message("not json", Map.of())));
+    }
+
+    private static Message message(String body, Map<String, String> attributes) {
+        Map<String, MessageAttributeValue> values = new HashMap<>();
+        attributes.forEach((name, value) -> values.put(name, MessageAttributeValue.builder().dataType("String").stringValue(value).build()));
+        return Message.builder().messageId("m-1").body(body).messageAttributes(values).build();
+    }
+}
@@ -1,39 +1,53 @@
 package co.com.pedrorido.sqs.listener.helper;
 
-import co.com.pedrorido.sqs.listener.SQSProcessor;
 import co.com.pedrorido.sqs.listener.config.SQSProperties;
+import co.com.pedrorido.sqs.listener.config.SqsListenerProps;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.test.util.ReflectionTestUtils;
-import reactor.core.publisher.Flux;
-import reactor.test.StepVerifier;
+import reactor.core.publisher.Mono;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
-import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
-import software.amazon.awssdk.services.sqs.model.DeleteMessageResponse;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
 import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CompletableFuture;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
 
 class SQSListenerTest {
 
     @Mock
     private SqsAsyncClient asyncClient;
 
-    @Mock
     private SQSProperties sqsProperties;
+    private SqsListenerProps listenerProps;
+    private SQSListener sqsListener;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
 
-        var sqsProperties = new SQSProperties(
+        sqsProperties = new SQSProperties(
                 "us-east-1",
                 "http://localhost:4566",
                 "http://localhost:4566/00000000000/queueName",
@@ -42,27 +56,228 @@ class SQSListenerTest {
                 10,
                 1
         );
+        listenerProps = new SqsListenerProps();
+        listenerProps.setAckWindow(Duration.ofMillis(20));
+        listenerProps.setIdleDelay(Duration.ofMillis(50));
+
+        var ok = Message.builder().messageId("1").receiptHandle("rh-ok").body("ok").build();
+        var bad = Message.builder().messageId("2").receiptHandle("rh-bad").body("bad").build();
+        var messageResponse = ReceiveMessageResponse.builder().messages(ok, bad).build();
+
+        when(asyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(messageResponse))
+                .thenReturn(CompletableFuture.completedFuture(ReceiveMessageResponse.builder().build()));
+        when(asyncClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(DeleteMessageBatchResponse.builder().build()));
+        when(asyncClient.changeMessageVisibility(any(ChangeMessageVisibilityRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ChangeMessageVisibilityResponse.builder().build()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (sqsListener != null) {
+            sqsListener.stop();
+        }
+    }
+
+    @Test
+    void listenerAcksSuccessAndRequeuesFailure() {
+        sqsListener = SQSListener.builder()
+                .client(asyncClient)
+                .properties(sqsProperties)
+                .listenerProps(listenerProps)
+                .processor(message -> "bad".equals(message.body())
+                        ? Mono.error(new IllegalStateException("boom"))
+                        : Mono.empty())
+                .meterRegistry(new SimpleMeterRegistry())
+                .build()
+                .start();
+
+        verify(asyncClient, timeout(2000)).deleteMessageBatch(argThat((DeleteMessageBatchRequest r) ->
+                r.entries().size() == 1 && "rh-ok".equals(r.entries().get(0).receiptHandle())));
+        verify(asyncClient, timeout(2000)).changeMessageVisibility(argThat((ChangeMessageVisibilityRequest r) ->
+                "rh-bad".equals(r.receiptHandle()) && r.visibilityTimeout() == 30));
+    }
+
+    @Test
+    void receiveUsesGlobalSettingsUnlessTheQueueOverridesThem() {
+        sqsListener = SQSListener.builder()
+                .client(asyncClient)
+                .properties(sqsProperties)
+                .listenerProps(listenerProps)
+                .processor(message -> Mono.empty())
+                .build()
+                .start();
+        verify(asyncClient, timeout(2000).atLeastOnce()).receiveMessage(argThat((ReceiveMessageRequest r) ->
+                r.maxNumberOfMessages() == 10 && r.waitTimeSeconds() == 20 && r.visibilityTimeout() == 30));
+        sqsListener.stop();
+
+        SqsListenerProps queueProps = new SqsListenerProps();
+        queueProps.setQueueUrl("http://localhost:4566/00000000000/otherQueue");
+        queueProps.setMaxMessages(5);
+        queueProps.setWaitTimeSeconds(2);
+        queueProps.setVisibilityTimeoutSeconds(120);
+        sqsListener = SQSListener.builder()
+                .client(asyncClient)
+                .properties(sqsProperties)
+                .listenerProps(queueProps)
+                .processor(message -> Mono.empty())
+                .build()
+                .start();
+        verify(asyncClient, timeout(2000).atLeastOnce()).receiveMessage(argThat((ReceiveMessageRequest r) ->
+                queueProps.getQueueUrl().equals(r.queueUrl())
+                        && r.maxNumberOfMessages() == 5 && r.waitTimeSeconds() == 2 && r.visibilityTimeout() == 120));
+    }
+
+    @Test
+    void batchModeAcksOnlyAppliedMessages() {
+        listenerProps.setBatchEnabled(true);
+        listenerProps.setBatchWindow(Duration.ofMillis(20));
+        sqsListener = SQSListener.builder()
+                .client(asyncClient)
+                .properties(sqsProperties)
+                .listenerProps(listenerProps)
+                .processor(message -> Mono.error(new IllegalStateException("batch mode only")))
+                .batchHandler(messages -> Mono.just(BatchMessageHandler.Result.of(Set.of("1"))))
+                .meterRegistry(new SimpleMeterRegistry())
+                .build()
+                .start();
+
+        verify(asyncClient, timeout(2000)).deleteMessageBatch(argThat((DeleteMessageBatchRequest r) ->
+                r.entries().size() == 1 && "rh-ok".equals(r.entries().get(0).receiptHandle())));
+        verify(asyncClient, timeout(2000)).changeMessageVisibility(argThat((ChangeMessageVisibilityRequest r) ->
+                "rh-bad".equals(r.receiptHandle())));
+    }
+
+    @Test
+    void permanentFailureIsQuarantinedAndAcked() {
+        var quarantined = new CopyOnWriteArrayList<String>();
+        sqsListener = SQSListener.builder()
+                .client(asyncClient)
+                .properties(sqsProperties)
+                .listenerProps(listenerProps)
+                .processor(message -> "bad".equals(message.body())
+                        ? Mono.error(new PermanentMessageException("undecodable message"))
+                        : Mono.empty())
+                .quarantine((message, queueUrl, receiveCount, cause) -> Mono.fromRunnable(() -> quarantined.add(message.messageId())))
+                .meterRegistry(new SimpleMeterRegistry())
+                .build()
+                .start();
+
+        verify(asyncClient, timeout(2000).atLeastOnce()).deleteMessageBatch(argThat((DeleteMessageBatchRequest r) ->
+                r.entries().stream().anyMatch(e -> "rh-bad".equals(e.receiptHandle()))));
+        verify(asyncClient, never()).changeMessageVisibility(any(ChangeMessageVisibilityRequest.class));
+        assertEquals(List.of("2"), quarantined);
+    }
 
-        var message = Message.builder().body("message").build();
-        var deleteMessageResponse = DeleteMessageResponse.builder().build();
-        var messageResponse = ReceiveMessageResponse.builder().messages(message).build();
+    @Test
+    void redeliveredCountsOnlyMessagesThatReturnWhileStillInFlight() {
+        var retried = Message.builder().messageId("1").receiptHandle("rh-retry").body("ok")
+                .attributes(Map.of(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT, "3")).build();
+        var slow = Message.builder().messageId("7").receiptHandle("rh-slow-1").body("slow").build();
+        var slowAgain = Message.builder().messageId("7").receiptHandle("rh-slow-2").body("slow").build();
+        when(asyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ReceiveMessageResponse.builder().messages(retried, slow).build()))
+                .thenReturn(CompletableFuture.completedFuture(ReceiveMessageResponse.builder().messages(slowAgain).build()))
+                .thenReturn(CompletableFuture.completedFuture(ReceiveMessageResponse.builder().build()));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        sqsListener = SQSListener.builder()
+                .client(asyncClient)
+                .properties(sqsProperties)
+                .listenerProps(listenerProps)
+                .processor(message -> "rh-slow-1".equals(message.receiptHandle()) ? Mono.never() : Mono.empty())
+                .meterRegistry(registry)
+                .build()
+                .start();
+
+        // El reintento (ApproximateReceiveCount = 3) se procesa y confirma sin contarse como reentrega
+        verify(asyncClient, timeout(2000)).deleteMessageBatch(argThat((DeleteMessageBatchRequest r) ->
+                r.entries().stream().anyMatch(e -> "rh-retry".equals(e.receiptHandle()))));
+        verify(asyncClient, timeout(2000).atLeast(3)).receiveMessage(any(ReceiveMessageRequest.class));
+        Mono.fromSupplier(() -> registry.find("sqs.listener.message.redelivered").counters().stream()
+                        .mapToDouble(c -> c.count()).sum())
+                .filter(count -> count > 0)
+                .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(20)))
+                .block(Duration.ofSeconds(2));
+        assertEquals(1.0, registry.get("sqs.listener.message.redelivered").counter().count());
+    }
 
+    @Test
+    void hotKeyDoesNotHoldBackOtherKeys() {
+        // Con dos carriles "A" y "B" caen en carriles distintos; las "A" no terminan nunca
+        List<Message> burst = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            burst.add(Message.builder().messageId("a-" + i).receiptHandle("rh-a-" + i).body("A").build());
+        }
+        burst.add(Message.builder().messageId("b").receiptHandle("rh-b").body("B").build());
         when(asyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
-                .thenReturn(CompletableFuture.completedFuture(messageResponse));
-        when(asyncClient.deleteMessage(any(DeleteMessageRequest.class)))
-                .thenReturn(CompletableFuture.completedFuture(deleteMessageResponse));
+                .thenReturn(CompletableFuture.completedFuture(ReceiveMessageResponse.builder().messages(burst).build()))
+                .thenReturn(CompletableFuture.completedFuture(ReceiveMessageResponse.builder().build()));
+        listenerProps.setConcurrency(2);
+        sqsListener = SQSListener.builder()
+                .client(asyncClient)
+                .properties(sqsProperties)
+                .listenerProps(listenerProps)
+                .keyExtractor(Message::body)
+                .processor(message -> "A".equals(message.body()) ? Mono.never() : Mono.empty())
+                .meterRegistry(new SimpleMeterRegistry())
+                .build()
+                .start();
+
+        verify(asyncClient, timeout(2000)).deleteMessageBatch(argThat((DeleteMessageBatchRequest r) ->
+                r.entries().size() == 1 && "rh-b".equals(r.entries().get(0).receiptHandle())));
     }
 
     @Test
-    void listenerTest() {
-        var sqsListener = SQSListener.builder()
+    void drainFinishesInFlightAndReleasesTheRestAtDeadline() {
+        when(asyncClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ChangeMessageVisibilityBatchResponse.builder().build()));
+        sqsListener = SQSListener.builder()
                 .client(asyncClient)
                 .properties(sqsProperties)
-                .processor(new SQSProcessor())
-                .operation("operation")
-                .build();
+                .listenerProps(listenerProps)
+                .processor(message -> "bad".equals(message.body()) ? Mono.never() : Mono.empty())
+                .meterRegistry(new SimpleMeterRegistry())
+                .build()
+                .start();
+        verify(asyncClient, timeout(2000)).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+
+        sqsListener.drain(Duration.ofMillis(300)).block(Duration.ofSeconds(2));
+
+        verify(asyncClient).changeMessageVisibilityBatch(argThat((ChangeMessageVisibilityBatchRequest r) ->
+                r.entries().size() == 1
+                        && "rh-bad".equals(r.entries().get(0).receiptHandle())
+                        && r.entries().get(0).visibilityTimeout() == 0));
+    }
+
+    @Test
+    void drainReleasesMessagesStillBufferedBeforeReachingAHandler() {
+        // Un carril: dos admitidos, dos esperando cupo y el resto en el buffer de los receptores
+        List<Message> received = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            received.add(Message.builder().messageId("m-" + i).receiptHandle("rh-" + i).body("slow").build());
+        }
+        when(asyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ReceiveMessageResponse.builder().messages(received).build()))
+                .thenReturn(CompletableFuture.completedFuture(ReceiveMessageResponse.builder().build()));
+        when(asyncClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ChangeMessageVisibilityBatchResponse.builder().build()));
+        listenerProps.setConcurrency(1);
+        sqsListener = SQSListener.builder()
+                .client(asyncClient)
+                .properties(sqsProperties)
+                .listenerProps(listenerProps)
+                .keyExtractor(Message::body)
+                .processor(message -> Mono.never())
+                .meterRegistry(new SimpleMeterRegistry())
+                .build()
+                .start();
+        verify(asyncClient, timeout(2000).atLeast(2)).receiveMessage(any(ReceiveMessageRequest.class));
+
+        sqsListener.drain(Duration.ofMillis(300)).block(Duration.ofSeconds(2));
 
-        Flux<Void> flow = ReflectionTestUtils.invokeMethod(sqsListener, "listen");
-        StepVerifier.create(flow).verifyComplete();
+        verify(asyncClient).changeMessageVisibilityBatch(argThat((ChangeMessageVisibilityBatchRequest r) ->
+                r.entries().size() == received.size()
+                        && r.entries().stream().allMatch(e -> e.visibilityTimeout() == 0)));
     }
 }
@@ -0,0 +1,73 @@
+package co.com.pedrorido.sqs.listener.helper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedConcurrencyBudgetTest {
+    private SharedConcurrencyBudget budget;
+
+    @BeforeEach
+    void setUp() {
+        budget = new SharedConcurrencyBudget(8, new SimpleMeterRegistry());
+        budget.register("status", 3, 1);
+        budget.register("debt", 1, 0);
+    }
+
+    @Test
+    void sharesFollowWeights() {
+        assertEquals(6, budget.share("status"));
+        assertEquals(2, budget.share("debt"));
+    }
+
+    @Test
+    void idleCapacityCanBeBorrowed() {
+        for (int i = 0; i < 8; i++) {
+            budget.acquire("debt").block();
+        }
+        assertEquals(8, budget.used("debt"));
+    }
+
+    @Test
+    void floodOnOneQueueDoesNotStarveTheOther() {
+        // "debt" se queda con todo el cupo mientras "status" está ociosa
+        for (int i = 0; i < 8; i++) {
+            budget.acquire("debt").block();
+        }
+        AtomicInteger statusGranted = new AtomicInteger();
+        AtomicInteger debtGranted = new AtomicInteger();
+        List<Disposable> pending = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            pending.add(budget.acquire("status").subscribe(v -> { }, e -> { }, statusGranted::incrementAndGet));
+            pending.add(budget.acquire("debt").subscribe(v -> { }, e -> { }, debtGranted::incrementAndGet));
+        }
+
+        // Cada cupo que libera "debt" va a "status", que está por debajo de su cuota
+        for (int i = 0; i < 4; i++) {
+            budget.release("debt");
+        }
+        assertEquals(4, statusGranted.get());
+        assertEquals(0, debtGranted.get());
+        assertEquals(4, budget.used("status"));
+        pending.forEach(Disposable::dispose);
+    }
+
+    @Test
+    void cancelledWaiterDoesNotLeakPermits() {
+        for (int i = 0; i < 8; i++) {
+            budget.acquire("status").block();
+        }
+        Disposable waiting = budget.acquire("debt").subscribe();
+        waiting.dispose();
+        budget.release("status");
+        assertEquals(7, budget.used("status"));
+        assertEquals(0, budget.used("debt"));
+    }
+}
@@ -0,0 +1,49 @@
+package co.com.pedrorido.sqs.listener.helper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class VisibilityHeartbeatTest {
+
+    @Test
+    void extendsTrackedMessagesUntilUntracked() throws InterruptedException {
+        SqsAsyncClient client = mock(SqsAsyncClient.class);
+        when(client.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ChangeMessageVisibilityBatchResponse.builder()
+                        .successful(ChangeMessageVisibilityBatchResultEntry.builder().id("0").build())
+                        .build()));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VisibilityHeartbeat heartbeat = new VisibilityHeartbeat(client, "queue", 1, Duration.ofMinutes(1), registry, "op");
+        Message message = Message.builder().messageId("1").receiptHandle("rh-1").build();
+
+        Disposable running = heartbeat.start();
+        try {
+            heartbeat.track(message);
+            verify(client, timeout(2000).atLeastOnce()).changeMessageVisibilityBatch(argThat((ChangeMessageVisibilityBatchRequest r) ->
+                    r.entries().size() == 1 && r.entries().get(0).visibilityTimeout() == 1));
+
+            heartbeat.untrack(message);
+            Thread.sleep(600);
+            clearInvocations(client);
+            Thread.sleep(1200);
+            verify(client, never()).changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+            assertTrue(registry.get("sqs.listener.visibility.extended").counter().count() >= 1);
+        } finally {
+            running.dispose();
+        }
+    }
+}
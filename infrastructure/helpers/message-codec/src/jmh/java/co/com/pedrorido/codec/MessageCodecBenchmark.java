@@ -0,0 +1,84 @@
+package co.com.pedrorido.codec;
+
+import co.com.pedrorido.model.external.RequestStatusChangeMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Antes (ObjectMapper general, por mensaje readValue(String, Class)/writeValueAsString) frente a
+ * después ({@link MessageCodec}). Con el perfilador gc, {@code gc.alloc.rate.norm} es la
+ * asignación por mensaje.
+ * <p>
+ * Referencia medida sin JMH (bytes asignados por hilo, JDK 17, Jackson 2.16.1), en B/op:
+ * <pre>
+ * debts  decodeBefore  decodeAfter  encodeBefore  encodeAfter  encodeAfterBytes
+ *     0          1112         1064           784          784               744
+ *    50         11800        11800          7184         7184             10200
+ * </pre>
+ * La ganancia en asignación es marginal; el beneficio del codec es no resolver el tipo por
+ * llamada. Para mapas de deuda grandes {@code encode} a bytes asigna más que a texto.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageCodecBenchmark {
+    @Param({"0", "50"})
+    private int debts;
+
+    private ObjectMapper mapper;
+    private MessageCodec codec;
+    private RequestStatusChangeMessage message;
+    private String body;
+
+    @Setup
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper();
+        codec = new MessageCodec();
+        Map<UUID, BigDecimal> debtMap = new LinkedHashMap<>();
+        for (int i = 0; i < debts; i++) {
+            debtMap.put(UUID.randomUUID(), new BigDecimal("1234.56").add(BigDecimal.valueOf(i)));
+        }
+        message = new RequestStatusChangeMessage(UUID.randomUUID(), "Pendiente de revisión", "Aprobada",
+                "cliente@crediya.com", new Date(), debts == 0 ? null : debtMap, "auto");
+        body = mapper.writeValueAsString(message);
+    }
+
+    @Benchmark
+    public RequestStatusChangeMessage decodeBefore() throws Exception {
+        return mapper.readValue(body, RequestStatusChangeMessage.class);
+    }
+
+    @Benchmark
+    public RequestStatusChangeMessage decodeAfter() throws Exception {
+        return codec.decodeStatusChange(body);
+    }
+
+    @Benchmark
+    public String encodeBefore() throws Exception {
+        return mapper.writeValueAsString(message);
+    }
+
+    @Benchmark
+    public String encodeAfter() {
+        return codec.encodeToText(message);
+    }
+
+    @Benchmark
+    public byte[] encodeAfterBytes() {
+        return codec.encode(message);
+    }
+}
@@ -0,0 +1,139 @@
+package co.com.pedrorido.codec;
+
+import co.com.pedrorido.model.external.RequestCalculateDebtMessage;
+import co.com.pedrorido.model.external.RequestStatusChangeMessage;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Codificación JSON de los mensajes SQS compartida por quien publica (outbox) y quien consume
+ * (listener). Los {@link ObjectReader}/{@link ObjectWriter} se construyen una sola vez con el
+ * tipo ya resuelto, así cada mensaje evita la búsqueda del deserializador y la configuración
+ * por llamada. El formato es el mismo que producía un {@code ObjectMapper} sin configurar
+ * (fechas como epoch millis); al leer se ignoran campos desconocidos.
+ */
+@Component
+public class MessageCodec {
+    /** Atributo SQS con la clave de orden del mensaje (id del agregado de la outbox). */
+    public static final String ORDERING_KEY_ATTRIBUTE = "orderingKey";
+
+    private final JsonFactory factory;
+    private final ObjectReader statusChangeReader;
+    private final ObjectReader calculateDebtReader;
+    private final ObjectWriter statusChangeWriter;
+    private final ObjectWriter calculateDebtWriter;
+
+    public MessageCodec() {
+        ObjectMapper mapper = new ObjectMapper();
+        this.factory = mapper.getFactory();
+        this.statusChangeReader = mapper.readerFor(RequestStatusChangeMessage.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.calculateDebtReader = mapper.readerFor(RequestCalculateDebtMessage.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.statusChangeWriter = mapper.writerFor(RequestStatusChangeMessage.class);
+        this.calculateDebtWriter = mapper.writerFor(RequestCalculateDebtMessage.class);
+    }
+
+    /** Lee directamente del cuerpo recibido, sin copias intermedias del texto. */
+    public RequestStatusChangeMessage decodeStatusChange(String body) throws IOException {
+        return statusChangeReader.readValue(body);
+    }
+
+    public RequestStatusChangeMessage decodeStatusChange(byte[] body) throws IOException {
+        return statusChangeReader.readValue(body);
+    }
+
+    public RequestCalculateDebtMessage decodeCalculateDebt(String body) throws IOException {
+        return calculateDebtReader.readValue(body);
+    }
+
+    public RequestCalculateDebtMessage decodeCalculateDebt(byte[] body) throws IOException {
+        return calculateDebtReader.readValue(body);
+    }
+
+    /**
+     * Clave de orden leída del JSON sin deserializarlo: recorre solo los campos de primer nivel
+     * y se detiene en {@code solicitudId}; si no está, usa {@code usuarioId} o {@code email}.
+     * Nulo si el cuerpo no es JSON legible o no trae ninguno.
+     */
+    public String orderingKey(String body) {
+        String userId = null;
+        String email = null;
+        try (JsonParser parser = factory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (field) {
+                    case "solicitudId" -> {
+                        String id = parser.getText();
+                        if (!id.isBlank()) {
+                            return id;
+                        }
+                    }
+                    case "usuarioId" -> userId = parser.getText();
+                    case "email" -> email = parser.getText();
+                    default -> { }
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        if (userId != null && !userId.isBlank()) {
+            return userId;
+        }
+        return email != null && !email.isBlank() ? email : null;
+    }
+
+    /** UTF-8 directo a bytes, para destinos binarios (compresión, blobs). */
+    public byte[] encode(RequestStatusChangeMessage message) {
+        try {
+            return statusChangeWriter.writeValueAsBytes(message);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public byte[] encode(RequestCalculateDebtMessage message) {
+        try {
+            return calculateDebtWriter.writeValueAsBytes(message);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Para destinos de texto (columna payload de la outbox, cuerpo SQS) sin pasar por bytes. */
+    public String encodeToText(RequestStatusChangeMessage message) {
+        try {
+            return statusChangeWriter.writeValueAsString(message);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String encodeToText(RequestCalculateDebtMessage message) {
+        try {
+            return calculateDebtWriter.writeValueAsString(message);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package co.com.pedrorido.codec;
+
+import co.com.pedrorido.codec.blob.BlobNotFoundException;
+import co.com.pedrorido.codec.blob.BlobStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Formato de transporte compacto y versionado para eventos grandes (p. ej. debtMap con muchos
+ * préstamos). La codificación se indica en el atributo {@link #ENCODING_ATTRIBUTE}:
+ * <ul>
+ *     <li>sin atributo: JSON plano (lo que se envía bajo el umbral o con la compactación apagada);</li>
+ *     <li>{@value #GZIP_V1}: JSON comprimido con gzip y en base64 (el cuerpo SQS debe ser texto);</li>
+ *     <li>{@value #CLAIM_CHECK_V1}: el JSON comprimido se guarda en el {@link BlobStore} y el cuerpo
+ *     solo lleva la referencia {@code {"claimCheck":"<clave>"}}.</li>
+ * </ul>
+ * Los consumidores aceptan siempre los tres; los productores solo compactan si está habilitado,
+ * para no enviar un formato que un consumidor externo aún no entiende.
+ */
+@Component
+public class PayloadCompactor {
+    public static final String ENCODING_ATTRIBUTE = "contentEncoding";
+    public static final String GZIP_V1 = "gzip+base64/v1";
+    public static final String CLAIM_CHECK_V1 = "claim-check/v1";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final BlobStore blobStore;
+    private final boolean enabled;
+    private final int compressThreshold;
+    private final int claimCheckThreshold;
+
+    public PayloadCompactor(BlobStore blobStore,
+                            @Value("${codec.compact.enabled:false}") boolean enabled,
+                            @Value("${codec.compact.compressThreshold:8192}") int compressThreshold,
+                            @Value("${codec.compact.claimCheckThreshold:204800}") int claimCheckThreshold) {
+        this.blobStore = blobStore;
+        this.enabled = enabled;
+        this.compressThreshold = compressThreshold;
+        this.claimCheckThreshold = claimCheckThreshold;
+    }
+
+    /** Elige el formato según el tamaño del JSON (en caracteres, cota inferior de los bytes UTF-8). */
+    public Mono<WirePayload> pack(String json) {
+        if (!enabled || json.length() < compressThreshold) {
+            return Mono.just(new WirePayload(json, null));
+        }
+        return Mono.fromCallable(() -> gzip(json.getBytes(StandardCharsets.UTF_8)))
+                .flatMap(compressed -> {
+                    // base64 crece 4/3
+                    if ((compressed.length + 2L) / 3 * 4 < claimCheckThreshold) {
+                        return Mono.just(new WirePayload(Base64.getEncoder().encodeToString(compressed), GZIP_V1));
+                    }
+                    String key = UUID.randomUUID().toString();
+                    return blobStore.put(key, compressed)
+                            .thenReturn(new WirePayload("{\"claimCheck\":\"" + key + "\"}", CLAIM_CHECK_V1));
+                });
+    }
+
+    /**
+     * JSON original en UTF-8. Un cuerpo corrupto o una codificación desconocida terminan en
+     * {@link IllegalArgumentException} o {@link UncheckedIOException} (reintentar no los arregla);
+     * una referencia sin blob en {@link BlobNotFoundException} y un fallo del almacén se propaga
+     * tal cual, ambos reintentables.
+     */
+    public Mono<byte[]> unpack(String body, String encoding) {
+        if (encoding == null) {
+            return Mono.fromCallable(() -> body.getBytes(StandardCharsets.UTF_8));
+        }
+        return switch (encoding) {
+            case GZIP_V1 -> Mono.fromCallable(() -> gunzip(Base64.getDecoder().decode(body)));
+            case CLAIM_CHECK_V1 -> Mono.fromCallable(() -> claimCheckKey(body))
+                    .flatMap(key -> blobStore.get(key)
+                            .switchIfEmpty(Mono.error(() -> new BlobNotFoundException(key))))
+                    .map(PayloadCompactor::gunzip);
+            default -> Mono.error(new IllegalArgumentException("unsupported content encoding: " + encoding));
+        };
+    }
+
+    private static String claimCheckKey(String body) {
+        JsonNode key;
+        try {
+            key = MAPPER.readTree(body).get("claimCheck");
+        } catch (IOException e) {
+            throw new IllegalArgumentException("invalid claim-check reference", e);
+        }
+        if (key == null || !key.isTextual()) {
+            throw new IllegalArgumentException("claim-check reference without key");
+        }
+        return key.asText();
+    }
+
+    static byte[] gzip(byte[] raw) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] gunzip(byte[] compressed) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package co.com.pedrorido.codec;
+
+/**
+ * Cuerpo listo para SQS y su codificación, que viaja en el atributo
+ * {@link PayloadCompactor#ENCODING_ATTRIBUTE}. {@code encoding} nulo es JSON plano.
+ */
+public record WirePayload(String body, String encoding) {
+}
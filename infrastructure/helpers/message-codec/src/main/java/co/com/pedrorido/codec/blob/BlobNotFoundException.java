@@ -0,0 +1,11 @@
+package co.com.pedrorido.codec.blob;
+
+/**
+ * La referencia de un claim-check apunta a un blob que el almacén aún no tiene: puede no ser
+ * visible todavía o estar en otra instancia, así que el consumidor reintenta en vez de descartar.
+ */
+public class BlobNotFoundException extends RuntimeException {
+    public BlobNotFoundException(String key) {
+        super("claim-check blob not found: " + key);
+    }
+}
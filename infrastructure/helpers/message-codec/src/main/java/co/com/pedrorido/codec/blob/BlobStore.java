@@ -0,0 +1,11 @@
+package co.com.pedrorido.codec.blob;
+
+import reactor.core.publisher.Mono;
+
+/** Almacén de cuerpos de mensaje demasiado grandes para SQS (patrón claim-check). */
+public interface BlobStore {
+    Mono<Void> put(String key, byte[] content);
+
+    /** Vacío si la clave no existe. */
+    Mono<byte[]> get(String key);
+}
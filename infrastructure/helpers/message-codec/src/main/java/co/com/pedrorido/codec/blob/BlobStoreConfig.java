@@ -0,0 +1,28 @@
+package co.com.pedrorido.codec.blob;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class BlobStoreConfig {
+
+    /**
+     * Almacén local solo si no hay otro {@link BlobStore}: los blobs no se comparten entre instancias,
+     * así que compactar con él exige {@code codec.blobStore.allowLocal=true} (desarrollo, una sola instancia).
+     */
+    @Bean
+    @ConditionalOnMissingBean(BlobStore.class)
+    public BlobStore blobStore(@Value("${codec.blobStore.dir:${java.io.tmpdir}/crediya-blobs}") String dir,
+                               @Value("${codec.compact.enabled:false}") boolean compactEnabled,
+                               @Value("${codec.blobStore.allowLocal:false}") boolean allowLocal) {
+        if (compactEnabled && !allowLocal) {
+            throw new IllegalStateException("codec.compact.enabled=true needs a shared BlobStore bean; "
+                    + "LocalFileBlobStore only works with a single instance (codec.blobStore.allowLocal=true)");
+        }
+        return new LocalFileBlobStore(Path.of(dir));
+    }
+}
@@ -0,0 +1,58 @@
+package co.com.pedrorido.codec.blob;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.regex.Pattern;
+
+/**
+ * Implementación en disco local, para desarrollo y pruebas. Escribe a un temporal y lo mueve
+ * de forma atómica para que un lector nunca vea un archivo a medias. En producción se
+ * reemplaza por un almacén compartido entre instancias (p. ej. S3).
+ */
+public class LocalFileBlobStore implements BlobStore {
+    private static final Pattern SAFE_KEY = Pattern.compile("[A-Za-z0-9._-]{1,128}");
+
+    private final Path root;
+
+    public LocalFileBlobStore(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public Mono<Void> put(String key, byte[] content) {
+        return Mono.fromCallable(() -> {
+                    Path target = resolve(key);
+                    Files.createDirectories(root);
+                    Path tmp = Files.createTempFile(root, key, ".tmp");
+                    Files.write(tmp, content);
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    return target;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    @Override
+    public Mono<byte[]> get(String key) {
+        return Mono.fromCallable(() -> {
+                    try {
+                        return Files.readAllBytes(resolve(key));
+                    } catch (NoSuchFileException e) {
+                        return null;
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Path resolve(String key) {
+        if (key == null || !SAFE_KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("invalid blob key: " + key);
+        }
+        return root.resolve(key);
+    }
+}
@@ -0,0 +1,48 @@
+package co.com.pedrorido.codec;
+
+import co.com.pedrorido.model.external.RequestCalculateDebtMessage;
+import co.com.pedrorido.model.external.RequestStatusChangeMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageCodecTest {
+    private static final UUID REQUEST_ID = UUID.fromString("d6761e0b-8a7a-4eff-90b0-60c1accf38c3");
+
+    private final MessageCodec codec = new MessageCodec();
+
+    @Test
+    void statusChangeRoundTrip() throws Exception {
+        var message = new RequestStatusChangeMessage(REQUEST_ID, "Pendiente de revisión", "Aprobada", "a@x.com",
+                new Date(1_700_000_000_000L), Map.of(REQUEST_ID, new BigDecimal("100.50")), "auto");
+
+        assertEquals(message, codec.decodeStatusChange(codec.encode(message)));
+        assertEquals(message, codec.decodeStatusChange(codec.encodeToText(message)));
+    }
+
+    @Test
+    void wireFormatMatchesPlainObjectMapper() throws Exception {
+        var message = new RequestCalculateDebtMessage(REQUEST_ID, "a@x.com", new Date(1_700_000_000_000L),
+                new BigDecimal("5000"), new BigDecimal("3000"), new BigDecimal("450.12"), new BigDecimal("1200"));
+
+        String expected = new ObjectMapper().writeValueAsString(message);
+        assertEquals(expected, codec.encodeToText(message));
+        assertEquals(expected, new String(codec.encode(message), StandardCharsets.UTF_8));
+        assertEquals(message, codec.decodeCalculateDebt(expected));
+    }
+
+    @Test
+    void unknownFieldsAreIgnored() throws Exception {
+        var decoded = codec.decodeStatusChange("{\"solicitudId\":\"" + REQUEST_ID + "\",\"estadoNuevo\":\"2\",\"extra\":true}");
+
+        assertEquals(REQUEST_ID, decoded.solicitudId());
+        assertEquals("2", decoded.estadoNuevo());
+    }
+}
@@ -0,0 +1,81 @@
+package co.com.pedrorido.codec;
+
+import co.com.pedrorido.codec.blob.BlobNotFoundException;
+import co.com.pedrorido.codec.blob.LocalFileBlobStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayloadCompactorTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void smallOrDisabledPayloadsStayPlain() {
+        String json = debtMapJson(200);
+        var disabled = new PayloadCompactor(new LocalFileBlobStore(dir), false, 10, 100);
+        var enabled = new PayloadCompactor(new LocalFileBlobStore(dir), true, 8192, 204800);
+
+        assertEquals(new WirePayload(json, null), disabled.pack(json).block());
+        assertEquals(new WirePayload("{}", null), enabled.pack("{}").block());
+    }
+
+    @Test
+    void gzipRoundTrip() {
+        var compactor = new PayloadCompactor(new LocalFileBlobStore(dir), true, 100, 1_000_000);
+        String json = debtMapJson(200);
+
+        WirePayload wire = compactor.pack(json).block();
+
+        assertEquals(PayloadCompactor.GZIP_V1, wire.encoding());
+        assertTrue(wire.body().length() < json.length());
+        assertEquals(json, new String(compactor.unpack(wire.body(), wire.encoding()).block(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void oversizedPayloadGoesThroughClaimCheck() throws Exception {
+        var compactor = new PayloadCompactor(new LocalFileBlobStore(dir), true, 100, 200);
+        String json = debtMapJson(200);
+
+        WirePayload wire = compactor.pack(json).block();
+
+        assertEquals(PayloadCompactor.CLAIM_CHECK_V1, wire.encoding());
+        assertTrue(wire.body().startsWith("{\"claimCheck\":"));
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+        assertEquals(json, new String(compactor.unpack(wire.body(), wire.encoding()).block(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void unreadablePayloadsFailAsInvalid() {
+        var compactor = new PayloadCompactor(new LocalFileBlobStore(dir), true, 100, 200);
+
+        StepVerifier.create(compactor.unpack("{}", "zstd/v9")).expectError(IllegalArgumentException.class).verify();
+        StepVerifier.create(compactor.unpack("{\"claimCheck\":\"../etc/passwd\"}", PayloadCompactor.CLAIM_CHECK_V1))
+                .expectError(IllegalArgumentException.class).verify();
+    }
+
+    @Test
+    void missingBlobIsNotInvalid() {
+        var compactor = new PayloadCompactor(new LocalFileBlobStore(dir), true, 100, 200);
+
+        StepVerifier.create(compactor.unpack("{\"claimCheck\":\"missing\"}", PayloadCompactor.CLAIM_CHECK_V1))
+                .expectError(BlobNotFoundException.class).verify();
+    }
+
+    private static String debtMapJson(int entries) {
+        return IntStream.range(0, entries)
+                .mapToObj(i -> "\"" + UUID.randomUUID() + "\":" + (1000 + i) + ".50")
+                .collect(Collectors.joining(",", "{\"solicitudId\":\"" + UUID.randomUUID() + "\",\"debtMap\":{", "}}"));
+    }
+}
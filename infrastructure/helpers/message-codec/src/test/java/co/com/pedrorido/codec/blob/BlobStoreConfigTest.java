@@ -0,0 +1,27 @@
+package co.com.pedrorido.codec.blob;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BlobStoreConfigTest {
+    @TempDir
+    Path dir;
+
+    private final BlobStoreConfig config = new BlobStoreConfig();
+
+    @Test
+    void compactionWithTheLocalStoreFailsAtStartup() {
+        assertThrows(IllegalStateException.class, () -> config.blobStore(dir.toString(), true, false));
+    }
+
+    @Test
+    void localStoreIsAllowedWithoutCompactionOrWhenExplicitlyEnabled() {
+        assertInstanceOf(LocalFileBlobStore.class, config.blobStore(dir.toString(), false, false));
+        assertInstanceOf(LocalFileBlobStore.class, config.blobStore(dir.toString(), true, true));
+    }
+}
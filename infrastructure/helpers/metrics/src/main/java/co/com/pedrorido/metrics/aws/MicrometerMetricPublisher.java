@@ -3,6 +3,7 @@ package co.com.pedrorido.metrics.aws;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
 import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Component;
 import software.amazon.awssdk.metrics.MetricCollection;
 import software.amazon.awssdk.metrics.MetricPublisher;
@@ -11,33 +12,64 @@ import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Component
 @AllArgsConstructor
-public class MicrometerMetricPublisher implements MetricPublisher {
+public class MicrometerMetricPublisher implements MetricPublisher, DisposableBean {
     private final ExecutorService service = Executors.newFixedThreadPool(10);
     private final MeterRegistry registry;
 
     @Override
     public void publish(MetricCollection metricCollection) {
-        service.submit(() -> {
-            List<Tag> tags = buildTags(metricCollection);
-            metricCollection.stream()
-                    .filter(record -> record.value() instanceof Duration || record.value() instanceof Integer)
-                    .forEach(record -> {
-                        if (record.value() instanceof Duration) {
-                            registry.timer(record.metric().name(), tags).record((Duration) record.value());
-                        } else if (record.value() instanceof Integer) {
-                            registry.counter(record.metric().name(), tags).increment((Integer) record.value());
-                        }
-                    });
-        });
+        if (service.isShutdown()) {
+            // Llamadas que terminan durante el apagado: sus métricas ya no se exportarían
+            return;
+        }
+        try {
+            service.submit(() -> {
+                List<Tag> tags = buildTags(metricCollection);
+                metricCollection.stream()
+                        .filter(record -> record.value() instanceof Duration || record.value() instanceof Integer)
+                        .forEach(record -> {
+                            if (record.value() instanceof Duration) {
+                                registry.timer(record.metric().name(), tags).record((Duration) record.value());
+                            } else if (record.value() instanceof Integer) {
+                                registry.counter(record.metric().name(), tags).increment((Integer) record.value());
+                            }
+                        });
+            });
+        } catch (RejectedExecutionException e) {
+            // El apagado empezó entre la verificación y el submit
+        }
     }
 
+    /**
+     * Lo llama cada cliente AWS al cerrarse, pero el bean es compartido entre clientes:
+     * cerrar aquí dejaría sin métricas a los demás. El apagado real es {@link #destroy()}.
+     */
     @Override
     public void close() {
+        // Sin efecto a propósito
+    }
 
+    /** Spring al destruir el bean, después de los clientes: registra lo ya encolado antes de salir. */
+    @Override
+    public void destroy() {
+        if (service.isShutdown()) {
+            return;
+        }
+        service.shutdown();
+        try {
+            if (!service.awaitTermination(5, TimeUnit.SECONDS)) {
+                service.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            service.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
     }
 
     private List<Tag> buildTags(MetricCollection metricCollection) {
@@ -2,12 +2,24 @@ package co.com.pedrorido.metrics.aws;
 
 import io.micrometer.core.instrument.logging.LoggingMeterRegistry;
 import io.micrometer.core.instrument.logging.LoggingRegistryConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.metrics.MetricCategory;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricCollector;
+import software.amazon.awssdk.metrics.MetricLevel;
+import software.amazon.awssdk.metrics.SdkMetric;
 import software.amazon.awssdk.metrics.internal.EmptyMetricCollection;
 
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 class MicrometerMetricPublisherTest {
+    private static final SdkMetric<Duration> CALL_DURATION =
+            SdkMetric.create("TestCallDuration", Duration.class, MetricLevel.INFO, MetricCategory.CORE);
 
     @Test
     void metricTest() {
@@ -18,9 +30,36 @@ class MicrometerMetricPublisherTest {
         MicrometerMetricPublisher micrometerMetricPublisher = new MicrometerMetricPublisher(loggingMeterRegistry);
 
         micrometerMetricPublisher.publish(EmptyMetricCollection.create());
-        micrometerMetricPublisher.close();
+        micrometerMetricPublisher.destroy();
 
         assertNotNull(micrometerMetricPublisher);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void closingOneClientKeepsPublishingForTheOthers() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerMetricPublisher micrometerMetricPublisher = new MicrometerMetricPublisher(registry);
+        micrometerMetricPublisher.close();
+
+        micrometerMetricPublisher.publish(apiCall(Duration.ofMillis(15)));
+        micrometerMetricPublisher.destroy();
+
+        assertEquals(1, registry.get(CALL_DURATION.name()).timer().count());
+    }
+
+    @Test
+    void publishAfterDestroyIsIgnored() {
+        MicrometerMetricPublisher micrometerMetricPublisher = new MicrometerMetricPublisher(new SimpleMeterRegistry());
+        micrometerMetricPublisher.destroy();
+
+        assertDoesNotThrow(() -> micrometerMetricPublisher.publish(EmptyMetricCollection.create()));
+        assertDoesNotThrow(micrometerMetricPublisher::destroy);
+    }
+
+    private static MetricCollection apiCall(Duration duration) {
+        MetricCollector collector = MetricCollector.create("ApiCall");
+        collector.reportMetric(CALL_DURATION, duration);
+        return collector.collect();
+    }
+}